@@ -0,0 +1,163 @@
+package com.redesegura.accessibility;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controlador adaptativo da taxa de análise (AIMD)
+ *
+ * Mantém uma "capacidade" entre MIN_CAPACITY e 1.0 e deriva dela:
+ * - rateScale: multiplicador dos períodos de silêncio da coalescência (1/capacidade)
+ * - lookaheadDepth: quantos itens abaixo do viewport são pré-pontuados
+ * - activeLanes: quantas lanes do pipeline recebem apps
+ *
+ * A cada tick: congestionamento (fila acima da marca d'água ou latência média acima
+ * do alvo) divide a capacidade por 2, com um intervalo mínimo entre cortes para a fila
+ * ter tempo de drenar; sem congestionamento, a capacidade sobe um passo fixo. Status
+ * térmico e economia de bateria impõem tetos à capacidade.
+ *
+ * Java puro: relógio e sinais do aparelho são injetados, para simular fora do aparelho.
+ */
+class AdaptiveRateController {
+
+    // Política AIMD - VOCÊ PODE AJUSTAR
+    static final double MIN_CAPACITY = 0.125;
+    static final double INITIAL_CAPACITY = 2 / 3.0;
+    private static final double INCREASE_STEP = 0.05;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final long DECREASE_COOLDOWN_MS = 2000;
+    private static final double BACKLOG_CONGESTED = 0.75;
+    private static final double TARGET_LATENCY_MS = 150;
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+    static final int MAX_LOOKAHEAD_DEPTH = 3;
+
+    // Status térmico (PowerManager.THERMAL_STATUS_*) -> teto de capacidade
+    private static final int THERMAL_MODERATE = 2;
+    private static final int THERMAL_SEVERE = 3;
+    private static final int THERMAL_CRITICAL = 4;
+    private static final double POWER_SAVE_CAP = 0.5;
+
+    interface Clock {
+        long nowMs();
+    }
+
+    /**
+     * Sinais observados a cada tick
+     */
+    interface Signals {
+        double queueBacklog();      // profundidade / capacidade das filas de primeiro plano (0..1)
+        int thermalStatus();        // PowerManager.THERMAL_STATUS_*; 0 sem suporte
+        boolean powerSaveMode();
+    }
+
+    private final Clock clock;
+    private final Signals signals;
+    private final int maxLanes;
+
+    private double capacity = INITIAL_CAPACITY;
+    private double latencyEwmaMs = 0;
+    private boolean latencySampled = false; // alguma análise terminou desde o último tick
+    private long lastDecreaseAt = Long.MIN_VALUE / 2;
+
+    // Estatísticas
+    private int ticks = 0;
+    private int increases = 0;
+    private int decreases = 0;
+    private int thermalCapped = 0;
+    private int powerSaveCapped = 0;
+
+    AdaptiveRateController(Clock clock, Signals signals, int maxLanes) {
+        this.clock = clock;
+        this.signals = signals;
+        this.maxLanes = maxLanes;
+    }
+
+    /**
+     * Latência de uma análise completa (extração + pontuação), da thread de análise
+     */
+    synchronized void recordAnalysisLatency(long latencyMs) {
+        latencyEwmaMs = latencyEwmaMs == 0 ? latencyMs :
+            LATENCY_EWMA_ALPHA * latencyMs + (1 - LATENCY_EWMA_ALPHA) * latencyEwmaMs;
+        latencySampled = true;
+    }
+
+    /**
+     * TICK DO CONTROLADOR - ajusta a capacidade a partir dos sinais atuais
+     */
+    synchronized void tick() {
+        ticks++;
+        long now = clock.nowMs();
+
+        // Tick sem análises: a latência média decai, senão um pico antigo seguraria a
+        // capacidade baixa até a próxima análise (que, com capacidade baixa, demora)
+        if (!latencySampled) latencyEwmaMs *= 1 - LATENCY_EWMA_ALPHA;
+        latencySampled = false;
+
+        boolean congested = signals.queueBacklog() >= BACKLOG_CONGESTED || latencyEwmaMs > TARGET_LATENCY_MS;
+        if (congested) {
+            if (now - lastDecreaseAt >= DECREASE_COOLDOWN_MS) {
+                capacity *= DECREASE_FACTOR;
+                lastDecreaseAt = now;
+                decreases++;
+            }
+        } else if (capacity < 1.0) {
+            capacity += INCREASE_STEP;
+            increases++;
+        }
+
+        double cap = 1.0;
+        int thermal = signals.thermalStatus();
+        if (thermal >= THERMAL_CRITICAL) cap = 0.25;
+        else if (thermal >= THERMAL_SEVERE) cap = 0.5;
+        else if (thermal >= THERMAL_MODERATE) cap = 0.75;
+        if (cap < 1.0 && capacity > cap) thermalCapped++;
+
+        if (signals.powerSaveMode() && cap > POWER_SAVE_CAP) {
+            cap = POWER_SAVE_CAP;
+            if (capacity > cap) powerSaveCapped++;
+        }
+
+        capacity = Math.max(MIN_CAPACITY, Math.min(cap, Math.min(1.0, capacity)));
+    }
+
+    synchronized double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Multiplicador dos períodos de silêncio da coalescência
+     */
+    synchronized double getRateScale() {
+        return 1.0 / capacity;
+    }
+
+    synchronized int getLookaheadDepth() {
+        return (int) (capacity * MAX_LOOKAHEAD_DEPTH);
+    }
+
+    synchronized int getActiveLanes() {
+        return Math.max(1, (int) Math.round(capacity * maxLanes));
+    }
+
+    synchronized void reset() {
+        capacity = INITIAL_CAPACITY;
+        latencyEwmaMs = 0;
+        latencySampled = false;
+        lastDecreaseAt = Long.MIN_VALUE / 2;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("capacity", capacity);
+        stats.put("rateScale", 1.0 / capacity);
+        stats.put("lookaheadDepth", (int) (capacity * MAX_LOOKAHEAD_DEPTH));
+        stats.put("activeLanes", Math.max(1, (int) Math.round(capacity * maxLanes)));
+        stats.put("latencyEwmaMs", latencyEwmaMs);
+        stats.put("ticks", ticks);
+        stats.put("increases", increases);
+        stats.put("decreases", decreases);
+        stats.put("thermalCapped", thermalCapped);
+        stats.put("powerSaveCapped", powerSaveCapped);
+        return stats;
+    }
+}
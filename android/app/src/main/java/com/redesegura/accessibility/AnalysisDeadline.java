@@ -0,0 +1,114 @@
+package com.redesegura.accessibility;
+
+/**
+ * Prazo de uma análise do PsychAI
+ *
+ * O motor consulta o prazo entre os estágios e dentro das varreduras longas; ao
+ * estourar, os estágios restantes são pulados e o veredito parcial é retornado.
+ * O relógio só é lido a cada POLL_INTERVAL chamadas de poll() para manter o custo
+ * desprezível dentro dos loops de triggers.
+ */
+class AnalysisDeadline {
+
+    private static final int POLL_INTERVAL = 32;
+
+    private final long deadlineNanos;
+    private final long budgetMs;
+    private String currentStage = "inicio";
+    private String expiredStage = null;
+    private int pollCount = 0;
+
+    private AnalysisDeadline(long budgetMs) {
+        this.budgetMs = budgetMs;
+        this.deadlineNanos = System.nanoTime() + budgetMs * 1_000_000L;
+    }
+
+    static AnalysisDeadline startingNow(long budgetMs) {
+        return new AnalysisDeadline(budgetMs);
+    }
+
+    void enterStage(String stage) {
+        this.currentStage = stage;
+    }
+
+    /**
+     * Verificação completa - usada entre estágios
+     */
+    boolean isExpired() {
+        if (expiredStage != null) return true;
+        if (System.nanoTime() >= deadlineNanos) {
+            expiredStage = currentStage;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Verificação amostrada - usada dentro de loops
+     */
+    boolean poll() {
+        if (expiredStage != null) return true;
+        if (++pollCount % POLL_INTERVAL != 0) return false;
+        return isExpired();
+    }
+
+    boolean wasExpired() {
+        return expiredStage != null;
+    }
+
+    String getExpiredStage() {
+        return expiredStage;
+    }
+
+    long getBudgetMs() {
+        return budgetMs;
+    }
+}
+
+/**
+ * CharSequence que aborta o regex quando o prazo da análise estoura
+ * Protege contra backtracking patológico em textos enormes
+ */
+class DeadlineCharSequence implements CharSequence {
+
+    private final CharSequence text;
+    private final AnalysisDeadline deadline;
+
+    DeadlineCharSequence(CharSequence text, AnalysisDeadline deadline) {
+        this.text = text;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (deadline.poll()) throw new AnalysisDeadlineExceededException();
+        return text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new DeadlineCharSequence(text.subSequence(start, end), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
+
+/**
+ * Sinaliza prazo excedido no meio de uma varredura de regex
+ */
+class AnalysisDeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    AnalysisDeadlineExceededException() {
+        super("Prazo da análise excedido", null, false, false);
+    }
+}
@@ -0,0 +1,413 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+import android.view.accessibility.AccessibilityEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline de análise com filas limitadas e prioridades
+ *
+ * Substitui o pool de 3 threads com fila ilimitada e a flag isAnalyzing:
+ * - Um número fixo de lanes, cada uma com UM consumidor e filas limitadas
+ * - Cada app é fixado numa lane (hash do pacote), então a ordem por app é preservada
+ * - Janelas visíveis ao mesmo tempo (tela dividida, picture-in-picture) recebem lanes
+ *   distintas em rodízio, para que uma não espere o consumidor da outra
+ * - Fila cheia descarta o item MAIS ANTIGO: o conteúdo mais recente é o que está na tela
+ * - Lane acima da marca d'água sinaliza backpressure para a política de throttling
+ *
+ * Prioridades dentro da lane: FOREGROUND (eventos das janelas visíveis),
+ * LOOKAHEAD (pré-pontuação abaixo do viewport) e BACKGROUND (eventos de janelas que o
+ * usuário já deixou, atribuição de vereditos). Um evento enfileirado que deixou de ser
+ * do primeiro plano é rebaixado ao ser retirado da fila.
+ *
+ * O número de lanes ativas é ajustável (controlador adaptativo): todas as threads
+ * existem desde o início, e uma lane desativada apenas para de receber apps novos e
+ * drena o que já tinha. Eventos da janela ainda enfileirados na lane anterior são
+ * cancelados pelo evento novo; só um já em análise pode rodar junto com ele.
+ *
+ * Um evento novo da mesma janela cancela os ainda enfileirados dela, então cada janela
+ * tem no máximo um evento na fila: com mais janelas visíveis que lanes ativas, as que
+ * dividem uma lane são atendidas em rodízio pela ordem FIFO. A análise em
+ * andamento não é interrompida: ela já registrou a passada no diff da árvore, e abortá-la
+ * deixaria texto marcado como analisado sem ter sido pontuado.
+ *
+ * O produtor de eventos é a thread de eventos de acessibilidade (única). Eventos
+ * descartados, cancelados ou processados são reciclados aqui.
+ */
+class AnalysisPipeline {
+
+    private static final String TAG = "AnalysisPipeline";
+    private static final int LOOKAHEAD_CAPACITY = 4;
+    private static final long IDLE_POLL_MS = 100;
+
+    static final int FOREGROUND = 0;
+    static final int LOOKAHEAD = 1;
+    static final int BACKGROUND = 2;
+    private static final String[] PRIORITY_NAMES = {"foreground", "lookahead", "background"};
+
+    /**
+     * Trabalho executado pelo consumidor da lane
+     */
+    interface Consumer {
+        void process(AccessibilityEvent event, String packageName, TraceRecorder.Trace trace);
+    }
+
+    private final Lane[] lanes;
+    private volatile int activeLanes;
+    private final Consumer consumer;
+    private final int capacityPerLane;
+    private final int highWatermark;
+
+    // Janela em primeiro plano (última mudança de tela ou scroll)
+    private volatile int foregroundWindowId = -1;
+    private volatile String foregroundPackage = null;
+
+    // Janelas monitoradas visíveis ao mesmo tempo -> lane (rodízio)
+    private volatile int[] visibleWindowIds = new int[0];
+    private volatile Map<Integer, Integer> windowLanes = Collections.emptyMap();
+
+    // Métricas
+    private final AtomicInteger enqueued = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger superseded = new AtomicInteger();
+    private final AtomicInteger demoted = new AtomicInteger();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicInteger[] runByPriority = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+    private final AtomicLong[] waitNanosByPriority = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+    private final AtomicInteger backgroundRun = new AtomicInteger();
+    private final AtomicInteger backgroundDropped = new AtomicInteger();
+
+    AnalysisPipeline(int laneCount, int capacityPerLane, Consumer consumer) {
+        this.consumer = consumer;
+        this.capacityPerLane = capacityPerLane;
+        this.highWatermark = Math.max(1, (capacityPerLane * 3) / 4);
+        this.lanes = new Lane[laneCount];
+        this.activeLanes = laneCount;
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i);
+            lanes[i].start();
+        }
+    }
+
+    /**
+     * LANES ATIVAS (1..laneCount) - chamado pelo controlador adaptativo
+     */
+    void setActiveLanes(int count) {
+        activeLanes = Math.max(1, Math.min(lanes.length, count));
+        assignWindowLanes(visibleWindowIds);
+    }
+
+    /**
+     * Ocupação das filas de primeiro plano das lanes ativas (0..1)
+     */
+    double getBacklog() {
+        int active = activeLanes;
+        int depth = 0;
+        for (int i = 0; i < active; i++) depth += lanes[i].queues[FOREGROUND].size();
+        return depth / (double) (active * capacityPerLane);
+    }
+
+    /**
+     * JANELA EM PRIMEIRO PLANO - chamado na thread de eventos
+     */
+    void setForeground(int windowId, String packageName) {
+        foregroundWindowId = windowId;
+        foregroundPackage = packageName;
+    }
+
+    /**
+     * JANELAS VISÍVEIS (tela dividida, picture-in-picture) - chamado na thread de eventos
+     * Todas contam como primeiro plano e são distribuídas entre as lanes ativas
+     */
+    void setVisibleWindows(int[] windowIds) {
+        visibleWindowIds = windowIds;
+        assignWindowLanes(windowIds);
+    }
+
+    /**
+     * ENFILEIRAR EVENTO com semântica drop-oldest, cancelando os pendentes da mesma janela
+     */
+    void submit(AccessibilityEvent event, String packageName, TraceRecorder.Trace trace) {
+        Lane lane = laneFor(event.getWindowId(), packageName);
+        Task task = new Task(event, packageName, null, System.nanoTime());
+        task.trace = trace;
+
+        cancelSuperseded(task);
+
+        int priority = isForeground(task) ? FOREGROUND : BACKGROUND;
+        offer(lane, priority, task);
+        enqueued.incrementAndGet();
+
+        int depth = lane.queues[FOREGROUND].size();
+        if (depth > maxDepth.get()) maxDepth.set(depth);
+    }
+
+    /**
+     * ENFILEIRAR PRÉ-PONTUAÇÃO na lane da janela (drop-oldest)
+     */
+    void submitLookahead(int windowId, String packageName, Runnable work) {
+        offer(laneFor(windowId, packageName), LOOKAHEAD, new Task(null, packageName, work, System.nanoTime()));
+    }
+
+    /**
+     * ENFILEIRAR TRABALHO DE BAIXA PRIORIDADE na lane da janela (drop-oldest)
+     */
+    void submitBackground(int windowId, String packageName, Runnable work) {
+        offer(laneFor(windowId, packageName), BACKGROUND, new Task(null, packageName, work, System.nanoTime()));
+    }
+
+    /**
+     * BACKPRESSURE - a fila de primeiro plano da lane da janela está acima da marca d'água
+     */
+    boolean isBackpressured(int windowId, String packageName) {
+        return laneFor(windowId, packageName).queues[FOREGROUND].size() >= highWatermark;
+    }
+
+    /**
+     * Encerrar consumidores e reciclar o que ficou na fila
+     */
+    void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            lane.interrupt();
+            clearLane(lane);
+        }
+    }
+
+    /**
+     * Descartar pendências (proteção desativada)
+     */
+    void clear() {
+        for (Lane lane : lanes) clearLane(lane);
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int depth = 0;
+        for (Lane lane : lanes) depth += lane.queues[FOREGROUND].size() + lane.queues[BACKGROUND].size();
+        int processedCount = processed.get();
+
+        stats.put("lanes", lanes.length);
+        stats.put("activeLanes", activeLanes);
+        stats.put("visibleWindows", visibleWindowIds.length);
+        stats.put("capacityPerLane", capacityPerLane);
+        stats.put("queueDepth", depth);
+        stats.put("maxQueueDepth", maxDepth.get());
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("processed", processedCount);
+        stats.put("superseded", superseded.get());
+        stats.put("demoted", demoted.get());
+        stats.put("averageWaitMs", processedCount > 0 ? totalWaitNanos.get() / processedCount / 1_000_000.0 : 0);
+        stats.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        stats.put("backgroundRun", backgroundRun.get());
+        stats.put("backgroundDropped", backgroundDropped.get());
+
+        // Latência de fila por prioridade
+        for (int priority = FOREGROUND; priority <= BACKGROUND; priority++) {
+            int run = runByPriority[priority].get();
+            stats.put(PRIORITY_NAMES[priority] + "Run", run);
+            stats.put(PRIORITY_NAMES[priority] + "AverageWaitMs",
+                      run > 0 ? waitNanosByPriority[priority].get() / run / 1_000_000.0 : 0);
+        }
+        return stats;
+    }
+
+    private boolean isForeground(Task task) {
+        // Antes da primeira mudança de tela, tudo é primeiro plano
+        int windowId = task.event.getWindowId();
+        return foregroundPackage == null ||
+               windowId == foregroundWindowId ||
+               task.packageName.equals(foregroundPackage) ||
+               windowLanes.containsKey(windowId);
+    }
+
+    /**
+     * Rodízio das janelas visíveis pelas lanes ativas
+     */
+    private void assignWindowLanes(int[] windowIds) {
+        int active = activeLanes;
+        Map<Integer, Integer> assignment = new HashMap<>();
+        for (int i = 0; i < windowIds.length; i++) assignment.put(windowIds[i], i % active);
+        windowLanes = assignment;
+    }
+
+    private void offer(Lane lane, int priority, Task task) {
+        LinkedBlockingDeque<Task> queue = lane.queues[priority];
+        while (!queue.offerLast(task)) {
+            Task oldest = queue.pollFirst();
+            if (oldest != null) discard(oldest);
+        }
+    }
+
+    /**
+     * Cancelar eventos ainda enfileirados da mesma janela - o novo os substitui
+     * Varre todas as lanes: depois de uma troca de lanes (rodízio das janelas visíveis ou
+     * lanes ativas) o evento antigo pode estar na fila da lane anterior
+     */
+    private void cancelSuperseded(Task task) {
+        for (Lane lane : lanes) {
+            for (int priority : new int[]{FOREGROUND, BACKGROUND}) {
+                for (Task queued : lane.queues[priority]) {
+                    // remove() devolve false se o consumidor já retirou a tarefa
+                    if (queued.isSameWindow(task) && lane.queues[priority].remove(queued)) {
+                        queued.event.recycle();
+                        superseded.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private void discard(Task task) {
+        if (task.event != null) {
+            task.event.recycle();
+            dropped.incrementAndGet();
+            Log.w(TAG, String.format("⚠️ Fila cheia: evento de %s descartado", task.packageName));
+        } else {
+            backgroundDropped.incrementAndGet();
+        }
+    }
+
+    private void clearLane(Lane lane) {
+        for (LinkedBlockingDeque<Task> queue : lane.queues) {
+            Task task;
+            while ((task = queue.pollFirst()) != null) discard(task);
+        }
+    }
+
+    private Lane laneFor(int windowId, String packageName) {
+        Integer lane = windowLanes.get(windowId);
+        return lanes[lane != null ? lane : Math.floorMod(packageName.hashCode(), activeLanes)];
+    }
+
+    private void recordWait(int priority, Task task, long waitNanos) {
+        runByPriority[priority].incrementAndGet();
+        waitNanosByPriority[priority].addAndGet(waitNanos);
+        if (task.event == null) return;
+
+        totalWaitNanos.addAndGet(waitNanos);
+        long currentMax;
+        while (waitNanos > (currentMax = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(currentMax, waitNanos)) break;
+        }
+    }
+
+    /**
+     * Item enfileirado: evento de acessibilidade ou trabalho avulso
+     */
+    private static class Task {
+        final AccessibilityEvent event;  // null para trabalho avulso
+        final String packageName;
+        final Runnable work;
+        final long enqueuedAtNanos;
+        TraceRecorder.Trace trace;  // null para trabalho avulso ou tracing desligado
+
+        Task(AccessibilityEvent event, String packageName, Runnable work, long enqueuedAtNanos) {
+            this.event = event;
+            this.packageName = packageName;
+            this.work = work;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        boolean isSameWindow(Task other) {
+            return event != null && other.event != null &&
+                   event.getWindowId() == other.event.getWindowId() &&
+                   packageName.equals(other.packageName);
+        }
+    }
+
+    /**
+     * Lane: filas limitadas por prioridade + consumidor único
+     */
+    private class Lane extends Thread {
+        final int index;
+        final LinkedBlockingDeque<Task>[] queues;
+        volatile boolean running = true;
+
+        @SuppressWarnings("unchecked")
+        Lane(int index) {
+            super("RedeSegura-Analysis-" + index);
+            this.index = index;
+            this.queues = new LinkedBlockingDeque[]{
+                new LinkedBlockingDeque<Task>(capacityPerLane),
+                new LinkedBlockingDeque<Task>(LOOKAHEAD_CAPACITY),
+                new LinkedBlockingDeque<Task>(capacityPerLane + LOOKAHEAD_CAPACITY)
+            };
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int priority = FOREGROUND;
+                Task task = nextForeground();
+
+                // Sem trabalho de primeiro plano: prioridades menores antes de bloquear
+                if (task == null && (task = queues[LOOKAHEAD].pollFirst()) != null) priority = LOOKAHEAD;
+                if (task == null && (task = queues[BACKGROUND].pollFirst()) != null) priority = BACKGROUND;
+
+                if (task == null) {
+                    try {
+                        task = queues[FOREGROUND].pollFirst(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    if (task == null) continue;
+                    priority = FOREGROUND;
+                }
+
+                recordWait(priority, task, System.nanoTime() - task.enqueuedAtNanos);
+                if (task.event != null) {
+                    runEvent(task);
+                } else {
+                    runWork(task.work);
+                }
+            }
+        }
+
+        /**
+         * Próximo evento do primeiro plano; os de janelas que o usuário deixou são rebaixados
+         */
+        private Task nextForeground() {
+            Task task;
+            while ((task = queues[FOREGROUND].pollFirst()) != null) {
+                if (isForeground(task)) return task;
+                demoted.incrementAndGet();
+                offer(this, BACKGROUND, task);
+            }
+            return null;
+        }
+
+        private void runEvent(Task task) {
+            if (task.trace != null) task.trace.mark(TraceRecorder.STARTED);
+            try {
+                consumer.process(task.event, task.packageName, task.trace);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Erro na análise de conteúdo", e);
+            } finally {
+                task.event.recycle();
+                processed.incrementAndGet();
+            }
+        }
+
+        private void runWork(Runnable work) {
+            try {
+                work.run();
+                backgroundRun.incrementAndGet();
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Erro em tarefa de baixa prioridade", e);
+            }
+        }
+    }
+}
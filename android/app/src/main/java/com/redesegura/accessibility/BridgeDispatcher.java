@@ -0,0 +1,271 @@
+package com.redesegura.accessibility;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entrega em lote para a bridge do React Native
+ *
+ * Substitui um emit de "onContentBlocked" por bloqueio: bloqueios e deltas de
+ * estatísticas se acumulam e saem como um único "onContentBlockedBatch", na cadência
+ * configurada ou quando o lote atinge maxBatchSize. Bloqueios redundantes no mesmo
+ * lote (mesmo app, tipo de trigger e nível de risco) viram um registro com "count";
+ * acima de MAX_PENDING_RECORDS o mais antigo é descartado.
+ *
+ * Deltas de estatísticas sozinhos saem numa cadência mais lenta (statsIntervalMs).
+ * Chamado das lanes de análise e da thread principal; o emit roda na thread do Handler.
+ */
+class BridgeDispatcher {
+
+    private static final String TAG = "BridgeDispatcher";
+    static final String BATCH_EVENT = "onContentBlockedBatch";
+    private static final int MAX_PENDING_RECORDS = 50;
+    private static final long RATE_WINDOW_MS = 10_000;
+
+    /**
+     * Saída para a bridge (DeviceEventManagerModule)
+     */
+    interface Emitter {
+        void emit(String eventName, WritableMap payload);
+    }
+
+    // Cadência - VOCÊ PODE AJUSTAR (JSON "bridgeBatching")
+    private long flushIntervalMs = 500;
+    private long statsIntervalMs = 2000;
+    private int maxBatchSize = 10;
+
+    private final Handler handler;
+    private final Emitter emitter;
+    private final Runnable flush = this::flushNow;
+
+    private final Map<String, BlockRecord> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> statsDelta = new HashMap<>();
+    private long scheduledAt = Long.MAX_VALUE;
+
+    // Estatísticas
+    private int blocksReceived = 0;
+    private int merged = 0;
+    private int dropped = 0;
+    private int emits = 0;
+    private int recordsDelivered = 0;
+    private final ArrayDeque<long[]> recentEmits = new ArrayDeque<>(); // {instante, registros}
+
+    BridgeDispatcher(Handler handler, Emitter emitter) {
+        this.handler = handler;
+        this.emitter = emitter;
+    }
+
+    /**
+     * ACUMULAR BLOQUEIO - mescla com um igual do mesmo lote
+     */
+    synchronized void enqueueBlock(AIAnalysisResult analysis, String appName) {
+        blocksReceived++;
+        String key = appName + "|" + analysis.triggerType + "|" + analysis.riskLevel;
+
+        BlockRecord record = pending.get(key);
+        if (record != null) {
+            record.merge(analysis);
+            merged++;
+        } else {
+            if (pending.size() >= MAX_PENDING_RECORDS) {
+                Iterator<BlockRecord> iterator = pending.values().iterator();
+                iterator.next();
+                iterator.remove();
+                dropped++;
+            }
+            pending.put(key, new BlockRecord(analysis, appName));
+        }
+
+        if (pending.size() >= maxBatchSize) {
+            schedule(0);
+        } else {
+            schedule(flushIntervalMs);
+        }
+    }
+
+    /**
+     * ACUMULAR DELTA DE ESTATÍSTICA (ex.: "analyses", "blocked")
+     */
+    synchronized void addStatsDelta(String key, int delta) {
+        statsDelta.merge(key, delta, Integer::sum);
+        schedule(statsIntervalMs);
+    }
+
+    /**
+     * ENVIAR O LOTE AGORA (também usado ao parar a proteção)
+     */
+    void flushNow() {
+        WritableMap payload;
+        int records;
+        synchronized (this) {
+            handler.removeCallbacks(flush);
+            scheduledAt = Long.MAX_VALUE;
+            if (pending.isEmpty() && statsDelta.isEmpty()) return;
+
+            WritableArray events = Arguments.createArray();
+            for (BlockRecord record : pending.values()) events.pushMap(record.toMap());
+
+            WritableMap deltas = Arguments.createMap();
+            for (Map.Entry<String, Integer> entry : statsDelta.entrySet()) {
+                deltas.putInt(entry.getKey(), entry.getValue());
+            }
+
+            payload = Arguments.createMap();
+            payload.putArray("events", events);
+            payload.putMap("statsDelta", deltas);
+            payload.putString("timestamp", String.valueOf(System.currentTimeMillis()));
+
+            records = pending.size();
+            pending.clear();
+            statsDelta.clear();
+            recordEmit(records);
+        }
+
+        try {
+            emitter.emit(BATCH_EVENT, payload);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Erro ao enviar lote para React Native", e);
+        }
+    }
+
+    synchronized void clear() {
+        handler.removeCallbacks(flush);
+        scheduledAt = Long.MAX_VALUE;
+        pending.clear();
+        statsDelta.clear();
+    }
+
+    /**
+     * CONFIGURAÇÃO VIA JSON
+     * {"bridgeBatching": {"flushIntervalMs": 500, "statsIntervalMs": 2000, "maxBatchSize": 10}}
+     */
+    synchronized void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject root = new JSONObject(configJson);
+            if (!root.has("bridgeBatching")) return;
+            JSONObject config = root.getJSONObject("bridgeBatching");
+
+            if (config.has("flushIntervalMs")) flushIntervalMs = config.getLong("flushIntervalMs");
+            if (config.has("statsIntervalMs")) statsIntervalMs = config.getLong("statsIntervalMs");
+            if (config.has("maxBatchSize")) maxBatchSize = Math.max(1, config.getInt("maxBatchSize"));
+
+            Log.d(TAG, "🔧 Lotes da bridge atualizados via JSON");
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Erro ao atualizar configuração da bridge", e);
+        }
+    }
+
+    synchronized Map<String, Object> getStats() {
+        trimRecentEmits(SystemClock.uptimeMillis());
+        int recentRecords = 0;
+        for (long[] emit : recentEmits) recentRecords += emit[1];
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("blocksReceived", blocksReceived);
+        stats.put("merged", merged);
+        stats.put("dropped", dropped);
+        stats.put("emits", emits);
+        stats.put("recordsDelivered", recordsDelivered);
+        stats.put("pendingRecords", pending.size());
+        stats.put("bridgeEmitsPerSecond", recentEmits.size() * 1000.0 / RATE_WINDOW_MS);
+        stats.put("recordsPerSecond", recentRecords * 1000.0 / RATE_WINDOW_MS);
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("maxBatchSize", maxBatchSize);
+        return stats;
+    }
+
+    /**
+     * Agendar o flush para daqui a delayMs, a não ser que já haja um mais cedo
+     */
+    private void schedule(long delayMs) {
+        long at = SystemClock.uptimeMillis() + delayMs;
+        if (at >= scheduledAt) return;
+        handler.removeCallbacks(flush);
+        handler.postAtTime(flush, at);
+        scheduledAt = at;
+    }
+
+    private void recordEmit(int records) {
+        long now = SystemClock.uptimeMillis();
+        emits++;
+        recordsDelivered += records;
+        recentEmits.addLast(new long[]{now, records});
+        trimRecentEmits(now);
+    }
+
+    private void trimRecentEmits(long now) {
+        while (!recentEmits.isEmpty() && now - recentEmits.peekFirst()[0] > RATE_WINDOW_MS) {
+            recentEmits.pollFirst();
+        }
+    }
+
+    /**
+     * Bloqueio pendente; bloqueios iguais no mesmo lote são somados
+     */
+    private static class BlockRecord {
+        final String appName;
+        final String triggerType;
+        final String riskLevel;
+        String triggerReason;
+        int confidence;
+        int toxicityScore;
+        long processingTime;
+        boolean partial;
+        long timestamp;
+        int count = 1;
+
+        BlockRecord(AIAnalysisResult analysis, String appName) {
+            this.appName = appName;
+            this.triggerType = analysis.triggerType;
+            this.riskLevel = analysis.riskLevel;
+            update(analysis);
+        }
+
+        void merge(AIAnalysisResult analysis) {
+            count++;
+            int previousConfidence = confidence;
+            int previousScore = toxicityScore;
+            update(analysis);
+            confidence = Math.max(confidence, previousConfidence);
+            toxicityScore = Math.max(toxicityScore, previousScore);
+        }
+
+        private void update(AIAnalysisResult analysis) {
+            triggerReason = analysis.triggerReason;
+            confidence = analysis.confidence;
+            toxicityScore = analysis.toxicityScore;
+            processingTime = analysis.processingTime;
+            partial = analysis.partial;
+            timestamp = System.currentTimeMillis();
+        }
+
+        WritableMap toMap() {
+            WritableMap params = Arguments.createMap();
+            params.putString("appName", appName);
+            params.putString("triggerReason", triggerReason);
+            params.putString("triggerType", triggerType);
+            params.putString("riskLevel", riskLevel);
+            params.putDouble("confidence", confidence);
+            params.putDouble("toxicityScore", toxicityScore);
+            params.putString("timestamp", String.valueOf(timestamp));
+            params.putDouble("processingTime", processingTime);
+            params.putBoolean("partial", partial);
+            params.putString("aiVersion", "PsychAI v4.0");
+            params.putInt("count", count);
+            return params;
+        }
+    }
+}
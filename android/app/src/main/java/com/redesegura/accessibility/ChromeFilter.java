@@ -0,0 +1,265 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Stop list da interface dos apps ("chrome"): texto que não é conteúdo do post
+ *
+ * Aplicada durante a extração, antes de o texto entrar no buffer:
+ * - Resource-IDs por app (barra de ações, contadores, selo de patrocinado): a
+ *   subárvore inteira é pulada
+ * - Rótulos exatos ("Curtir", "Reply", "Sponsored"), comparados sem diferenciar
+ *   maiúsculas e sem espaços nas pontas: só o texto do nó é pulado, os filhos seguem
+ * - Contadores ("1.234 curtidas", "12K") e horários ("2 h", "há 5 minutos"); um número
+ *   sozinho ("2024", "15") é conteúdo e fica
+ * - O selo de patrocinado ("Patrocinado", "Sponsored", "Ad") sai do texto, mas vira o
+ *   marcador SPONSORED_MARKER: o motor pontua posts patrocinados
+ *
+ * Só rótulos curtos (até MAX_LABEL_CHARS) são comparados, sem criar String por nó.
+ * Regras extras por app vêm do JSON "chromeFilter".
+ */
+class ChromeFilter {
+
+    private static final String TAG = "ChromeFilter";
+    private static final int MAX_LABEL_CHARS = 40;
+
+    // Única forma em que o selo de patrocinado chega ao motor
+    static final String SPONSORED_MARKER = "sponsored";
+
+    // Rótulos comuns a todos os apps (minúsculas) - VOCÊ PODE AJUSTAR
+    private static final List<String> COMMON_LABELS = Arrays.asList(
+        "curtir", "curtiu", "comentar", "compartilhar", "enviar", "salvar", "seguir", "seguindo",
+        "responder", "patrocinado", "publicidade", "ver tradução", "ver mais", "mais", "ocultar",
+        "denunciar", "repostar", "ontem", "agora",
+        "like", "liked", "comment", "share", "send", "save", "follow", "following", "reply",
+        "sponsored", "promoted", "ad", "see translation", "see more", "more", "hide", "report",
+        "repost", "retweet", "quote", "yesterday", "just now"
+    );
+
+    // Rótulos de patrocínio entre os comuns (minúsculas) - VOCÊ PODE AJUSTAR
+    private static final List<String> SPONSORED_LABELS = Arrays.asList(
+        "patrocinado", "publicidade", "sponsored", "promoted", "ad"
+    );
+
+    // Resource-IDs de chrome por app (nome da entrada, sem "pacote:id/") - VOCÊ PODE AJUSTAR
+    private static final Map<String, List<String>> DEFAULT_VIEW_IDS = new HashMap<String, List<String>>() {{
+        put("com.instagram.android", Arrays.asList(
+            "row_feed_view_group_buttons", "row_feed_button_like", "row_feed_button_comment",
+            "row_feed_button_share", "row_feed_button_save", "row_feed_textview_likes",
+            "row_feed_textview_comment_count", "secondary_label", "row_feed_photo_timestamp"
+        ));
+        put("com.twitter.android", Arrays.asList(
+            "inline_actions", "inline_reply", "inline_retweet", "inline_like", "inline_bookmark",
+            "tweet_promoted_badge", "tweet_social_proof"
+        ));
+        put("com.linkedin.android", Arrays.asList(
+            "feed_social_actions_bar", "feed_social_counts", "feed_item_update_actor_follow_button"
+        ));
+        put("com.pinterest", Arrays.asList(
+            "pin_action_bar", "reaction_count"
+        ));
+    }};
+
+    // Contadores e horários que formam o rótulo inteiro. O contador precisa de sufixo
+    // (mil, k...) ou de unidade (curtidas, views...): número sozinho não é chrome
+    private static final String COUNT_UNITS =
+        "(curtidas?|likes?|coment[aá]rios?|comments?|compartilhamentos?|" +
+        "shares?|seguidores|followers|visualiza[cç][oõ]es|views|respostas?|replies|reposts?|retweets?|" +
+        "rea[cç][oõ]es|reactions)";
+    private static final Pattern COUNT_PATTERN = Pattern.compile(
+        "[\\d.,]+\\s*((mil|mi|k|m)\\s*" + COUNT_UNITS + "?|" + COUNT_UNITS + ")",
+        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    private static final Pattern TIME_PATTERN = Pattern.compile(
+        "(h[aá]\\s+)?\\d+\\s*(s|seg|min|h|d|sem|w|a|y|segundos?|minutos?|horas?|dias?|semanas?|meses|anos?|" +
+        "seconds?|minutes?|hours?|days?|weeks?|months?|years?)(\\s+(atr[aá]s|ago))?",
+        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    /**
+     * Regras resolvidas de um app; lidas na lane de análise durante a extração
+     */
+    static final class Rules {
+        final Set<String> viewIds;          // IDs completos ("pacote:id/nome")
+        final List<String>[] labelsByLength; // Rótulos em minúsculas, indexados pelo tamanho
+
+        @SuppressWarnings("unchecked")
+        private Rules(Set<String> viewIds, Set<String> labels) {
+            this.viewIds = viewIds;
+            this.labelsByLength = new List[MAX_LABEL_CHARS + 1];
+            for (String label : labels) {
+                if (label.length() > MAX_LABEL_CHARS) continue;
+                if (labelsByLength[label.length()] == null) labelsByLength[label.length()] = new ArrayList<>();
+                labelsByLength[label.length()].add(label);
+            }
+        }
+    }
+
+    private volatile boolean enabled = true;
+    private final Map<String, List<String>> extraViewIds = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> extraLabels = new ConcurrentHashMap<>();
+    private final Map<String, Rules> rulesByApp = new ConcurrentHashMap<>();
+
+    // Estatísticas
+    private final AtomicLong subtreesSkipped = new AtomicLong();
+    private final AtomicLong labelsSkipped = new AtomicLong();
+    private final AtomicLong charsSkipped = new AtomicLong();
+
+    /**
+     * Regras do app, ou null com o filtro desligado
+     */
+    Rules rulesFor(String packageName) {
+        if (!enabled || packageName == null) return null;
+        Rules rules = rulesByApp.get(packageName);
+        if (rules == null) {
+            rules = buildRules(packageName);
+            rulesByApp.put(packageName, rules);
+        }
+        return rules;
+    }
+
+    /**
+     * Nó de chrome pelo resource-ID: a subárvore inteira fica fora da extração
+     */
+    boolean isChromeView(Rules rules, String viewId) {
+        if (rules == null || viewId == null || !rules.viewIds.contains(viewId)) return false;
+        subtreesSkipped.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Texto do nó é um rótulo de chrome, contador ou horário
+     */
+    boolean isChromeLabel(Rules rules, CharSequence text) {
+        if (rules == null) return false;
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        int length = end - start;
+        if (length == 0 || length > MAX_LABEL_CHARS) return false;
+
+        boolean chrome = matchesLabel(rules.labelsByLength[length], text, start);
+        if (!chrome && containsDigit(text, start, end)) {
+            CharSequence label = text.subSequence(start, end);
+            chrome = COUNT_PATTERN.matcher(label).matches() || TIME_PATTERN.matcher(label).matches();
+        }
+        if (chrome) {
+            labelsSkipped.incrementAndGet();
+            charsSkipped.addAndGet(length);
+        }
+        return chrome;
+    }
+
+    /**
+     * Rótulo de chrome que é o selo de patrocinado (chamado só para rótulos já filtrados)
+     */
+    boolean isSponsoredLabel(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+
+        for (String label : SPONSORED_LABELS) {
+            if (label.length() == end - start && matchesAt(label, text, start)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * CONFIGURAÇÃO VIA JSON
+     * {"chromeFilter": {"enabled": true, "apps": {"com.instagram.android":
+     *     {"viewIds": ["row_feed_button_like"], "labels": ["Curtir"]}}}}
+     */
+    void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject root = new JSONObject(configJson);
+            if (!root.has("chromeFilter")) return;
+            JSONObject config = root.getJSONObject("chromeFilter");
+
+            if (config.has("enabled")) enabled = config.getBoolean("enabled");
+            if (config.has("apps")) {
+                JSONObject apps = config.getJSONObject("apps");
+                Iterator<String> packages = apps.keys();
+                while (packages.hasNext()) {
+                    String packageName = packages.next();
+                    JSONObject app = apps.getJSONObject(packageName);
+                    if (app.has("viewIds")) extraViewIds.put(packageName, toList(app.getJSONArray("viewIds"), false));
+                    if (app.has("labels")) extraLabels.put(packageName, toList(app.getJSONArray("labels"), true));
+                }
+            }
+            rulesByApp.clear();
+
+            Log.d(TAG, "🔧 Stop list de chrome atualizada via JSON");
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Erro ao atualizar stop list de chrome", e);
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("chromeFilterEnabled", enabled);
+        stats.put("chromeSubtreesSkipped", subtreesSkipped.get());
+        stats.put("chromeLabelsSkipped", labelsSkipped.get());
+        stats.put("chromeCharsSkipped", charsSkipped.get());
+        return stats;
+    }
+
+    private Rules buildRules(String packageName) {
+        Set<String> viewIds = new HashSet<>();
+        List<String> names = new ArrayList<>(DEFAULT_VIEW_IDS.getOrDefault(packageName, new ArrayList<>()));
+        names.addAll(extraViewIds.getOrDefault(packageName, new ArrayList<>()));
+        for (String name : names) viewIds.add(packageName + ":id/" + name);
+
+        Set<String> labels = new HashSet<>(COMMON_LABELS);
+        labels.addAll(extraLabels.getOrDefault(packageName, new ArrayList<>()));
+        return new Rules(viewIds, labels);
+    }
+
+    private static boolean matchesLabel(List<String> candidates, CharSequence text, int start) {
+        if (candidates == null) return false;
+        for (String label : candidates) {
+            if (matchesAt(label, text, start)) return true;
+        }
+        return false;
+    }
+
+    private static boolean matchesAt(String label, CharSequence text, int start) {
+        int i = 0;
+        while (i < label.length() && Character.toLowerCase(text.charAt(start + i)) == label.charAt(i)) i++;
+        return i == label.length();
+    }
+
+    /**
+     * Contadores e horários sempre têm número; o resto nem passa pelas regex
+     */
+    private static boolean containsDigit(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isDigit(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    private static List<String> toList(JSONArray array, boolean lowerCase) throws Exception {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            String value = array.getString(i).trim();
+            list.add(lowerCase ? value.toLowerCase() : value);
+        }
+        return list;
+    }
+}
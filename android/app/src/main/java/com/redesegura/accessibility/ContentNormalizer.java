@@ -0,0 +1,107 @@
+package com.redesegura.accessibility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estágio de normalização do PsychAI
+ *
+ * Executado uma única vez por análise, antes de qualquer matching:
+ * - Converte o texto para minúsculas numa única passada sobre o CharSequence de entrada
+ *   (buffer da lane); o resultado é a única cópia usada por todos os estágios seguintes
+ * - Identifica o idioma para rotear o texto às partições de triggers corretas
+ * - Gera a forma canônica (sem leetspeak, confusables, invisíveis e letras espaçadas)
+ *   usada no matching de triggers
+ * - Segmenta hashtags compostas em palavras ("#vidaperfeitasempre")
+ */
+class ContentNormalizer {
+
+    // Idioma assumido quando o suporte multi-idioma está desligado
+    static final String DEFAULT_LANGUAGE = LanguageDetector.PORTUGUESE;
+
+    private final LanguageDetector languageDetector = new LanguageDetector();
+    private final TextBuffer lowerCaseBuffers = new TextBuffer();
+
+    // Custo da canonicalização, exposto nas estatísticas do motor (lanes em paralelo)
+    private final AtomicLong canonicalizationNanos = new AtomicLong();
+    private final AtomicLong canonicalizedChars = new AtomicLong();
+
+    /**
+     * @param segmenter segmentador de hashtags, ou null para não segmentar
+     */
+    NormalizedContent normalize(CharSequence text, boolean multiLanguageSupport, boolean canonicalize,
+                                HashtagSegmenter segmenter) {
+        String lowerText = toLowerCase(text);
+        String language = multiLanguageSupport ?
+                         languageDetector.detect(lowerText) : DEFAULT_LANGUAGE;
+
+        String canonicalText = lowerText;
+        if (canonicalize) {
+            long startNanos = System.nanoTime();
+            canonicalText = TextCanonicalizer.canonicalize(text);
+            canonicalizationNanos.addAndGet(System.nanoTime() - startNanos);
+            canonicalizedChars.addAndGet(text.length());
+        }
+
+        String segmentedHashtags = segmenter != null && canonicalText.indexOf('#') >= 0 ?
+                                   segmenter.segmentAll(canonicalText) : "";
+        return new NormalizedContent(text, lowerText, canonicalText, segmentedHashtags, language);
+    }
+
+    /**
+     * Minúsculas por caractere, independente do locale do aparelho
+     */
+    private String toLowerCase(CharSequence text) {
+        StringBuilder lower = lowerCaseBuffers.acquire();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                lower.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            } else {
+                lower.append(Character.toLowerCase(c));
+            }
+        }
+        return lower.toString();
+    }
+
+    double getCanonicalizationNanosPerChar() {
+        long chars = canonicalizedChars.get();
+        return chars > 0 ? (double) canonicalizationNanos.get() / chars : 0;
+    }
+
+    long getCanonicalizedChars() {
+        return canonicalizedChars.get();
+    }
+
+    void resetStats() {
+        canonicalizationNanos.set(0);
+        canonicalizedChars.set(0);
+    }
+
+    LanguageDetector getLanguageDetector() {
+        return languageDetector;
+    }
+}
+
+/**
+ * Resultado do estágio de normalização
+ */
+class NormalizedContent {
+    public final CharSequence originalText;  // View do buffer da lane: válida só durante a análise
+    public final String lowerText;
+    public final String canonicalText;
+    public final String segmentedHashtags;  // Palavras das hashtags compostas, "" se nenhuma
+    public final String language;
+
+    public NormalizedContent(CharSequence originalText, String lowerText, String canonicalText,
+                             String segmentedHashtags, String language) {
+        this.originalText = originalText;
+        this.lowerText = lowerText;
+        this.canonicalText = canonicalText;
+        this.segmentedHashtags = segmentedHashtags;
+        this.language = language;
+    }
+
+    public boolean isMixedLanguage() {
+        return LanguageDetector.MIXED.equals(language);
+    }
+}
@@ -0,0 +1,159 @@
+package com.redesegura.accessibility;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detector de conteúdo crítico (depressão/autolesão) - Fast Path
+ *
+ * Autômato Aho-Corasick compacto sobre os triggers das categorias críticas. Roda
+ * direto na thread de eventos de acessibilidade: uma única passada pelo texto,
+ * sem alocação, comparando caractere a caractere em minúsculas.
+ *
+ * Para evitar overlays provisórios em excesso, só aceita ocorrências em fronteira
+ * de palavra e ignora triggers de uma palavra muito curtos ("vazio", "alone"), que
+ * ficam a cargo da análise completa.
+ */
+class CriticalContentDetector {
+
+    private static final int MIN_SINGLE_WORD_LENGTH = 7;
+
+    // Transições de cada estado em arrays ordenados (busca binária)
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] dictionaryLink;
+    private final String[] terminalTrigger;
+    private final int patternCount;
+
+    private CriticalContentDetector(char[][] edgeChars, int[][] edgeTargets, int[] fail,
+                                    int[] dictionaryLink, String[] terminalTrigger, int patternCount) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.dictionaryLink = dictionaryLink;
+        this.terminalTrigger = terminalTrigger;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * CONSTRUIR AUTÔMATO a partir dos triggers das categorias críticas
+     */
+    static CriticalContentDetector build(Collection<String> triggers) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<String> terminals = new ArrayList<>();
+        children.add(new HashMap<>());
+        terminals.add(null);
+
+        int patternCount = 0;
+        for (String rawTrigger : triggers) {
+            String trigger = rawTrigger.toLowerCase().trim();
+            if (trigger.isEmpty()) continue;
+            if (trigger.indexOf(' ') < 0 && trigger.length() < MIN_SINGLE_WORD_LENGTH) continue;
+
+            int state = 0;
+            for (int i = 0; i < trigger.length(); i++) {
+                Integer next = children.get(state).get(trigger.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    terminals.add(null);
+                    children.get(state).put(trigger.charAt(i), next);
+                }
+                state = next;
+            }
+            if (terminals.get(state) == null) {
+                terminals.set(state, trigger);
+                patternCount++;
+            }
+        }
+
+        int stateCount = children.size();
+        char[][] edgeChars = new char[stateCount][];
+        int[][] edgeTargets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            Map<Character, Integer> edges = children.get(state);
+            char[] chars = new char[edges.size()];
+            int i = 0;
+            for (Character c : edges.keySet()) chars[i++] = c;
+            Arrays.sort(chars);
+
+            int[] targets = new int[chars.length];
+            for (i = 0; i < chars.length; i++) targets[i] = edges.get(chars[i]);
+            edgeChars[state] = chars;
+            edgeTargets[state] = targets;
+        }
+
+        // Links de falha e de dicionário em BFS
+        int[] fail = new int[stateCount];
+        int[] dictionaryLink = new int[stateCount];
+        String[] terminalTrigger = terminals.toArray(new String[0]);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) queue.add(target);
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+
+                int f = fail[state];
+                int next;
+                while ((next = edge(edgeChars, edgeTargets, f, c)) < 0 && f != 0) f = fail[f];
+                fail[child] = next >= 0 && next != child ? next : 0;
+                dictionaryLink[child] = terminalTrigger[fail[child]] != null ?
+                                       fail[child] : dictionaryLink[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        return new CriticalContentDetector(edgeChars, edgeTargets, fail, dictionaryLink,
+                                           terminalTrigger, patternCount);
+    }
+
+    /**
+     * PRIMEIRO TRIGGER CRÍTICO ENCONTRADO no texto, ou null
+     */
+    String findFirst(CharSequence text) {
+        if (text == null || patternCount == 0) return null;
+
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+
+            int next;
+            while ((next = edge(edgeChars, edgeTargets, state, c)) < 0 && state != 0) state = fail[state];
+            state = next >= 0 ? next : 0;
+
+            int match = terminalTrigger[state] != null ? state : dictionaryLink[state];
+            while (match > 0) {
+                String trigger = terminalTrigger[match];
+                int start = i - trigger.length() + 1;
+                if (isWordBoundary(text, start - 1) && isWordBoundary(text, i + 1)) {
+                    return trigger;
+                }
+                match = dictionaryLink[match];
+            }
+        }
+        return null;
+    }
+
+    int getPatternCount() {
+        return patternCount;
+    }
+
+    private static boolean isWordBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private static int edge(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index >= 0 ? edgeTargets[state][index] : -1;
+    }
+}
@@ -0,0 +1,227 @@
+package com.redesegura.accessibility;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.accessibility.AccessibilityEvent;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Coalescência de eventos de acessibilidade por janela/app
+ *
+ * Substitui o descarte global de 500ms: cada janela (windowId + pacote) mantém apenas
+ * o evento mais recente pendente (latest-wins) e sempre o processa na borda final,
+ * depois de um período de silêncio que depende do tipo de evento. Assim o estado final
+ * de um fling é sempre analisado. Para scroll contínuo, MAX_WAIT garante que a janela
+ * seja analisada periodicamente mesmo sem silêncio.
+ *
+ * Sob backpressure do pipeline de análise, os períodos de silêncio e o MAX_WAIT do
+ * app são esticados: menos eventos chegam a uma fila que já está atrasada. O
+ * controlador adaptativo aplica ainda uma escala contínua (rateScale) a todos os apps.
+ *
+ * Roda inteiramente na thread do Handler (a mesma que entrega os eventos), então o
+ * estado não precisa de sincronização.
+ */
+class EventCoalescer {
+
+    private static final String TAG = "EventCoalescer";
+    private static final int MAX_PENDING_WINDOWS = 16;
+    private static final int BACKPRESSURE_STRETCH = 3;
+
+    /**
+     * Destino dos eventos que sobreviveram à coalescência.
+     * O evento é uma cópia própria: quem recebe deve chamar recycle()
+     * receivedAtNanos é o instante (System.nanoTime) do primeiro evento da rajada
+     */
+    interface Sink {
+        void onCoalescedEvent(AccessibilityEvent event, String packageName, long receivedAtNanos);
+    }
+
+    /**
+     * Sinal de backpressure do consumidor, consultado a cada evento
+     */
+    interface BackpressureSignal {
+        boolean isBackpressured(int windowId, String packageName);
+    }
+
+    // Períodos de silêncio por tipo de evento (ms) - VOCÊ PODE AJUSTAR
+    private final Map<Integer, Long> quietPeriodsMs = new HashMap<Integer, Long>() {{
+        put(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED, 300L);
+        put(AccessibilityEvent.TYPE_VIEW_SCROLLED, 250L);
+        put(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED, 50L);
+        put(AccessibilityEvent.TYPE_VIEW_TEXT_CHANGED, 400L);
+    }};
+    private long defaultQuietPeriodMs = 300;
+    private long maxWaitMs = 1000;
+    private double rateScale = 1.0;
+
+    private final Handler handler;
+    private final Sink sink;
+    private final BackpressureSignal backpressure;
+    private final Map<String, PendingEvent> pending = new LinkedHashMap<>();
+
+    // Estatísticas
+    private int received = 0;
+    private int merged = 0;
+    private int dropped = 0;
+    private int dispatched = 0;
+    private int backpressureStretches = 0;
+
+    EventCoalescer(Handler handler, Sink sink, BackpressureSignal backpressure) {
+        this.handler = handler;
+        this.sink = sink;
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * RECEBER EVENTO - substitui o pendente da mesma janela e reagenda a borda final
+     */
+    void submit(AccessibilityEvent event, String packageName) {
+        received++;
+        String key = event.getWindowId() + ":" + packageName;
+        long now = SystemClock.uptimeMillis();
+
+        PendingEvent entry = pending.get(key);
+        if (entry != null) {
+            entry.event.recycle();
+            merged++;
+        } else {
+            if (pending.size() >= MAX_PENDING_WINDOWS) evictOldest();
+            entry = new PendingEvent(key, packageName, now, System.nanoTime());
+            pending.put(key, entry);
+        }
+        entry.event = AccessibilityEvent.obtain(event);
+
+        long quietPeriod = (long) (quietPeriodsMs.getOrDefault(event.getEventType(), defaultQuietPeriodMs) * rateScale);
+        long maxWait = (long) (maxWaitMs * rateScale);
+        if (backpressure.isBackpressured(event.getWindowId(), packageName)) {
+            quietPeriod *= BACKPRESSURE_STRETCH;
+            maxWait *= BACKPRESSURE_STRETCH;
+            backpressureStretches++;
+        }
+        long flushAt = Math.min(now + quietPeriod, entry.firstSeenAt + maxWait);
+
+        handler.removeCallbacks(entry.flush);
+        handler.postAtTime(entry.flush, flushAt);
+    }
+
+    /**
+     * Processar imediatamente o pendente da janela (ex.: hit do fast path crítico)
+     */
+    void flushNow(AccessibilityEvent event, String packageName) {
+        PendingEvent entry = pending.get(event.getWindowId() + ":" + packageName);
+        if (entry != null) {
+            handler.removeCallbacks(entry.flush);
+            flush(entry);
+        }
+    }
+
+    /**
+     * ESCALA DA TAXA DE ANÁLISE (>= 1 espaça as análises) - do controlador adaptativo
+     */
+    void setRateScale(double scale) {
+        rateScale = Math.max(1.0, scale);
+    }
+
+    /**
+     * Descartar tudo que está pendente (proteção desativada / serviço destruído)
+     */
+    void clear() {
+        for (PendingEvent entry : pending.values()) {
+            handler.removeCallbacks(entry.flush);
+            entry.event.recycle();
+            dropped++;
+        }
+        pending.clear();
+    }
+
+    private void flush(PendingEvent entry) {
+        if (pending.remove(entry.key) == null) return;
+        dispatched++;
+        sink.onCoalescedEvent(entry.event, entry.packageName, entry.receivedAtNanos);
+    }
+
+    private void evictOldest() {
+        Iterator<PendingEvent> iterator = pending.values().iterator();
+        PendingEvent oldest = iterator.next();
+        iterator.remove();
+        handler.removeCallbacks(oldest.flush);
+        oldest.event.recycle();
+        dropped++;
+        Log.w(TAG, String.format("⚠️ Janela pendente descartada: %s", oldest.key));
+    }
+
+    /**
+     * CONFIGURAÇÃO VIA JSON
+     * {"eventCoalescing": {"contentChangedQuietMs": 300, "scrolledQuietMs": 250,
+     *                      "windowStateQuietMs": 50, "textChangedQuietMs": 400, "maxWaitMs": 1000}}
+     */
+    void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject root = new JSONObject(configJson);
+            if (!root.has("eventCoalescing")) return;
+            JSONObject config = root.getJSONObject("eventCoalescing");
+
+            if (config.has("contentChangedQuietMs")) {
+                quietPeriodsMs.put(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED, config.getLong("contentChangedQuietMs"));
+            }
+            if (config.has("scrolledQuietMs")) {
+                quietPeriodsMs.put(AccessibilityEvent.TYPE_VIEW_SCROLLED, config.getLong("scrolledQuietMs"));
+            }
+            if (config.has("windowStateQuietMs")) {
+                quietPeriodsMs.put(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED, config.getLong("windowStateQuietMs"));
+            }
+            if (config.has("textChangedQuietMs")) {
+                quietPeriodsMs.put(AccessibilityEvent.TYPE_VIEW_TEXT_CHANGED, config.getLong("textChangedQuietMs"));
+            }
+            if (config.has("defaultQuietMs")) {
+                defaultQuietPeriodMs = config.getLong("defaultQuietMs");
+            }
+            if (config.has("maxWaitMs")) {
+                maxWaitMs = config.getLong("maxWaitMs");
+            }
+
+            Log.d(TAG, "🔧 Coalescência de eventos atualizada via JSON");
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Erro ao atualizar configuração de coalescência", e);
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("received", received);
+        stats.put("merged", merged);
+        stats.put("dropped", dropped);
+        stats.put("dispatched", dispatched);
+        stats.put("pendingWindows", pending.size());
+        stats.put("backpressureStretches", backpressureStretches);
+        stats.put("rateScale", rateScale);
+        stats.put("mergeRate", received > 0 ? merged * 100.0 / received : 0);
+        return stats;
+    }
+
+    /**
+     * Evento pendente de uma janela
+     */
+    private class PendingEvent {
+        final String key;
+        final String packageName;
+        final long firstSeenAt;
+        final long receivedAtNanos;
+        final Runnable flush = () -> flush(this);
+        AccessibilityEvent event;
+
+        PendingEvent(String key, String packageName, long firstSeenAt, long receivedAtNanos) {
+            this.key = key;
+            this.packageName = packageName;
+            this.firstSeenAt = firstSeenAt;
+            this.receivedAtNanos = receivedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diário local de eventos em arquivo mapeado em memória (ring de registros fixos)
+ *
+ * Bloqueios, revelações, pulos, remoções automáticas e contagens de análises viram
+ * registros binários de 32 bytes num ring de CAPACITY slots. Nada sai do aparelho e
+ * não há banco de dados: o dashboard consulta intervalos de tempo direto no arquivo.
+ *
+ * Escrita sem locks: cada escritor reserva uma sequência (AtomicLong) e escreve só o
+ * seu slot; a sequência é gravada por último e o checksum cobre o registro inteiro.
+ * Depois de um crash, a abertura varre o ring, ignora registros rasgados e continua da
+ * maior sequência válida. As páginas mapeadas são do kernel, então sobrevivem à morte
+ * do processo; force() só é chamado ao fechar.
+ *
+ * Layout do registro: seq(8) timestamp(8) tipo(1) app(1) risco(1) confiança(1)
+ * valor(4) checksum(4) categoria(1) reservado(3)
+ */
+class EventJournal {
+
+    private static final String TAG = "EventJournal";
+    private static final String FILE_NAME = "redesegura_journal.bin";
+
+    static final byte BLOCK = 1;
+    static final byte REVEAL = 2;
+    static final byte SKIP = 3;
+    static final byte AUTO_REMOVED = 4;
+    static final byte ANALYSES = 5;       // valor = nº de análises agregadas
+    private static final String[] TYPE_NAMES = {"", "blocks", "reveals", "skips", "autoRemoved", "analyses"};
+    private static final String[] RISK_LEVELS = {"", "Baixo", "Médio", "Alto", "Crítico"};
+
+    private static final int MAGIC = 0x52534A31; // "RSJ1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int CAPACITY = 4096;
+    private static final int OTHER_APP = 0xFF;
+    private static final int OTHER_CATEGORY = 0xFE;
+    private static final int NO_CATEGORY = 0xFF;
+    private static final int ANALYSES_PER_RECORD = 25;
+
+    private final List<String> knownApps;
+    private final List<String> knownCategories;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private final AtomicIntegerArray pendingAnalyses;
+    private MappedByteBuffer buffer;
+    private FileChannel channel;
+    private int recoveredRecords = 0;
+    private int tornRecords = 0;
+
+    /**
+     * Registro decodificado
+     */
+    static class JournalRecord {
+        final long sequence;
+        final long timestamp;
+        final byte type;
+        final String appName;
+        final String category;
+        final String riskLevel;
+        final int confidence;
+        final int value;
+
+        JournalRecord(long sequence, long timestamp, byte type, String appName, String category,
+                      String riskLevel, int confidence, int value) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.appName = appName;
+            this.category = category;
+            this.riskLevel = riskLevel;
+            this.confidence = confidence;
+            this.value = value;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("type", TYPE_NAMES[type]);
+            map.put("timestamp", timestamp);
+            map.put("appName", appName);
+            if (category != null) map.put("category", category);
+            map.put("riskLevel", riskLevel);
+            map.put("confidence", confidence);
+            map.put("value", value);
+            return map;
+        }
+    }
+
+    /**
+     * @param knownApps apps codificados em 1 byte (posição na lista); os demais viram "other"
+     * @param knownCategories triggerTypes codificados do mesmo jeito
+     */
+    EventJournal(File directory, List<String> knownApps, List<String> knownCategories) {
+        this.knownApps = knownApps;
+        this.knownCategories = knownCategories;
+        this.pendingAnalyses = new AtomicIntegerArray(knownApps.size() + 1);
+        try {
+            open(new File(directory, FILE_NAME));
+            Log.d(TAG, String.format("📓 Diário aberto: %d registros recuperados, %d rasgados",
+                recoveredRecords, tornRecords));
+        } catch (IOException e) {
+            buffer = null;
+            Log.e(TAG, "❌ Erro ao abrir diário - eventos não serão persistidos", e);
+        }
+    }
+
+    /**
+     * BLOQUEIO aplicado
+     */
+    void recordBlock(String appName, AIAnalysisResult analysis) {
+        append(BLOCK, appName, categoryCode(analysis.triggerType), riskCode(analysis.riskLevel),
+            analysis.confidence, analysis.toxicityScore);
+    }
+
+    /**
+     * INTERAÇÃO com o overlay (ação do OverlayManager)
+     */
+    void recordInteraction(String action, String context, String appName) {
+        switch (action) {
+            case "content_revealed": append(REVEAL, appName, NO_CATEGORY, 0, 0, 0); break;
+            case "content_skipped": append(SKIP, appName, NO_CATEGORY, 0, 0, 0); break;
+            case "auto_removed": append(AUTO_REMOVED, appName, NO_CATEGORY, riskCode(context), 0, 0); break;
+            default: break;
+        }
+    }
+
+    /**
+     * ANÁLISE - agregada em um registro a cada ANALYSES_PER_RECORD por app
+     */
+    void recordAnalysis(String appName) {
+        int app = appCode(appName);
+        int slot = app == OTHER_APP ? knownApps.size() : app;
+        if (pendingAnalyses.incrementAndGet(slot) % ANALYSES_PER_RECORD == 0) {
+            pendingAnalyses.addAndGet(slot, -ANALYSES_PER_RECORD);
+            append(ANALYSES, appName, NO_CATEGORY, 0, 0, ANALYSES_PER_RECORD);
+        }
+    }
+
+    /**
+     * CONSULTA POR INTERVALO DE TEMPO [fromMs, toMs], em ordem de sequência
+     */
+    List<JournalRecord> query(long fromMs, long toMs) {
+        List<JournalRecord> records = new ArrayList<>();
+        if (buffer == null) return records;
+
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            JournalRecord record = read(slot);
+            if (record != null && record.timestamp >= fromMs && record.timestamp <= toMs) records.add(record);
+        }
+        records.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+        return records;
+    }
+
+    /**
+     * Totais por tipo e por app num intervalo
+     */
+    Map<String, Object> summarize(long fromMs, long toMs) {
+        Map<String, Object> summary = new HashMap<>();
+        int[] totals = new int[TYPE_NAMES.length];
+        Map<String, Integer> blocksByApp = new HashMap<>();
+
+        for (JournalRecord record : query(fromMs, toMs)) {
+            totals[record.type] += record.type == ANALYSES ? record.value : 1;
+            if (record.type == BLOCK) blocksByApp.merge(record.appName, 1, Integer::sum);
+        }
+        for (int type = BLOCK; type < TYPE_NAMES.length; type++) summary.put(TYPE_NAMES[type], totals[type]);
+        summary.put("blocksByApp", blocksByApp);
+        summary.put("fromMs", fromMs);
+        summary.put("toMs", toMs);
+        return summary;
+    }
+
+    /**
+     * Gravar contagens pendentes e forçar as páginas para o disco (ao parar a proteção)
+     */
+    void flush() {
+        MappedByteBuffer target = buffer;
+        if (target == null) return;
+        for (int slot = 0; slot < pendingAnalyses.length(); slot++) {
+            int pending = pendingAnalyses.getAndSet(slot, 0);
+            if (pending > 0) {
+                append(ANALYSES, slot < knownApps.size() ? knownApps.get(slot) : "other", NO_CATEGORY, 0, 0, pending);
+            }
+        }
+        target.force();
+    }
+
+    void close() {
+        if (buffer == null) return;
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Erro ao fechar diário", e);
+        }
+        buffer = null;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("open", buffer != null);
+        stats.put("capacity", CAPACITY);
+        stats.put("written", nextSequence.get() - 1);
+        stats.put("recoveredRecords", recoveredRecords);
+        stats.put("tornRecords", tornRecords);
+        return stats;
+    }
+
+    private void open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long size = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+        boolean fresh = raf.length() != size;
+        if (fresh) raf.setLength(size);
+
+        channel = raf.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ||
+                buffer.getInt(8) != RECORD_SIZE || buffer.getInt(12) != CAPACITY) {
+            // Arquivo novo ou de outro formato: zerar
+            for (int i = 0; i < size; i += 8) buffer.putLong(i, 0);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, CAPACITY);
+            return;
+        }
+
+        // Recuperação: continuar da maior sequência válida
+        long maxSequence = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            int offset = offset(slot);
+            if (buffer.getLong(offset) == 0) continue;
+            JournalRecord record = read(slot);
+            if (record == null) {
+                tornRecords++;
+                continue;
+            }
+            recoveredRecords++;
+            maxSequence = Math.max(maxSequence, record.sequence);
+        }
+        nextSequence.set(maxSequence + 1);
+    }
+
+    private void append(byte type, String appName, int category, int risk, int confidence, int value) {
+        MappedByteBuffer target = buffer;
+        if (target == null) return;
+
+        long sequence = nextSequence.getAndIncrement();
+        int offset = offset((int) (sequence % CAPACITY));
+        long timestamp = System.currentTimeMillis();
+        int app = appCode(appName);
+
+        // Puts absolutos: cada escritor só toca o próprio slot
+        target.putLong(offset, 0); // rasgado até a sequência ser gravada
+        target.putLong(offset + 8, timestamp);
+        target.put(offset + 16, type);
+        target.put(offset + 17, (byte) app);
+        target.put(offset + 18, (byte) risk);
+        target.put(offset + 19, (byte) Math.max(0, Math.min(100, confidence)));
+        target.putInt(offset + 20, value);
+        target.putInt(offset + 24, checksum(sequence, timestamp, type, app, risk, confidence, value, category));
+        target.put(offset + 28, (byte) category);
+        target.putLong(offset, sequence);
+    }
+
+    /**
+     * Ler um slot; null se vazio, rasgado ou sobrescrito durante a leitura
+     */
+    private JournalRecord read(int slot) {
+        int offset = offset(slot);
+        long sequence = buffer.getLong(offset);
+        if (sequence <= 0 || sequence % CAPACITY != slot) return null;
+
+        long timestamp = buffer.getLong(offset + 8);
+        byte type = buffer.get(offset + 16);
+        int app = buffer.get(offset + 17) & 0xFF;
+        int risk = buffer.get(offset + 18);
+        int confidence = buffer.get(offset + 19);
+        int value = buffer.getInt(offset + 20);
+        int checksum = buffer.getInt(offset + 24);
+        int category = buffer.get(offset + 28) & 0xFF;
+
+        if (buffer.getLong(offset) != sequence) return null;
+        if (checksum != checksum(sequence, timestamp, type, app, risk, confidence, value, category)) return null;
+        if (type < BLOCK || type >= TYPE_NAMES.length || risk < 0 || risk >= RISK_LEVELS.length) return null;
+
+        String appName = app < knownApps.size() ? knownApps.get(app) : "other";
+        String categoryName = category < knownCategories.size() ? knownCategories.get(category) :
+            category == OTHER_CATEGORY ? "other" : null;
+        return new JournalRecord(sequence, timestamp, type, appName, categoryName, RISK_LEVELS[risk],
+            confidence, value);
+    }
+
+    private int appCode(String appName) {
+        int index = knownApps.indexOf(appName);
+        return index >= 0 && index < OTHER_APP ? index : OTHER_APP;
+    }
+
+    private int categoryCode(String category) {
+        int index = knownCategories.indexOf(category);
+        return index >= 0 && index < OTHER_CATEGORY ? index : OTHER_CATEGORY;
+    }
+
+    private static int riskCode(String riskLevel) {
+        int index = Arrays.asList(RISK_LEVELS).indexOf(riskLevel);
+        return Math.max(0, index);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static int checksum(long sequence, long timestamp, byte type, int app, int risk,
+                                int confidence, int value, int category) {
+        long h = sequence * 0x9E3779B97F4A7C15L;
+        h = (h ^ timestamp) * 0xff51afd7ed558ccdL;
+        h = (h ^ (type | (app << 8) | (risk << 16) | ((long) confidence << 24))) * 0xc4ceb9fe1a85ec53L;
+        h = (h ^ (value & 0xFFFFFFFFL | ((long) category << 32))) * 0xff51afd7ed558ccdL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,141 @@
+package com.redesegura.accessibility;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contabilidade de exposição da sessão por categoria e por app
+ *
+ * Janela deslizante de 5 minutos em buckets de 10 segundos (ring buffer), com
+ * memória constante: [app][categoria][bucket]. Cada veredito registra as categorias
+ * presentes no post; o motor consulta a exposição recente para reduzir o limiar de
+ * bloqueio quando o usuário está sendo bombardeado por uma mesma categoria.
+ */
+class ExposureTracker {
+
+    static final String[] CATEGORIES = {"comparison", "anxiety", "depression", "bodyImage", "materialism"};
+
+    private static final long BUCKET_MS = 10_000;
+    private static final int BUCKETS = 30;           // 30 x 10s = janela de 5 minutos
+    private static final int MAX_APPS = 12;          // Slots atribuídos na primeira aparição
+    private static final String OTHER_APP = "other";
+
+    // Política de ajuste do limiar - VOCÊ PODE AJUSTAR
+    private static final int EXPOSURE_SPIKE = 8;     // Posts da categoria na janela para começar a reduzir
+    private static final int BASE_REDUCTION = 4;
+    private static final int MAX_REDUCTION = 12;
+
+    private final String[] appSlots = new String[MAX_APPS + 1];
+    private final int[][][] counts = new int[MAX_APPS + 1][CATEGORIES.length][BUCKETS];
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private int usedAppSlots = 0;
+
+    ExposureTracker() {
+        appSlots[MAX_APPS] = OTHER_APP;
+        for (int i = 0; i < BUCKETS; i++) bucketEpochs[i] = -1;
+    }
+
+    /**
+     * REGISTRAR VEREDITO - levels segue a ordem de CATEGORIES; nível > 0 conta como exposição
+     */
+    synchronized void record(String appPackage, int[] levels, long nowMs) {
+        int slot = advanceTo(nowMs);
+        int app = appIndex(appPackage);
+        for (int category = 0; category < CATEGORIES.length && category < levels.length; category++) {
+            if (levels[category] > 0) counts[app][category][slot]++;
+        }
+    }
+
+    /**
+     * Exposição recente a uma categoria somando todos os apps
+     */
+    synchronized int countInWindow(int category, long nowMs) {
+        int total = 0;
+        for (int app = 0; app < counts.length; app++) {
+            total += sumWindow(counts[app][category], nowMs);
+        }
+        return total;
+    }
+
+    /**
+     * REDUÇÃO DO LIMIAR para as categorias presentes no post atual
+     */
+    synchronized int thresholdReduction(int[] levels, long nowMs) {
+        int reduction = 0;
+        for (int category = 0; category < CATEGORIES.length && category < levels.length; category++) {
+            if (levels[category] <= 0) continue;
+
+            int recent = countInWindow(category, nowMs);
+            if (recent >= EXPOSURE_SPIKE) {
+                int categoryReduction = BASE_REDUCTION + (recent - EXPOSURE_SPIKE) / 2;
+                reduction = Math.max(reduction, Math.min(MAX_REDUCTION, categoryReduction));
+            }
+        }
+        return reduction;
+    }
+
+    /**
+     * SNAPSHOT PARA O DASHBOARD: {app: {categoria: posts na janela}}
+     */
+    synchronized Map<String, Object> snapshot(long nowMs) {
+        Map<String, Object> byApp = new HashMap<>();
+        for (int app = 0; app < appSlots.length; app++) {
+            if (appSlots[app] == null) continue;
+
+            Map<String, Integer> byCategory = new HashMap<>();
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                int count = sumWindow(counts[app][category], nowMs);
+                if (count > 0) byCategory.put(CATEGORIES[category], count);
+            }
+            if (!byCategory.isEmpty()) byApp.put(appSlots[app], byCategory);
+        }
+        return byApp;
+    }
+
+    synchronized void reset() {
+        for (int[][] app : counts) {
+            for (int[] category : app) {
+                Arrays.fill(category, 0);
+            }
+        }
+        Arrays.fill(bucketEpochs, -1);
+    }
+
+    private int advanceTo(long nowMs) {
+        long epoch = nowMs / BUCKET_MS;
+        int slot = (int) (epoch % BUCKETS);
+        if (bucketEpochs[slot] != epoch) {
+            // Bucket reaproveitado: zera o conteúdo antigo de todos os apps/categorias
+            for (int[][] app : counts) {
+                for (int[] category : app) {
+                    category[slot] = 0;
+                }
+            }
+            bucketEpochs[slot] = epoch;
+        }
+        return slot;
+    }
+
+    private int sumWindow(int[] buckets, long nowMs) {
+        long nowEpoch = nowMs / BUCKET_MS;
+        int total = 0;
+        for (int slot = 0; slot < BUCKETS; slot++) {
+            long age = nowEpoch - bucketEpochs[slot];
+            if (bucketEpochs[slot] >= 0 && age >= 0 && age < BUCKETS) total += buckets[slot];
+        }
+        return total;
+    }
+
+    private int appIndex(String appPackage) {
+        if (appPackage == null) return MAX_APPS;
+        for (int i = 0; i < usedAppSlots; i++) {
+            if (appPackage.equals(appSlots[i])) return i;
+        }
+        if (usedAppSlots < MAX_APPS) {
+            appSlots[usedAppSlots] = appPackage;
+            return usedAppSlots++;
+        }
+        return MAX_APPS;
+    }
+}
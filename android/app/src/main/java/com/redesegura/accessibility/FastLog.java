@@ -0,0 +1,147 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+
+import com.redesegura.BuildConfig;
+
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log de baixo custo para o caminho quente (análise, overlays)
+ *
+ * - Portão de compilação: chamadas escritas como {@code if (FastLog.D) FastLog.d(...)}
+ *   somem do bytecode de release, junto com o boxing e o array de argumentos
+ * - Portão de execução: nível mínimo ajustável (JSON "logging")
+ * - Formatação adiada: formato e argumentos vão para um ring buffer de arrays
+ *   paralelos; String.format só roda no dump (ou no eco para o logcat, se ligado)
+ *
+ * Use precisão no formato para limitar texto longo ("%.100s") em vez de substring.
+ * Escritores concorrentes não usam locks: cada um reserva um slot no ring; o dump
+ * descarta slots sobrescritos durante a leitura.
+ */
+public final class FastLog {
+
+    public static final boolean D = BuildConfig.DEBUG;
+
+    private static final int CAPACITY = 512;
+
+    private static volatile int minLevel = D ? Log.DEBUG : Log.INFO;
+    private static volatile boolean logcatEcho = D;
+
+    // Ring buffer
+    private static final AtomicLong cursor = new AtomicLong();
+    private static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] levels = new int[CAPACITY];
+    private static final String[] tags = new String[CAPACITY];
+    private static final String[] formats = new String[CAPACITY];
+    private static final Object[][] arguments = new Object[CAPACITY][];
+
+    private FastLog() {}
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    /**
+     * DEBUG - chamar sob {@code if (FastLog.D)}
+     */
+    public static void d(String tag, String format, Object... args) {
+        if (Log.DEBUG >= minLevel) record(Log.DEBUG, tag, format, args);
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        if (Log.INFO >= minLevel) record(Log.INFO, tag, format, args);
+    }
+
+    private static void record(int level, String tag, String format, Object[] args) {
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence % CAPACITY);
+
+        stamps.set(slot, -1); // em escrita
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = level;
+        tags[slot] = tag;
+        formats[slot] = format;
+        arguments[slot] = args;
+        stamps.set(slot, sequence + 1);
+
+        if (logcatEcho) Log.println(level, tag, format(format, args));
+    }
+
+    /**
+     * DUMP - decodifica as entradas mais recentes (mais antiga primeiro)
+     */
+    public static List<String> dump(int maxEntries) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(maxEntries, CAPACITY));
+        SimpleDateFormat clock = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+
+        List<String> lines = new ArrayList<>();
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) (sequence % CAPACITY);
+            if (stamps.get(slot) != sequence + 1) continue;
+
+            long time = times[slot];
+            int level = levels[slot];
+            String tag = tags[slot];
+            String format = formats[slot];
+            Object[] args = arguments[slot];
+
+            // Sobrescrito enquanto lia
+            if (stamps.get(slot) != sequence + 1) continue;
+
+            lines.add(String.format(Locale.US, "%s %s/%s: %s",
+                clock.format(new Date(time)), level == Log.DEBUG ? "D" : "I", tag, format(format, args)));
+        }
+        return lines;
+    }
+
+    public static void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            stamps.set(i, 0);
+            arguments[i] = null;
+        }
+    }
+
+    /**
+     * CONFIGURAÇÃO VIA JSON
+     * {"logging": {"level": "debug" | "info" | "off", "logcat": true}}
+     */
+    public static void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject root = new JSONObject(configJson);
+            if (!root.has("logging")) return;
+            JSONObject config = root.getJSONObject("logging");
+
+            if (config.has("level")) {
+                switch (config.getString("level")) {
+                    case "debug": minLevel = Log.DEBUG; break;
+                    case "info": minLevel = Log.INFO; break;
+                    default: minLevel = Integer.MAX_VALUE; break;
+                }
+            }
+            if (config.has("logcat")) {
+                logcatEcho = config.getBoolean("logcat");
+            }
+        } catch (Exception e) {
+            Log.e("FastLog", "❌ Erro ao atualizar configuração de log", e);
+        }
+    }
+
+    private static String format(String format, Object[] args) {
+        try {
+            return args == null || args.length == 0 ? format : String.format(format, args);
+        } catch (Exception e) {
+            return format;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.redesegura.accessibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segmentação de hashtags compostas
+ *
+ * "#myperfectbodyjourney" -> "my perfect body journey"
+ * "#vidaperfeitasempre"   -> "vida perfeita sempre"
+ *
+ * Word break por programação dinâmica sobre uma trie compacta do vocabulário dos
+ * triggers (mais palavras de ligação comuns). A DP minimiza o custo total: cada
+ * palavra conhecida custa 1 e cada caractere desconhecido custa UNKNOWN_CHAR_COST,
+ * então palavras longas vencem fragmentos. As palavras resultantes alimentam o
+ * matcher normal de triggers.
+ *
+ * Hashtags populares se repetem muito no feed: o resultado de cada tag fica num
+ * cache LRU limitado, inclusive quando a tag não tem segmentação útil.
+ */
+class HashtagSegmenter {
+
+    private static final int WORD_COST = 1;
+    private static final int UNKNOWN_CHAR_COST = 2;
+    private static final int MAX_TAG_LENGTH = 48;
+    private static final int MIN_TAG_LENGTH = 6;
+    private static final int MEMO_CAPACITY = 512;
+    private static final String TAG_SEPARATOR = " | ";
+
+    // Palavras de ligação que aparecem nas tags mas não nos triggers
+    private static final List<String> GLUE_WORDS = Arrays.asList(
+        "my", "the", "to", "of", "and", "me", "is", "so", "new", "life", "day", "journey",
+        "goals", "vibes", "only", "always", "best", "ever", "time", "love", "with", "in",
+        "on", "for", "all", "no", "self", "your", "you", "get", "big", "real",
+        "minha", "meu", "vida", "sempre", "de", "do", "da", "com", "para", "sem", "mais",
+        "muito", "hoje", "nova", "novo", "meta", "jornada", "dia", "eu", "nunca", "tudo"
+    );
+
+    // Trie compacta: transições de cada nó em arrays ordenados (busca binária)
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final boolean[] terminal;
+    private final int vocabularySize;
+
+    private final Map<String, String> memo = new LinkedHashMap<String, String>(MEMO_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MEMO_CAPACITY;
+        }
+    };
+    private int segmentations = 0;
+    private int memoHits = 0;
+
+    private HashtagSegmenter(char[][] edgeChars, int[][] edgeTargets, boolean[] terminal, int vocabularySize) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.terminal = terminal;
+        this.vocabularySize = vocabularySize;
+    }
+
+    /**
+     * CONSTRUIR VOCABULÁRIO a partir das palavras de todos os triggers
+     */
+    static HashtagSegmenter build(Collection<String> triggers) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Boolean> terminals = new ArrayList<>();
+        children.add(new HashMap<>());
+        terminals.add(false);
+
+        List<String> words = new ArrayList<>(GLUE_WORDS);
+        for (String trigger : triggers) {
+            for (String word : trigger.toLowerCase().split("[^\\p{L}]+")) {
+                if (word.isEmpty()) continue;
+                words.add(word);
+                words.add(TextCanonicalizer.canonicalize(word));
+            }
+        }
+
+        int vocabularySize = 0;
+        for (String word : words) {
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                Integer next = children.get(state).get(word.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    terminals.add(false);
+                    children.get(state).put(word.charAt(i), next);
+                }
+                state = next;
+            }
+            if (!terminals.get(state)) {
+                terminals.set(state, true);
+                vocabularySize++;
+            }
+        }
+
+        int nodeCount = children.size();
+        char[][] edgeChars = new char[nodeCount][];
+        int[][] edgeTargets = new int[nodeCount][];
+        boolean[] terminal = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            Map<Character, Integer> edges = children.get(node);
+            char[] chars = new char[edges.size()];
+            int i = 0;
+            for (Character c : edges.keySet()) chars[i++] = c;
+            Arrays.sort(chars);
+
+            int[] targets = new int[chars.length];
+            for (i = 0; i < chars.length; i++) targets[i] = edges.get(chars[i]);
+            edgeChars[node] = chars;
+            edgeTargets[node] = targets;
+            terminal[node] = terminals.get(node);
+        }
+
+        return new HashtagSegmenter(edgeChars, edgeTargets, terminal, vocabularySize);
+    }
+
+    /**
+     * SEGMENTAR TODAS AS HASHTAGS do texto
+     * Retorna as palavras das tags separadas por TAG_SEPARATOR (para que um trigger
+     * não case atravessando duas tags), ou "" se nenhuma tag foi segmentada
+     */
+    String segmentAll(CharSequence text) {
+        StringBuilder out = null;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != '#') continue;
+
+            int end = i + 1;
+            while (end < length && Character.isLetterOrDigit(text.charAt(end))) end++;
+
+            String words = segment(text.subSequence(i + 1, end).toString());
+            if (!words.isEmpty()) {
+                if (out == null) out = new StringBuilder();
+                out.append(TAG_SEPARATOR).append(words);
+            }
+            i = end - 1;
+        }
+        return out == null ? "" : out.toString();
+    }
+
+    /**
+     * SEGMENTAR UMA TAG (sem '#'), com memo LRU
+     */
+    String segment(String tag) {
+        if (tag.length() < MIN_TAG_LENGTH || tag.length() > MAX_TAG_LENGTH) return "";
+
+        synchronized (memo) {
+            String cached = memo.get(tag);
+            if (cached != null) {
+                memoHits++;
+                return cached;
+            }
+        }
+
+        String words = wordBreak(tag);
+        synchronized (memo) {
+            memo.put(tag, words);
+            segmentations++;
+        }
+        return words;
+    }
+
+    /**
+     * DP: cost[i] = menor custo para segmentar tag[0, i)
+     */
+    private String wordBreak(String tag) {
+        int n = tag.length();
+        int[] cost = new int[n + 1];
+        int[] back = new int[n + 1];
+        boolean[] known = new boolean[n + 1];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        cost[0] = 0;
+
+        for (int start = 0; start < n; start++) {
+            if (cost[start] == Integer.MAX_VALUE) continue;
+
+            // Caractere desconhecido
+            if (cost[start] + UNKNOWN_CHAR_COST < cost[start + 1]) {
+                cost[start + 1] = cost[start] + UNKNOWN_CHAR_COST;
+                back[start + 1] = start;
+                known[start + 1] = false;
+            }
+
+            // Todas as palavras do vocabulário que começam em start
+            int node = 0;
+            for (int end = start; end < n; end++) {
+                node = edge(node, tag.charAt(end));
+                if (node < 0) break;
+                if (terminal[node] && cost[start] + WORD_COST < cost[end + 1]) {
+                    cost[end + 1] = cost[start] + WORD_COST;
+                    back[end + 1] = start;
+                    known[end + 1] = true;
+                }
+            }
+        }
+
+        // Reconstruir do fim; caracteres desconhecidos consecutivos viram um token
+        List<String> tokens = new ArrayList<>();
+        int knownWords = 0;
+        int position = n;
+        int unknownEnd = -1;
+        while (position > 0) {
+            int start = back[position];
+            if (known[position]) {
+                if (unknownEnd >= 0) {
+                    tokens.add(tag.substring(position, unknownEnd));
+                    unknownEnd = -1;
+                }
+                tokens.add(tag.substring(start, position));
+                knownWords++;
+            } else if (unknownEnd < 0) {
+                unknownEnd = position;
+            }
+            position = start;
+        }
+        if (unknownEnd >= 0) tokens.add(tag.substring(0, unknownEnd));
+
+        // Uma tag que já é uma palavra só não ganha nada com a segmentação
+        if (knownWords < 2) return "";
+
+        StringBuilder words = new StringBuilder();
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            if (words.length() > 0) words.append(' ');
+            words.append(tokens.get(i));
+        }
+        return words.toString();
+    }
+
+    private int edge(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    int getSegmentations() {
+        synchronized (memo) {
+            return segmentations;
+        }
+    }
+
+    int getMemoHits() {
+        synchronized (memo) {
+            return memoHits;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.redesegura.accessibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Detector de idioma por n-gramas de caracteres
+ *
+ * Identificação barata (sem modelos, uma única passada) usada no estágio de
+ * normalização para rotear o texto apenas para as partições de triggers do idioma
+ * detectado. Cada idioma é descrito por trigramas das palavras mais frequentes; a
+ * tabela de trigramas é um hash aberto de long -> máscara de idiomas.
+ *
+ * Textos curtos, ambíguos ou misturados retornam MIXED e o motor faz fallback para
+ * todas as partições.
+ *
+ * A tabela (idiomas, chaves e máscaras) é imutável e publicada por uma única referência
+ * volatile: registerLanguage (config em runtime) monta uma cópia nova enquanto as threads
+ * de análise seguem lendo a anterior.
+ */
+class LanguageDetector {
+
+    static final String PORTUGUESE = "pt";
+    static final String ENGLISH = "en";
+    static final String SPANISH = "es";
+    static final String MIXED = "mixed";
+
+    // Limites de custo: só os primeiros caracteres são suficientes para decidir o idioma
+    private static final int MAX_SCAN_CHARS = 600;
+    private static final int MIN_HITS = 4;
+    private static final float DOMINANCE_RATIO = 1.4f;
+    private static final int MAX_LANGUAGES = 31;
+
+    /**
+     * Tabela imutável: hash aberto trigrama -> máscara de bits dos idiomas que o contêm
+     */
+    private static final class Table {
+        final List<String> languages;
+        final long[] keys;
+        final int[] masks;
+        final int count;
+
+        Table(List<String> languages, long[] keys, int[] masks, int count) {
+            this.languages = Collections.unmodifiableList(languages);
+            this.keys = keys;
+            this.masks = masks;
+            this.count = count;
+        }
+
+        int lookup(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (masks[slot] != 0) {
+                if (keys[slot] == key) return masks[slot];
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Cópia mutável da tabela durante um registerLanguage; só vira Table no fim
+     */
+    private static final class TableBuilder {
+        private long[] keys;
+        private int[] masks;
+        private int count;
+
+        TableBuilder(Table base) {
+            keys = base.keys.clone();
+            masks = base.masks.clone();
+            count = base.count;
+        }
+
+        void add(long key, int bit) {
+            if ((count + 1) * 2 > keys.length) grow();
+
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (masks[slot] != 0) {
+                if (keys[slot] == key) {
+                    masks[slot] |= bit;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            masks[slot] = bit;
+            count++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldMasks = masks;
+            keys = new long[oldKeys.length * 2];
+            masks = new int[oldMasks.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldMasks[i] != 0) add(oldKeys[i], oldMasks[i]);
+            }
+        }
+
+        Table build(List<String> languages) {
+            return new Table(languages, keys, masks, count);
+        }
+    }
+
+    private volatile Table table = new Table(new ArrayList<String>(), new long[1024], new int[1024], 0);
+
+    LanguageDetector() {
+        registerLanguage(PORTUGUESE, Arrays.asList(
+            "de", "que", "não", "uma", "para", "com", "os", "no", "na", "por", "mais",
+            "das", "dos", "como", "mas", "foi", "ele", "ela", "tem", "seu", "sua", "ser",
+            "quando", "muito", "já", "está", "eu", "também", "só", "pelo", "pela", "até",
+            "isso", "sem", "mesmo", "você", "vocês", "minha", "meu", "nós", "essa", "esse",
+            "estão", "tenho", "hoje", "agora", "vida", "obrigado", "coração", "então",
+            "porque", "são", "também", "ção", "ções", "lhe", "aqui", "nossa", "todo", "mundo"
+        ));
+
+        registerLanguage(ENGLISH, Arrays.asList(
+            "the", "of", "and", "to", "in", "is", "you", "that", "it", "was", "for", "on",
+            "are", "with", "they", "at", "be", "this", "have", "from", "or", "had", "by",
+            "but", "not", "what", "all", "were", "we", "when", "your", "can", "there", "an",
+            "which", "she", "how", "their", "if", "will", "about", "out", "then", "them",
+            "would", "like", "into", "time", "just", "know", "my", "me", "get", "life",
+            "today", "really", "thank", "everyone", "people", "our", "been", "who"
+        ));
+
+        registerLanguage(SPANISH, Arrays.asList(
+            "de", "la", "que", "el", "en", "los", "se", "del", "las", "un", "por", "con",
+            "una", "su", "para", "es", "al", "lo", "como", "más", "pero", "sus", "le",
+            "ya", "este", "porque", "esta", "cuando", "muy", "sin", "sobre", "también",
+            "hasta", "hay", "donde", "quien", "desde", "todo", "nos", "todos", "ellos",
+            "yo", "mucho", "nada", "ella", "estoy", "estamos", "están", "hoy", "ahora",
+            "vida", "gracias", "ustedes", "nosotros", "mi", "tú", "año", "ción", "ciones"
+        ));
+    }
+
+    /**
+     * REGISTRAR IDIOMA - permite adicionar novos pacotes (ex.: espanhol) sem
+     * alterar o custo por caractere da detecção
+     */
+    synchronized void registerLanguage(String language, List<String> frequentWords) {
+        Table current = table;
+        List<String> languages = new ArrayList<>(current.languages);
+        int index = languages.indexOf(language);
+        if (index < 0) {
+            if (languages.size() >= MAX_LANGUAGES) return;
+            languages.add(language);
+            index = languages.size() - 1;
+        }
+
+        int bit = 1 << index;
+        TableBuilder builder = new TableBuilder(current);
+        for (String word : frequentWords) {
+            String padded = " " + word.toLowerCase() + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                builder.add(pack(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)), bit);
+            }
+        }
+        table = builder.build(languages);
+    }
+
+    boolean isKnownLanguage(String language) {
+        return table.languages.contains(language);
+    }
+
+    /**
+     * DETECTAR IDIOMA DO TEXTO
+     * Percorre no máximo MAX_SCAN_CHARS caracteres uma única vez
+     */
+    String detect(CharSequence text) {
+        if (text == null) return MIXED;
+
+        Table table = this.table;
+        int[] scores = new int[table.languages.size()];
+        int limit = Math.min(text.length(), MAX_SCAN_CHARS);
+
+        // Janela deslizante de três caracteres com espaço como fronteira de palavra
+        char c1 = ' ';
+        char c2 = ' ';
+        for (int i = 0; i <= limit; i++) {
+            char c = i < limit ? normalizeChar(text.charAt(i)) : ' ';
+            if (c == ' ' && c2 == ' ') continue; // colapsar separadores consecutivos
+
+            if (c1 != ' ' || c2 != ' ') {
+                int mask = table.lookup(pack(c1, c2, c));
+                while (mask != 0) {
+                    int index = Integer.numberOfTrailingZeros(mask);
+                    if (index < scores.length) scores[index]++;
+                    mask &= mask - 1;
+                }
+            }
+            c1 = c2;
+            c2 = c;
+        }
+
+        int best = -1;
+        int bestScore = 0;
+        int secondScore = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > bestScore) {
+                secondScore = bestScore;
+                bestScore = scores[i];
+                best = i;
+            } else if (scores[i] > secondScore) {
+                secondScore = scores[i];
+            }
+        }
+
+        if (best < 0 || bestScore < MIN_HITS) return MIXED;
+        if (bestScore < secondScore * DOMINANCE_RATIO) return MIXED;
+        return table.languages.get(best);
+    }
+
+    private static char normalizeChar(char c) {
+        if (Character.isLetter(c)) return Character.toLowerCase(c);
+        return ' ';
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,193 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Assinaturas de layout por app: quais resource-IDs formam um post
+ *
+ * Cada app tem padrões (regex sobre o nome da entrada, sem "pacote:id/") para os papéis
+ * container, legenda, autor e mídia. Os quatro viram um único Pattern compilado com um
+ * grupo por papel; o papel de cada view ID é resolvido uma vez e guardado em cache, então
+ * numa árvore com dezenas de nós iguais (um por item do feed) a regex roda uma vez por ID
+ * distinto.
+ *
+ * Container é o nó raiz de um item do feed. Legenda, autor e mídia dentro dele dão os
+ * bounds justos do post. Apps sem assinatura (ou sem padrão de container) usam a regra
+ * estrutural do ContentAnalyzer: cada filho de uma lista rolável é um item. A regra
+ * estrutural também vale numa passada em que o padrão de container não casa com nada
+ * (IDs renomeados numa atualização do app). Padrões extras ou substitutos vêm do JSON "layoutSignatures".
+ */
+class LayoutSignatures {
+
+    private static final String TAG = "LayoutSignatures";
+    private static final int MAX_CACHED_IDS = 512;
+
+    // Papéis
+    static final int NONE = 0;
+    static final int CONTAINER = 1;
+    static final int CAPTION = 2;
+    static final int AUTHOR = 3;
+    static final int MEDIA = 4;
+    private static final String[] ROLE_NAMES = {"none", "container", "caption", "author", "media"};
+
+    // Padrões por app: {container, legenda, autor, mídia}; null = sem padrão - VOCÊ PODE AJUSTAR
+    private static final Map<String, String[]> DEFAULT_SIGNATURES = new HashMap<String, String[]>() {{
+        put("com.instagram.android", new String[]{
+            "row_feed_media_feedback_content|feed_item_container|clips_viewer_view_pager_item",
+            "row_feed_comment_textview_layout|row_feed_caption",
+            "row_feed_photo_profile_name|row_feed_photo_profile_header",
+            "row_feed_photo_imageview|carousel_media_group|zoomable_view_container|clips_video_container"
+        });
+        put("com.twitter.android", new String[]{
+            "outer_layout_row_view_tweet|tweet_view_container",
+            "tweet_content_text",
+            "tweet_header|tweet_profile_image",
+            "tweet_media_view|card_media_container|tweet_quote_view"
+        });
+        put("com.linkedin.android", new String[]{
+            "feed_item_update_card|feed_update_v2_container",
+            "feed_item_update_commentary|feed_render_item_commentary",
+            "feed_item_update_actor|feed_render_item_actor",
+            "feed_item_update_content|feed_render_item_image|feed_render_item_video"
+        });
+        put("com.zhiliaoapp.musically", new String[]{
+            null,
+            "desc|video_desc",
+            "title|user_name",
+            "video_view|aweme_video_view"
+        });
+    }};
+
+    /**
+     * Assinatura compilada de um app; resolve o papel de um view ID completo
+     */
+    static final class Signature {
+        final boolean hasContainer;
+        private final Pattern pattern;
+        private final int[] roleGroups = new int[ROLE_NAMES.length]; // grupo de cada papel (0 = sem)
+        private final Map<String, Integer> roles = new ConcurrentHashMap<>();
+        private final AtomicLong regexRuns;
+
+        private Signature(String[] patterns, AtomicLong regexRuns) {
+            this.regexRuns = regexRuns;
+            StringBuilder combined = new StringBuilder();
+            int group = 1;
+            for (int role = CONTAINER; role <= MEDIA; role++) {
+                String rolePattern = patterns[role - 1];
+                if (rolePattern == null || rolePattern.isEmpty()) continue;
+                if (combined.length() > 0) combined.append('|');
+                combined.append('(').append(rolePattern).append(')');
+                roleGroups[role] = group;
+                // Grupos de captura do próprio padrão deslocam os grupos seguintes
+                group += 1 + Pattern.compile(rolePattern).matcher("").groupCount();
+            }
+            this.hasContainer = roleGroups[CONTAINER] > 0;
+            this.pattern = combined.length() > 0 ? Pattern.compile(combined.toString()) : null;
+        }
+
+        int roleOf(String viewId) {
+            if (viewId == null || pattern == null) return NONE;
+            Integer cached = roles.get(viewId);
+            if (cached != null) return cached;
+
+            int role = NONE;
+            int separator = viewId.indexOf(":id/");
+            Matcher matcher = pattern.matcher(viewId);
+            matcher.region(separator >= 0 ? separator + 4 : 0, viewId.length());
+            if (matcher.matches()) {
+                for (int r = CONTAINER; r <= MEDIA; r++) {
+                    if (roleGroups[r] > 0 && matcher.start(roleGroups[r]) >= 0) {
+                        role = r;
+                        break;
+                    }
+                }
+            }
+            regexRuns.incrementAndGet();
+
+            if (roles.size() >= MAX_CACHED_IDS) roles.clear();
+            roles.put(viewId, role);
+            return role;
+        }
+    }
+
+    private volatile boolean enabled = true;
+    private final Map<String, String[]> customSignatures = new ConcurrentHashMap<>();
+    private final Map<String, Signature> signaturesByApp = new ConcurrentHashMap<>();
+
+    // Estatísticas
+    private final AtomicLong regexRuns = new AtomicLong();
+
+    /**
+     * Assinatura do app, ou null sem assinatura / com as assinaturas desligadas
+     */
+    Signature signatureFor(String packageName) {
+        if (!enabled || packageName == null) return null;
+        Signature signature = signaturesByApp.get(packageName);
+        if (signature == null) {
+            String[] patterns = customSignatures.containsKey(packageName) ?
+                customSignatures.get(packageName) : DEFAULT_SIGNATURES.get(packageName);
+            if (patterns == null) return null;
+            signature = new Signature(patterns, regexRuns);
+            signaturesByApp.put(packageName, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * CONFIGURAÇÃO VIA JSON
+     * {"layoutSignatures": {"enabled": true, "apps": {"com.twitter.android":
+     *     {"container": "outer_layout_row_view_tweet", "caption": "tweet_content_text",
+     *      "author": "tweet_header", "media": "tweet_media_view"}}}}
+     * Papéis ausentes ficam com o padrão embutido do app
+     */
+    void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject root = new JSONObject(configJson);
+            if (!root.has("layoutSignatures")) return;
+            JSONObject config = root.getJSONObject("layoutSignatures");
+
+            if (config.has("enabled")) enabled = config.getBoolean("enabled");
+            if (config.has("apps")) {
+                JSONObject apps = config.getJSONObject("apps");
+                Iterator<String> packages = apps.keys();
+                while (packages.hasNext()) {
+                    String packageName = packages.next();
+                    JSONObject app = apps.getJSONObject(packageName);
+                    String[] defaults = DEFAULT_SIGNATURES.get(packageName);
+                    String[] patterns = new String[MEDIA];
+                    for (int role = CONTAINER; role <= MEDIA; role++) {
+                        String name = ROLE_NAMES[role];
+                        patterns[role - 1] = app.has(name) ? app.getString(name) :
+                            defaults != null ? defaults[role - 1] : null;
+                        // Padrão inválido falha aqui, e não na travessia
+                        if (patterns[role - 1] != null) Pattern.compile(patterns[role - 1]);
+                    }
+                    customSignatures.put(packageName, patterns);
+                }
+            }
+            signaturesByApp.clear();
+
+            Log.d(TAG, "🔧 Assinaturas de layout atualizadas via JSON");
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Erro ao atualizar assinaturas de layout", e);
+        }
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("layoutSignaturesEnabled", enabled);
+        stats.put("layoutSignatureRegexRuns", regexRuns.get());
+        stats.put("layoutSignatureApps", signaturesByApp.size());
+        return stats;
+    }
+}
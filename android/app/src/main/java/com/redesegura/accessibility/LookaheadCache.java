@@ -0,0 +1,213 @@
+package com.redesegura.accessibility;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Vereditos pré-computados de posts logo abaixo do viewport (lookahead)
+ *
+ * Itens pré-renderizados pelo RecyclerView abaixo da tela são pontuados em baixa
+ * prioridade. Quando um TYPE_VIEW_SCROLLED os traz para a tela, o overlay é aplicado
+ * na hora a partir do veredito pronto, sem esperar coalescência e fila de análise.
+ *
+ * A chave é a identidade do nó (view de origem + janela), que o RecyclerView mantém
+ * quando reaproveita a view com outro conteúdo. Por isso todo uso do veredito confere
+ * a forma (nº de filhos + view ID), o hash do texto do item e o TTL. Um item coberto que
+ * sai da tela volta a ser descoberto: o overlay não o acompanha, e ao voltar ele é
+ * recoberto ou extraído de novo.
+ */
+class LookaheadCache {
+
+    private static final int CAPACITY = 64;
+    private static final long TTL_MS = 30_000;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    // Estatísticas
+    private int prescored = 0;
+    private int lookaheadCovers = 0;
+    private long lookaheadCoverLatencyMs = 0;
+    private int regularCovers = 0;
+    private long regularCoverLatencyMs = 0;
+
+    static long key(AccessibilityNodeInfo node) {
+        return ((long) node.getWindowId() << 32) | (node.hashCode() & 0xffffffffL);
+    }
+
+    static int shape(AccessibilityNodeInfo node) {
+        String viewId = node.getViewIdResourceName();
+        return node.getChildCount() * 31 + (viewId != null ? viewId.hashCode() : 0);
+    }
+
+    /**
+     * Hash do texto do item (o mesmo texto extraído para a pré-pontuação)
+     */
+    static long contentHash(CharSequence text) {
+        long h = 0xcbf29ce484222325L; // FNV-1a 64
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Reservar o item para pré-pontuação; false se já há veredito (ou um a caminho) válido
+     * para este mesmo conteúdo
+     */
+    synchronized boolean shouldPrescore(long key, int shape, long contentHash, long nowMs) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.matches(shape, contentHash, nowMs)) return false;
+
+        entries.put(key, new Entry(shape, contentHash, nowMs));
+        return true;
+    }
+
+    /**
+     * Veredito da pré-pontuação; descartado se a view já foi reservada para outro conteúdo
+     */
+    synchronized void complete(long key, long contentHash, AIAnalysisResult verdict) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.contentHash != contentHash) return;
+        entry.verdict = verdict;
+        prescored++;
+    }
+
+    /**
+     * Há veredito de bloqueio pronto, válido e ainda não aplicado nesta janela?
+     * Consulta barata feita a cada scroll antes de percorrer os itens
+     */
+    synchronized boolean hasBlockedVerdicts(int windowId, long nowMs) {
+        for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+            if ((int) (entry.getKey() >>> 32) == windowId && entry.getValue().isPendingBlock(nowMs)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Este item tem veredito de bloqueio pendente? Só então vale ler o texto dele
+     */
+    synchronized boolean hasBlockedVerdict(long key, long nowMs) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isPendingBlock(nowMs);
+    }
+
+    /**
+     * Retirar o veredito de bloqueio de um item que acabou de entrar na tela
+     */
+    synchronized AIAnalysisResult takeBlocked(long key, int shape, long contentHash, long nowMs) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.isPendingBlock(nowMs)) return null;
+        if (!entry.matches(shape, contentHash, nowMs)) {
+            entries.remove(key);
+            return null;
+        }
+
+        entry.covered = true;
+        return entry.verdict;
+    }
+
+    /**
+     * Item coberto pelo lookahead e ainda dentro do TTL? Só então vale conferir o texto
+     */
+    synchronized boolean isCovered(long key, long nowMs) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.covered && nowMs - entry.storedAt < TTL_MS;
+    }
+
+    /**
+     * Item coberto com o mesmo conteúdo - a extração normal pode pular a subárvore.
+     * Com outro conteúdo (view reaproveitada) o veredito deixa de valer
+     */
+    synchronized boolean isCoveredContent(long key, long contentHash) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.covered) return false;
+        if (entry.contentHash == contentHash) return true;
+
+        entries.remove(key);
+        return false;
+    }
+
+    /**
+     * Item saiu da tela: o overlay ficou para trás, então ele precisa ser recoberto ao voltar
+     */
+    synchronized void markOffscreen(long key) {
+        Entry entry = entries.get(key);
+        if (entry != null) entry.covered = false;
+    }
+
+    /**
+     * Latência entre o conteúdo entrar na tela e o overlay ser aplicado
+     */
+    synchronized void recordCoverLatency(boolean fromLookahead, long latencyMs) {
+        if (fromLookahead) {
+            lookaheadCovers++;
+            lookaheadCoverLatencyMs += latencyMs;
+        } else {
+            regularCovers++;
+            regularCoverLatencyMs += latencyMs;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("prescored", prescored);
+        stats.put("lookaheadCovers", lookaheadCovers);
+        stats.put("regularCovers", regularCovers);
+        stats.put("averageLookaheadCoverLatencyMs",
+                  lookaheadCovers > 0 ? lookaheadCoverLatencyMs / (double) lookaheadCovers : 0);
+        stats.put("averageRegularCoverLatencyMs",
+                  regularCovers > 0 ? regularCoverLatencyMs / (double) regularCovers : 0);
+        stats.put("cachedItems", entries.size());
+        return stats;
+    }
+
+    private static class Entry {
+        final int shape;
+        final long contentHash;
+        final long storedAt;
+        AIAnalysisResult verdict;  // null enquanto a pré-pontuação está na fila
+        boolean covered = false;
+
+        Entry(int shape, long contentHash, long storedAt) {
+            this.shape = shape;
+            this.contentHash = contentHash;
+            this.storedAt = storedAt;
+        }
+
+        boolean matches(int shape, long contentHash, long nowMs) {
+            return this.shape == shape && this.contentHash == contentHash && nowMs - storedAt < TTL_MS;
+        }
+
+        boolean isPendingBlock(long nowMs) {
+            return !covered && verdict != null && verdict.shouldBlock && nowMs - storedAt < TTL_MS;
+        }
+    }
+}
+
+/**
+ * Item abaixo do viewport extraído para pré-pontuação
+ */
+class LookaheadItem {
+    public final long key;
+    public final long contentHash;
+    public final String text;
+
+    public LookaheadItem(long key, long contentHash, String text) {
+        this.key = key;
+        this.contentHash = contentHash;
+        this.text = text;
+    }
+}
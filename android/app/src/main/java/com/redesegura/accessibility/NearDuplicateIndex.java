@@ -0,0 +1,203 @@
+package com.redesegura.accessibility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de quase-duplicatas por SimHash
+ *
+ * Reposts, slides de carrossel e a mesma legenda com outro emoji ou @handle geram
+ * fingerprints de 64 bits a poucos bits de distância. O índice LSH divide o
+ * fingerprint em 4 bandas de 16 bits: por pigeonhole, qualquer entrada a distância
+ * de Hamming <= 3 compartilha pelo menos uma banda, então a busca só compara os
+ * candidatos dessas bandas.
+ *
+ * Capacidade fixa (ring) e expiração por tempo mantêm a memória limitada.
+ * Só recebe texto de um único post (pré-pontuação e pontuação por post), nunca a tela
+ * inteira, e é limpo quando a base de triggers ou a sensibilidade mudam.
+ */
+class NearDuplicateIndex {
+
+    static final long NO_FINGERPRINT = 0L;
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+    private static final int MAX_SUPPORTED_DISTANCE = BANDS - 1;
+    private static final int MIN_FEATURES = 6;  // Textos curtos colidem demais
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int capacity;
+    private final long[] fingerprints;
+    private final String[] apps;
+    private final AIAnalysisResult[] verdicts;
+    private final long[] storedAt;
+    private int nextSlot = 0;
+
+    private final List<Map<Integer, List<Integer>>> bandIndex = new ArrayList<>();
+
+    private int maxHammingDistance = 3;
+    private long ttlMs = 10 * 60 * 1000L;
+
+    NearDuplicateIndex(int capacity) {
+        this.capacity = capacity;
+        this.fingerprints = new long[capacity];
+        this.apps = new String[capacity];
+        this.verdicts = new AIAnalysisResult[capacity];
+        this.storedAt = new long[capacity];
+        for (int band = 0; band < BANDS; band++) {
+            bandIndex.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * FINGERPRINT SIMHASH de palavras e bigramas
+     * @handles, números e emojis são ignorados para que variações triviais não mudem o hash
+     */
+    static long fingerprint(CharSequence lowerText) {
+        int[] weights = new int[64];
+        int features = 0;
+
+        long previousWord = 0;
+        long wordHash = FNV_OFFSET;
+        int wordLength = 0;
+        boolean skipWord = false;
+
+        int length = lowerText.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? lowerText.charAt(i) : ' ';
+
+            if (Character.isLetter(c)) {
+                wordHash = (wordHash ^ c) * FNV_PRIME;
+                wordLength++;
+                continue;
+            }
+            if (c == '@' && wordLength == 0) {
+                skipWord = true;
+                continue;
+            }
+            if (Character.isDigit(c) || c == '_' || c == '.' && skipWord) {
+                continue; // Números e handles não encerram nem compõem palavras
+            }
+
+            if (wordLength > 0 && !skipWord) {
+                long word = mix(wordHash);
+                addFeature(weights, word);
+                features++;
+                if (previousWord != 0) {
+                    addFeature(weights, mix(previousWord * 31 + word));
+                }
+                previousWord = word;
+            }
+            wordHash = FNV_OFFSET;
+            wordLength = 0;
+            skipWord = false;
+        }
+
+        if (features < MIN_FEATURES) return NO_FINGERPRINT;
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return fingerprint == NO_FINGERPRINT ? 1L : fingerprint;
+    }
+
+    /**
+     * BUSCAR VEREDITO RECENTE do mesmo app a até maxHammingDistance bits
+     */
+    synchronized AIAnalysisResult find(long fingerprint, String appPackage, long nowMs) {
+        if (fingerprint == NO_FINGERPRINT) return null;
+
+        AIAnalysisResult best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int band = 0; band < BANDS; band++) {
+            List<Integer> candidates = bandIndex.get(band).get(bandKey(fingerprint, band));
+            if (candidates == null) continue;
+
+            for (int slot : candidates) {
+                if (verdicts[slot] == null || nowMs - storedAt[slot] > ttlMs) continue;
+                if (!appPackage.equals(apps[slot])) continue;
+
+                int distance = Long.bitCount(fingerprints[slot] ^ fingerprint);
+                if (distance <= maxHammingDistance && distance < bestDistance) {
+                    best = verdicts[slot];
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    synchronized void put(long fingerprint, String appPackage, AIAnalysisResult verdict, long nowMs) {
+        if (fingerprint == NO_FINGERPRINT) return;
+
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % capacity;
+
+        // Entrada mais antiga sai das bandas antes de ser sobrescrita
+        if (verdicts[slot] != null) {
+            for (int band = 0; band < BANDS; band++) {
+                List<Integer> bucket = bandIndex.get(band).get(bandKey(fingerprints[slot], band));
+                if (bucket != null) {
+                    bucket.remove(Integer.valueOf(slot));
+                    if (bucket.isEmpty()) bandIndex.get(band).remove(bandKey(fingerprints[slot], band));
+                }
+            }
+        }
+
+        fingerprints[slot] = fingerprint;
+        apps[slot] = appPackage;
+        verdicts[slot] = verdict;
+        storedAt[slot] = nowMs;
+
+        for (int band = 0; band < BANDS; band++) {
+            Map<Integer, List<Integer>> index = bandIndex.get(band);
+            int key = bandKey(fingerprint, band);
+            List<Integer> bucket = index.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>(2);
+                index.put(key, bucket);
+            }
+            bucket.add(slot);
+        }
+    }
+
+    synchronized void clear() {
+        for (Map<Integer, List<Integer>> index : bandIndex) index.clear();
+        for (int slot = 0; slot < capacity; slot++) verdicts[slot] = null;
+        nextSlot = 0;
+    }
+
+    /**
+     * Distância máxima limitada a BANDS - 1 para preservar a garantia do LSH
+     */
+    void setMaxHammingDistance(int distance) {
+        this.maxHammingDistance = Math.max(0, Math.min(MAX_SUPPORTED_DISTANCE, distance));
+    }
+
+    void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    private static int bandKey(long fingerprint, int band) {
+        return (int) ((fingerprint >>> (band * BAND_BITS)) & ((1L << BAND_BITS) - 1));
+    }
+
+    private static void addFeature(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,455 @@
+package com.redesegura.accessibility;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache de fingerprints de nós por janela - diff incremental da árvore
+ *
+ * Cada nó gera um fingerprint local de (view ID, classe, posição no conteúdo, tamanho,
+ * nº de filhos, hash do texto), combinado de baixo para cima com os fingerprints dos
+ * filhos: o fingerprint de um nó cobre a subárvore inteira. Na passada seguinte, um nó
+ * cujo fingerprint já estava na passada anterior tem a subárvore pulada: o texto dela
+ * já foi analisado. Só subárvores novas ou alteradas são extraídas e pontuadas.
+ *
+ * Os fingerprints de subárvore são calculados uma vez por passada (memo por nó), então
+ * descer numa subárvore alterada não recalcula as de baixo. O cálculo também não desce
+ * onde a passada anterior prova que nada mudou: um nó com a mesma chave e o mesmo
+ * fingerprint local (posição no conteúdo, tamanho, nº de filhos, texto) reaproveita a
+ * subárvore guardada, a menos que um evento de conteúdo/texto tenha apontado um nó dela
+ * como alterado ou que ela tenha um container rolável (a passada completa periódica
+ * recalcula tudo, sem reaproveitar). Assim a leitura de nós de uma passada fica
+ * proporcional ao que mudou (mais os filhos diretos das partes alteradas), e não à
+ * janela inteira; nodesVisited conta as leituras do cálculo e as da extração.
+ *
+ * Posts bloqueados ficam registrados pelo fingerprint: um post pulado que estava
+ * bloqueado volta como alvo (PostTarget) com os bounds atuais, para o overlay acompanhar
+ * o post quando o feed rola.
+ *
+ * A posição é relativa ao conteúdo (topo na tela + deslocamento acumulado de scroll
+ * da janela), então um post que apenas subiu na tela mantém o fingerprint durante o
+ * scroll do feed, e uma view reciclada com outro conteúdo cai numa posição nova.
+ *
+ * Containers roláveis nunca são pulados (os filhos mudam sem que eles mudem), e a
+ * cada FULL_PASS_INTERVAL passadas a janela é reextraída por completo.
+ */
+class NodeFingerprintCache {
+
+    private static final int FULL_PASS_INTERVAL = 10;
+    private static final int MAX_WINDOWS = 8;
+    private static final int MAX_HASHED_NODES = 800; // por passada, o mesmo orçamento da extração
+    private static final int MAX_DIRTY_NODES = 256;  // acima disso, a próxima passada não reaproveita
+
+    private final Map<Integer, WindowState> windows =
+        new LinkedHashMap<Integer, WindowState>(MAX_WINDOWS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, WindowState> eldest) {
+                return size() > MAX_WINDOWS;
+            }
+        };
+
+    // Estatísticas
+    private long passes = 0;
+    private long nodesVisited = 0;
+    private long nodesHashed = 0;
+    private long subtreesSkipped = 0;
+    private long subtreesReused = 0;
+
+    /**
+     * EVENTO BRUTO (antes da coalescência): acumula o deslocamento de scroll da janela,
+     * aponta o nó alterado por eventos de conteúdo/texto e invalida a janela quando a
+     * tela muda
+     */
+    synchronized void onRawEvent(AccessibilityEvent event) {
+        int windowId = event.getWindowId();
+        switch (event.getEventType()) {
+            case AccessibilityEvent.TYPE_VIEW_SCROLLED:
+                int deltaY = event.getScrollDeltaY();
+                if (deltaY != 0 && deltaY != -1) windowState(windowId).scrollOffsetY += deltaY;
+                break;
+            case AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED:
+            case AccessibilityEvent.TYPE_VIEW_TEXT_CHANGED:
+                WindowState state = windows.get(windowId);
+                if (state == null || state.dirtyOverflow) break;
+                AccessibilityNodeInfo source = event.getSource();
+                if (source == null) {
+                    state.dirtyOverflow = true; // alteração sem nó: nada é reaproveitado
+                    break;
+                }
+                state.dirty.add(LookaheadCache.key(source));
+                source.recycle();
+                if (state.dirty.size() > MAX_DIRTY_NODES) state.dirtyOverflow = true;
+                break;
+            case AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED:
+                windows.remove(windowId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * INICIAR PASSADA de extração numa janela; os nós apontados como alterados até aqui
+     * valem para esta passada
+     */
+    synchronized Pass beginPass(int windowId) {
+        WindowState state = windowState(windowId);
+        state.passCount++;
+        boolean fullPass = state.passCount % FULL_PASS_INTERVAL == 1 || state.previous.isEmpty();
+        Pass pass = new Pass(state, fullPass, state.scrollOffsetY, state.nodes, state.dirty,
+                             !fullPass && !state.dirtyOverflow);
+        state.dirty = new HashSet<>();
+        state.dirtyOverflow = false;
+        return pass;
+    }
+
+    /**
+     * Post bloqueado pelo próprio veredito (ou com um trigger da tela no seu trecho):
+     * enquanto a subárvore não mudar, o bloqueio vale para ela
+     */
+    synchronized void markBlocked(PostTarget target, AIAnalysisResult verdict) {
+        if (target.fingerprint == 0) return;
+        WindowState state = windows.get(target.windowId);
+        if (state != null) state.blocked.put(target.fingerprint, new BlockedPost(verdict, target.bounds));
+    }
+
+    /**
+     * Post julgado seguro por conta própria: não é mais recoberto quando pulado
+     */
+    synchronized void clearBlocked(PostTarget target) {
+        WindowState state = windows.get(target.windowId);
+        if (state != null) state.blocked.remove(target.fingerprint);
+    }
+
+    /**
+     * Registrar a cobertura de um post pulado; false se ele já está coberto nos mesmos bounds
+     */
+    synchronized boolean markCovered(PostTarget target) {
+        WindowState state = windows.get(target.windowId);
+        BlockedPost blocked = state != null ? state.blocked.get(target.fingerprint) : null;
+        if (blocked == null || blocked.coveredBounds.equals(target.bounds)) return false;
+
+        blocked.coveredBounds = new Rect(target.bounds);
+        return true;
+    }
+
+    synchronized void clear() {
+        windows.clear();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("passes", passes);
+        stats.put("nodesVisited", nodesVisited);
+        stats.put("nodesHashed", nodesHashed);
+        stats.put("subtreesSkipped", subtreesSkipped);
+        stats.put("subtreesReused", subtreesReused);
+        stats.put("averageNodesVisited", passes > 0 ? nodesVisited / (double) passes : 0);
+        stats.put("cachedWindows", windows.size());
+        return stats;
+    }
+
+    /**
+     * @param visited nós lidos pela extração
+     * @param hashed nós lidos pelo cálculo de fingerprints
+     */
+    private synchronized void recordPass(int visited, int hashed, int skipped, int reused) {
+        passes++;
+        nodesVisited += visited + hashed;
+        nodesHashed += hashed;
+        subtreesSkipped += skipped;
+        subtreesReused += reused;
+    }
+
+    private WindowState windowState(int windowId) {
+        WindowState state = windows.get(windowId);
+        if (state == null) {
+            state = new WindowState();
+            windows.put(windowId, state);
+        }
+        return state;
+    }
+
+    /**
+     * Estado de uma janela: fingerprints da última passada (por subárvore e por nó),
+     * posts bloqueados, nós alterados desde a última passada e deslocamento de scroll
+     */
+    private static class WindowState {
+        Set<Long> previous = new HashSet<>();
+        Map<Long, NodeEntry> nodes = new HashMap<>(); // por nó (LookaheadCache.key); trocado, nunca alterado
+        final Map<Long, BlockedPost> blocked = new HashMap<>();
+        Set<Long> dirty = new HashSet<>();
+        boolean dirtyOverflow = false;
+        int scrollOffsetY = 0;
+        int passCount = 0;
+    }
+
+    /**
+     * Nó calculado numa passada: fingerprint local, da subárvore e chaves dos filhos
+     */
+    private static final class NodeEntry {
+        final long local;
+        final long subtree;
+        final long[] childKeys;
+        final boolean scrollable; // a subárvore tem um container rolável
+
+        NodeEntry(long local, long subtree, long[] childKeys, boolean scrollable) {
+            this.local = local;
+            this.subtree = subtree;
+            this.childKeys = childKeys;
+            this.scrollable = scrollable;
+        }
+    }
+
+    private static class BlockedPost {
+        final AIAnalysisResult verdict;
+        Rect coveredBounds;
+
+        BlockedPost(AIAnalysisResult verdict, Rect coveredBounds) {
+            this.verdict = verdict;
+            this.coveredBounds = new Rect(coveredBounds);
+        }
+    }
+
+    /**
+     * Uma passada de extração. Usada por uma única thread (a lane do app)
+     */
+    class Pass {
+        private final WindowState state;
+        private final boolean fullPass;
+        private final int scrollOffsetY;
+        private final Map<Long, NodeEntry> previousNodes;
+        private final Set<Long> dirty;
+        private final boolean reuseAllowed;
+        private final Set<Long> current = new HashSet<>();
+        private final Map<Long, NodeEntry> currentNodes = new HashMap<>(); // memo por nó (LookaheadCache.key)
+        private final List<Long> reuseKeys = new ArrayList<>();
+        private final Rect childBounds = new Rect();
+        private int visited = 0;
+        private int skipped = 0;
+        private int hashed = 0;
+        private int reused = 0;
+
+        private Pass(WindowState state, boolean fullPass, int scrollOffsetY, Map<Long, NodeEntry> previousNodes,
+                     Set<Long> dirty, boolean reuseAllowed) {
+            this.state = state;
+            this.fullPass = fullPass;
+            this.scrollOffsetY = scrollOffsetY;
+            this.previousNodes = previousNodes;
+            this.dirty = dirty;
+            this.reuseAllowed = reuseAllowed;
+        }
+
+        /**
+         * Fingerprint da subárvore do nó; 0 quando o orçamento de nós acabou antes de
+         * cobri-la (subárvore nunca pulada). Registrado na passada atual
+         */
+        long subtreeFingerprint(AccessibilityNodeInfo node, Rect bounds) {
+            visited++;
+            NodeEntry cached = currentNodes.get(LookaheadCache.key(node));
+            return cached != null ? cached.subtree : hashSubtree(node, bounds);
+        }
+
+        /**
+         * A subárvore com esse fingerprint é idêntica à da passada anterior?
+         */
+        boolean isUnchanged(AccessibilityNodeInfo node, long fingerprint) {
+            if (fingerprint == 0 || fullPass || node.isScrollable()) return false;
+            if (!state.previous.contains(fingerprint)) return false;
+
+            skipped++;
+            return true;
+        }
+
+        /**
+         * Veredito do post pulado, se ele estava bloqueado na passada anterior
+         */
+        AIAnalysisResult blockedVerdict(long fingerprint) {
+            synchronized (NodeFingerprintCache.this) {
+                BlockedPost blocked = state.blocked.get(fingerprint);
+                return blocked != null ? blocked.verdict : null;
+            }
+        }
+
+        /**
+         * A passada atual vira a referência da próxima. Nós que saíram da tela somem
+         * do cache aqui (e os posts bloqueados deles também), então ele nunca cresce
+         * além de uma tela de nós
+         */
+        void finish() {
+            synchronized (NodeFingerprintCache.this) {
+                state.previous = current;
+                state.nodes = currentNodes;
+                state.blocked.keySet().retainAll(current);
+            }
+            recordPass(visited, hashed, skipped, reused);
+        }
+
+        /**
+         * Pós-ordem iterativa: cada nó combina o fingerprint local com os dos filhos,
+         * na ordem deles. Subárvores já calculadas nesta passada vêm do memo, e as que a
+         * passada anterior prova inalteradas não são lidas
+         */
+        private long hashSubtree(AccessibilityNodeInfo root, Rect bounds) {
+            hashed++;
+            long rootKey = LookaheadCache.key(root);
+            long rootLocal = fingerprint(root, bounds);
+            NodeEntry reusedRoot = reuse(root, rootKey, rootLocal);
+            if (reusedRoot != null) return reusedRoot.subtree;
+
+            ArrayDeque<HashFrame> stack = new ArrayDeque<>();
+            stack.push(new HashFrame(root, rootKey, rootLocal, false));
+            long result = 0;
+
+            while (!stack.isEmpty()) {
+                HashFrame frame = stack.peek();
+                if (frame.nextChild < frame.node.getChildCount()) {
+                    if (hashed >= MAX_HASHED_NODES) {
+                        frame.complete = false;
+                        frame.nextChild = frame.node.getChildCount();
+                        continue;
+                    }
+                    AccessibilityNodeInfo child = frame.node.getChild(frame.nextChild++);
+                    if (child == null) continue;
+
+                    long childKey = LookaheadCache.key(child);
+                    NodeEntry cached = currentNodes.get(childKey);
+                    if (cached == null) {
+                        hashed++;
+                        child.getBoundsInScreen(childBounds);
+                        long local = fingerprint(child, childBounds);
+                        cached = reuse(child, childKey, local);
+                        if (cached == null) {
+                            stack.push(new HashFrame(child, childKey, local, true));
+                            continue;
+                        }
+                    }
+                    frame.combine(childKey, cached.subtree, cached.scrollable);
+                    child.recycle();
+                    continue;
+                }
+
+                stack.pop();
+                long fingerprint = frame.complete ? frame.hash : 0;
+                if (fingerprint != 0) {
+                    record(frame.key, new NodeEntry(frame.local, fingerprint, frame.childKeys(), frame.scrollable));
+                }
+                if (frame.owned) frame.node.recycle();
+
+                HashFrame parent = stack.peek();
+                if (parent == null) {
+                    result = fingerprint;
+                } else {
+                    parent.combine(frame.key, fingerprint, frame.scrollable);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Subárvore da passada anterior reaproveitada sem descer: mesma chave e mesmo
+         * fingerprint local, nenhum nó dela apontado como alterado e nenhum container
+         * rolável (os filhos mudam sem que ele mude). Os fingerprints da subárvore inteira
+         * entram na passada atual a partir do cache, sem ler os nós. null = descer
+         */
+        private NodeEntry reuse(AccessibilityNodeInfo node, long key, long local) {
+            if (!reuseAllowed || node.isScrollable()) return null;
+            NodeEntry entry = previousNodes.get(key);
+            if (entry == null || entry.local != local || entry.scrollable) return null;
+
+            // Conferir a subárvore toda antes de copiar qualquer nó dela
+            reuseKeys.clear();
+            reuseKeys.add(key);
+            for (int i = 0; i < reuseKeys.size(); i++) {
+                long nodeKey = reuseKeys.get(i);
+                NodeEntry nodeEntry = previousNodes.get(nodeKey);
+                if (nodeEntry == null || dirty.contains(nodeKey)) return null;
+                for (long childKey : nodeEntry.childKeys) reuseKeys.add(childKey);
+            }
+            for (long nodeKey : reuseKeys) record(nodeKey, previousNodes.get(nodeKey));
+            reused++;
+            return entry;
+        }
+
+        private void record(long key, NodeEntry entry) {
+            currentNodes.put(key, entry);
+            current.add(entry.subtree);
+        }
+
+        private long fingerprint(AccessibilityNodeInfo node, Rect bounds) {
+            long h = 0x9E3779B97F4A7C15L;
+            h = mix(h, hash(node.getViewIdResourceName()));
+            h = mix(h, hash(node.getClassName()));
+            h = mix(h, hash(node.getText()));
+            h = mix(h, hash(node.getContentDescription()));
+            h = mix(h, node.getChildCount());
+            h = mix(h, bounds.left);
+            h = mix(h, bounds.top + scrollOffsetY);
+            h = mix(h, bounds.width());
+            h = mix(h, bounds.height());
+            return h;
+        }
+    }
+
+    /**
+     * Nó na pilha do cálculo de fingerprints; owned = obtido aqui, reciclado ao sair
+     */
+    private static final class HashFrame {
+        final AccessibilityNodeInfo node;
+        final long key;
+        final long local;
+        final boolean owned;
+        long hash;
+        boolean scrollable;
+        int nextChild = 0;
+        boolean complete = true; // false: algum filho ficou fora do orçamento
+        private long[] childKeys;
+        private int childCount = 0;
+
+        HashFrame(AccessibilityNodeInfo node, long key, long local, boolean owned) {
+            this.node = node;
+            this.key = key;
+            this.local = local;
+            this.hash = local;
+            this.owned = owned;
+            this.scrollable = node.isScrollable();
+            this.childKeys = new long[node.getChildCount()];
+        }
+
+        void combine(long childKey, long childFingerprint, boolean childScrollable) {
+            if (childFingerprint == 0) complete = false;
+            hash = mix(hash, childFingerprint);
+            scrollable |= childScrollable;
+            if (childCount == childKeys.length) childKeys = Arrays.copyOf(childKeys, childCount + 1);
+            childKeys[childCount++] = childKey;
+        }
+
+        long[] childKeys() {
+            return childCount == childKeys.length ? childKeys : Arrays.copyOf(childKeys, childCount);
+        }
+    }
+
+    private static int hash(CharSequence value) {
+        if (value == null) return 0;
+        int h = 0;
+        for (int i = 0; i < value.length(); i++) h = 31 * h + value.charAt(i);
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value + 0x9E3779B97F4A7C15L + (h << 6) + (h >>> 2);
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+}
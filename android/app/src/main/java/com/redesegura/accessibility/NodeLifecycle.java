@@ -0,0 +1,150 @@
+package com.redesegura.accessibility;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ciclo de vida dos AccessibilityNodeInfo obtidos numa extração
+ *
+ * Todo nó obtido via getChild() passa por aqui e é reciclado assim que processado
+ * (release) ou, no fim da extração, por releaseAll() - inclusive quando o orçamento
+ * estoura com nós ainda na pilha. Nenhum nó sai da thread de análise: o que o overlay
+ * precisa vira um PostTarget (bounds + IDs).
+ *
+ * Os contadores globais obtained/released permitem detectar vazamentos em produção.
+ */
+class NodeLifecycle {
+
+    private static final AtomicLong totalObtained = new AtomicLong();
+    private static final AtomicLong totalReleased = new AtomicLong();
+
+    private final Map<AccessibilityNodeInfo, Boolean> outstanding = new IdentityHashMap<>();
+
+    /**
+     * Obter filho sob gestão; null se o filho não existe mais
+     */
+    AccessibilityNodeInfo obtainChild(AccessibilityNodeInfo parent, int index) {
+        AccessibilityNodeInfo child = parent.getChild(index);
+        if (child != null) {
+            outstanding.put(child, Boolean.TRUE);
+            totalObtained.incrementAndGet();
+        }
+        return child;
+    }
+
+    /**
+     * Reciclar um nó obtido por esta instância (nós de fora são ignorados)
+     */
+    void release(AccessibilityNodeInfo node) {
+        if (node != null && outstanding.remove(node) != null) {
+            node.recycle();
+            totalReleased.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reciclar tudo o que ainda está pendente - chamado em finally
+     */
+    void releaseAll() {
+        for (AccessibilityNodeInfo node : outstanding.keySet()) {
+            node.recycle();
+            totalReleased.incrementAndGet();
+        }
+        outstanding.clear();
+    }
+
+    static long getTotalObtained() {
+        return totalObtained.get();
+    }
+
+    static long getLeakedNodes() {
+        return totalObtained.get() - totalReleased.get();
+    }
+}
+
+/**
+ * Alvo de overlay: registro leve que substitui o AccessibilityNodeInfo do post
+ * fora da thread de análise
+ *
+ * A identidade do post (caminho de view IDs + hash do texto da subárvore) só é
+ * preenchida quando a extração termina a subárvore dentro do orçamento. Nesse mesmo
+ * ponto os bounds encolhem para a união das partes (legenda, autor, mídia) achadas.
+ */
+class PostTarget {
+    private static final int MIN_IDENTITY_CHARS = 10;
+
+    public final Rect bounds;
+    public final String viewId;
+    public final int windowId;
+    public final int pathHash;   // view IDs/classes da raiz até o post, sem índices de irmãos
+    public final int textStart;  // início do texto do post no texto extraído
+
+    // Preenchidos ao fim da subárvore
+    int textEnd = -1;
+    long contentHash = 0;
+    boolean leaf = true;         // nenhum outro post dentro deste
+    long fingerprint = 0;        // fingerprint da subárvore na passada (0 = sem diff incremental)
+    AIAnalysisResult unchangedVerdict; // post pulado pelo diff que estava bloqueado; sem texto
+    private Rect partBounds;     // união das partes do post vistas na subárvore
+    private boolean loose = false; // texto fora das partes: os bounds justos cortariam conteúdo
+
+    public PostTarget(Rect bounds, String viewId, int windowId) {
+        this(bounds, viewId, windowId, 0, 0);
+    }
+
+    public PostTarget(Rect bounds, String viewId, int windowId, int pathHash, int textStart) {
+        this.bounds = bounds;
+        this.viewId = viewId;
+        this.windowId = windowId;
+        this.pathHash = pathHash;
+        this.textStart = textStart;
+    }
+
+    /**
+     * Subárvore extraída por completo e com texto suficiente para identificar o post
+     */
+    boolean hasIdentity() {
+        return textEnd - textStart >= MIN_IDENTITY_CHARS;
+    }
+
+    void close(CharSequence text, int end) {
+        long h = 0xcbf29ce484222325L; // FNV-1a 64
+        for (int i = textStart; i < end; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        contentHash = h;
+        textEnd = end;
+    }
+
+    /**
+     * Parte do post (legenda, autor, mídia) dentro da subárvore
+     */
+    void includePart(Rect part) {
+        if (partBounds == null) {
+            partBounds = new Rect(part);
+        } else {
+            partBounds.union(part);
+        }
+    }
+
+    /**
+     * Texto da subárvore fora de legenda, autor e mídia (ou subárvore não lida)
+     */
+    void markLoose() {
+        loose = true;
+    }
+
+    /**
+     * Bounds justos: união das partes recortada ao viewport, só quando todo o texto do
+     * post estava nelas; sem partes, ou com texto fora delas, ficam os do container
+     */
+    void tighten(Rect viewport) {
+        if (partBounds == null || loose) return;
+        if (viewport == null || partBounds.intersect(viewport)) bounds.set(partBounds);
+    }
+}
@@ -0,0 +1,114 @@
+package com.redesegura.accessibility;
+
+import android.graphics.Rect;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memo de vereditos por post durante a sessão
+ *
+ * A chave do post vem do app, do caminho de view IDs até o post (sem índices de
+ * irmãos, então sobrevive à reciclagem de views do feed) e do hash do texto da
+ * subárvore. Um post que volta à tela depois de sair dela é reconhecido na extração:
+ * o texto dele sai da pontuação e, se estava bloqueado, o overlay é reaplicado na hora.
+ *
+ * O estado do overlay (bounds e instante da última cobertura) evita empilhar overlays
+ * quando o mesmo post é reextraído sem ter se movido.
+ */
+class PostVerdictMemo {
+
+    private static final int CAPACITY = 256;
+    private static final long RECOVER_DEDUP_MS = 1500;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    // Estatísticas
+    private int hits = 0;
+    private int misses = 0;
+    private int remembered = 0;
+    private int recovers = 0;
+    private long charsSkipped = 0;
+
+    static long key(String packageName, PostTarget target) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h, packageName.hashCode());
+        h = mix(h, target.pathHash);
+        h = mix(h, target.contentHash);
+        return h;
+    }
+
+    synchronized AIAnalysisResult lookup(long key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.verdict;
+    }
+
+    synchronized void remember(long key, AIAnalysisResult verdict) {
+        if (!entries.containsKey(key)) remembered++;
+        entries.put(key, new Entry(verdict));
+    }
+
+    /**
+     * Registrar a cobertura do post; false se ele já foi coberto nos mesmos bounds há pouco
+     */
+    synchronized boolean markCovered(long key, Rect bounds, long nowMs) {
+        Entry entry = entries.get(key);
+        if (entry == null) return true;
+        if (bounds.equals(entry.coveredBounds) && nowMs - entry.coveredAt < RECOVER_DEDUP_MS) return false;
+
+        entry.coveredBounds = new Rect(bounds);
+        entry.coveredAt = nowMs;
+        return true;
+    }
+
+    synchronized void recordRecover() {
+        recovers++;
+    }
+
+    synchronized void recordSkippedChars(int skippedChars) {
+        charsSkipped += skippedChars;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? hits * 100.0 / (hits + misses) : 0);
+        stats.put("remembered", remembered);
+        stats.put("recovers", recovers);
+        stats.put("charsSkipped", charsSkipped);
+        stats.put("memoSize", entries.size());
+        return stats;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value + 0x9E3779B97F4A7C15L + (h << 6) + (h >>> 2);
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private static class Entry {
+        final AIAnalysisResult verdict;
+        Rect coveredBounds;
+        long coveredAt;
+
+        Entry(AIAnalysisResult verdict) {
+            this.verdict = verdict;
+        }
+    }
+}
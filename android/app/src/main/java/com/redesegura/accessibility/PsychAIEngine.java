@@ -4,6 +4,9 @@ import android.util.Log;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 /**
@@ -21,175 +24,205 @@ import java.util.regex.Pattern;
 public class PsychAIEngine {
     
     private static final String TAG = "PsychAIEngine";
+
+    // Partição de triggers sem idioma (emojis, hashtags e triggers personalizados)
+    private static final String UNIVERSAL_LANGUAGE = "*";
+
+    // Categorias que justificam overlay imediato pelo fast path (autolesão entra via config)
+    private static final List<String> CRITICAL_CATEGORIES = Arrays.asList(
+        "depressionTriggers", "selfHarmTriggers"
+    );
     
-    // Base de dados psicológica científica - VOCÊ PODE MODIFICAR AQUI
-    private Map<String, List<String>> psychologyDatabase = new HashMap<String, List<String>>() {{
+    // Base de dados psicológica científica, particionada por idioma - VOCÊ PODE MODIFICAR AQUI
+    // Cada categoria tem uma lista por idioma; o texto só é comparado com a partição do
+    // idioma detectado (ou com todas, quando o texto é misto)
+    // Publicada como um TriggerIndex imutável: as lanes leem uma referência volátil e cada
+    // atualização monta uma cópia nova e troca a referência de uma vez
+    private volatile TriggerIndex triggerIndex = new TriggerIndex(new HashMap<String, Map<String, List<String>>>() {{
         
         // TRIGGERS DE COMPARAÇÃO SOCIAL (Festinger's Social Comparison Theory + estudos modernos)
-        put("comparisonTriggers", Arrays.asList(
-            // Português - Comparação direta
-            "vida perfeita", "sucesso extremo", "blessed", "richlife", "lifestyle perfeito",
-            "corpo perfeito", "relacionamento perfeito", "viagem dos sonhos", "casa dos sonhos",
-            "carro novo", "marca de luxo", "riqueza", "conquista", "achievement",
-            "melhor que", "superior", "único", "especial", "privilegiado", "inveja",
-            "todos querem", "ninguém tem", "só eu tenho", "consegui", "conquistei",
-            "mereço", "trabalho duro", "esforço", "dedicação", "foco", "determinação",
-            
-            // Português - Ostentação sutil
-            "vale a pena", "investimento", "qualidade", "exclusivo", "premium",
-            "primeira classe", "vip", "elite", "top", "high end", "sofisticado",
+        put("comparisonTriggers", bilingualPack(
+            Arrays.asList(
+                // Português - Comparação direta
+                "vida perfeita", "sucesso extremo", "blessed", "richlife", "lifestyle perfeito",
+                "corpo perfeito", "relacionamento perfeito", "viagem dos sonhos", "casa dos sonhos",
+                "carro novo", "marca de luxo", "riqueza", "conquista", "achievement",
+                "melhor que", "superior", "único", "especial", "privilegiado", "inveja",
+                "todos querem", "ninguém tem", "só eu tenho", "consegui", "conquistei",
+                "mereço", "trabalho duro", "esforço", "dedicação", "foco", "determinação",
             
-            // Inglês - Comparação direta
-            "perfect life", "extreme success", "blessed life", "rich lifestyle",
-            "perfect body", "perfect relationship", "dream vacation", "dream house",
-            "new car", "luxury brand", "wealth", "achievement", "accomplished",
-            "better than", "superior", "unique", "special", "privileged", "envy",
-            "everyone wants", "nobody has", "only I have", "achieved", "conquered",
+                // Português - Ostentação sutil
+                "vale a pena", "investimento", "qualidade", "exclusivo", "premium",
+                "primeira classe", "vip", "elite", "top", "high end", "sofisticado"
+            ),
+            Arrays.asList(
+                // Inglês - Comparação direta
+                "perfect life", "extreme success", "blessed life", "rich lifestyle",
+                "perfect body", "perfect relationship", "dream vacation", "dream house",
+                "new car", "luxury brand", "wealth", "achievement", "accomplished",
+                "better than", "superior", "unique", "special", "privileged", "envy",
+                "everyone wants", "nobody has", "only I have", "achieved", "conquered",
             
-            // Inglês - Ostentação sutil
-            "worth it", "investment", "quality", "exclusive", "premium",
-            "first class", "vip", "elite", "top tier", "high end", "sophisticated"
+                // Inglês - Ostentação sutil
+                "worth it", "investment", "quality", "exclusive", "premium",
+                "first class", "vip", "elite", "top tier", "high end", "sophisticated"
+            )
         ));
         
         // TRIGGERS DE ANSIEDADE/FOMO (DSM-5 Anxiety Disorders + Digital Psychology)
-        put("anxietyTriggers", Arrays.asList(
-            // Português - Urgência e escassez
-            "fomo", "urgência", "limitado", "apenas hoje", "última chance", "vai acabar",
-            "você está perdendo", "todos estão fazendo", "não perca", "exclusivo",
-            "limited edition", "sold out", "running out", "deadline", "pressure",
-            "pressa", "ansiedade", "stress", "overwhelmed", "panic", "desespero",
-            "agora ou nunca", "não vai durar", "oportunidade única", "imperdível",
+        put("anxietyTriggers", bilingualPack(
+            Arrays.asList(
+                // Português - Urgência e escassez
+                "fomo", "urgência", "limitado", "apenas hoje", "última chance", "vai acabar",
+                "você está perdendo", "todos estão fazendo", "não perca", "exclusivo",
+                "limited edition", "sold out", "running out", "deadline", "pressure",
+                "pressa", "ansiedade", "stress", "overwhelmed", "panic", "desespero",
+                "agora ou nunca", "não vai durar", "oportunidade única", "imperdível",
             
-            // Português - Pressão social
-            "todo mundo tem", "normal ter", "óbvio que", "qualquer um consegue",
-            "até eu consegui", "se eu consegui", "todo mundo faz", "é básico",
+                // Português - Pressão social
+                "todo mundo tem", "normal ter", "óbvio que", "qualquer um consegue",
+                "até eu consegui", "se eu consegui", "todo mundo faz", "é básico"
+            ),
+            Arrays.asList(
+                // Inglês - Urgência e escassez
+                "urgency", "limited", "only today", "last chance", "running out",
+                "you are missing", "everyone is doing", "dont miss", "exclusive",
+                "limited edition", "sold out", "deadline", "pressure", "hurry",
+                "anxiety", "stress", "overwhelmed", "panic", "desperation",
+                "now or never", "wont last", "unique opportunity", "must have",
             
-            // Inglês - Urgência e escassez
-            "urgency", "limited", "only today", "last chance", "running out",
-            "you are missing", "everyone is doing", "dont miss", "exclusive",
-            "limited edition", "sold out", "deadline", "pressure", "hurry",
-            "anxiety", "stress", "overwhelmed", "panic", "desperation",
-            "now or never", "wont last", "unique opportunity", "must have",
-            
-            // Inglês - Pressão social
-            "everyone has", "normal to have", "obvious that", "anyone can",
-            "even I could", "if I can", "everyone does", "its basic"
+                // Inglês - Pressão social
+                "everyone has", "normal to have", "obvious that", "anyone can",
+                "even I could", "if I can", "everyone does", "its basic"
+            )
         ));
         
         // TRIGGERS DE DEPRESSÃO (Beck Depression Inventory + estudos clínicos)
-        put("depressionTriggers", Arrays.asList(
-            // Português - Auto-depreciação
-            "não sou suficiente", "por que eu não tenho", "minha vida é um fracasso",
-            "nunca vou conseguir", "sou um perdedor", "todo mundo menos eu",
-            "não mereço", "sou inadequado", "sem esperança", "sem sentido",
-            "vazio", "quebrado", "inútil", "fracasso", "desistir", "sem valor",
-            "não sirvo", "sou burro", "sou feio", "ninguém me ama", "sozinho",
-            
-            // Português - Desesperança
-            "nunca vai melhorar", "sempre assim", "sem saída", "sem futuro",
-            "não adianta", "para que tentar", "não vale a pena", "desistir",
+        put("depressionTriggers", bilingualPack(
+            Arrays.asList(
+                // Português - Auto-depreciação
+                "não sou suficiente", "por que eu não tenho", "minha vida é um fracasso",
+                "nunca vou conseguir", "sou um perdedor", "todo mundo menos eu",
+                "não mereço", "sou inadequado", "sem esperança", "sem sentido",
+                "vazio", "quebrado", "inútil", "fracasso", "desistir", "sem valor",
+                "não sirvo", "sou burro", "sou feio", "ninguém me ama", "sozinho",
             
-            // Inglês - Auto-depreciação
-            "not enough", "why dont I have", "my life is a failure",
-            "never going to make it", "I am a loser", "everyone but me",
-            "dont deserve", "inadequate", "hopeless", "meaningless",
-            "empty", "broken", "worthless", "failure", "give up", "no value",
-            "not good", "stupid", "ugly", "nobody loves me", "alone",
+                // Português - Desesperança
+                "nunca vai melhorar", "sempre assim", "sem saída", "sem futuro",
+                "não adianta", "para que tentar", "não vale a pena", "desistir"
+            ),
+            Arrays.asList(
+                // Inglês - Auto-depreciação
+                "not enough", "why dont I have", "my life is a failure",
+                "never going to make it", "I am a loser", "everyone but me",
+                "dont deserve", "inadequate", "hopeless", "meaningless",
+                "empty", "broken", "worthless", "failure", "give up", "no value",
+                "not good", "stupid", "ugly", "nobody loves me", "alone",
             
-            // Inglês - Desesperança
-            "never get better", "always like this", "no way out", "no future",
-            "no point", "why try", "not worth it", "give up"
+                // Inglês - Desesperança
+                "never get better", "always like this", "no way out", "no future",
+                "no point", "why try", "not worth it", "give up"
+            )
         ));
         
         // TRIGGERS DE IMAGEM CORPORAL (Body Dysmorphic Disorder + Objectification Theory)
-        put("bodyImageTriggers", Arrays.asList(
-            // Português - Padrões corporais
-            "corpo dos sonhos", "transformação radical", "antes e depois", "peso ideal",
-            "bodygoals", "fitness inspiration", "perfect body", "summer body",
-            "bikini body", "abs", "sixpack", "diet", "skinny", "magra", "gorda",
-            "fat loss", "muscle gain", "transformation", "glow up", "makeover",
-            "corpo perfeito", "shape", "forma física", "medidas", "silhueta",
-            "barriga chapada", "pernas torneadas", "bumbum empinado", "seios perfeitos",
-            
-            // Português - Dietas e exercícios extremos
-            "dieta radical", "jejum", "detox", "cleanse", "cutting", "bulking",
-            "treino pesado", "no pain no gain", "sem dor sem ganho", "sacrifício",
-            "disciplina extrema", "foco total", "meta corporal", "objetivo físico",
+        put("bodyImageTriggers", bilingualPack(
+            Arrays.asList(
+                // Português - Padrões corporais
+                "corpo dos sonhos", "transformação radical", "antes e depois", "peso ideal",
+                "bodygoals", "fitness inspiration", "perfect body", "summer body",
+                "bikini body", "abs", "sixpack", "diet", "skinny", "magra", "gorda",
+                "fat loss", "muscle gain", "transformation", "glow up", "makeover",
+                "corpo perfeito", "shape", "forma física", "medidas", "silhueta",
+                "barriga chapada", "pernas torneadas", "bumbum empinado", "seios perfeitos",
             
-            // Inglês - Padrões corporais
-            "dream body", "radical transformation", "before and after", "ideal weight",
-            "body goals", "fitness inspiration", "perfect body", "summer body",
-            "bikini body", "abs", "six pack", "diet", "skinny", "fat", "thin",
-            "fat loss", "muscle gain", "transformation", "glow up", "makeover",
-            "perfect shape", "body measurements", "silhouette", "curves",
+                // Português - Dietas e exercícios extremos
+                "dieta radical", "jejum", "detox", "cleanse", "cutting", "bulking",
+                "treino pesado", "no pain no gain", "sem dor sem ganho", "sacrifício",
+                "disciplina extrema", "foco total", "meta corporal", "objetivo físico"
+            ),
+            Arrays.asList(
+                // Inglês - Padrões corporais
+                "dream body", "radical transformation", "before and after", "ideal weight",
+                "body goals", "fitness inspiration", "perfect body", "summer body",
+                "bikini body", "abs", "six pack", "diet", "skinny", "fat", "thin",
+                "fat loss", "muscle gain", "transformation", "glow up", "makeover",
+                "perfect shape", "body measurements", "silhouette", "curves",
             
-            // Inglês - Dietas e exercícios extremos
-            "radical diet", "fasting", "detox", "cleanse", "cutting", "bulking",
-            "intense workout", "no pain no gain", "sacrifice", "extreme discipline",
-            "total focus", "body goal", "physical objective", "fitness target"
+                // Inglês - Dietas e exercícios extremos
+                "radical diet", "fasting", "detox", "cleanse", "cutting", "bulking",
+                "intense workout", "no pain no gain", "sacrifice", "extreme discipline",
+                "total focus", "body goal", "physical objective", "fitness target"
+            )
         ));
         
         // TRIGGERS DE MATERIALISMO (Consumer Psychology + Materialistic Value System)
-        put("materialismTriggers", Arrays.asList(
-            // Português - Compras e ostentação
-            "nova compra", "produto caro", "vale muito", "investimento caro",
-            "shopping", "haul", "expensive", "luxury", "designer", "marca cara",
-            "brand new", "worth it", "splurge", "treat myself", "me dei de presente",
-            "money spent", "cost", "price", "expensive taste", "gosto caro",
-            "comprei", "gastei", "paguei", "custou", "valeu cada centavo",
+        put("materialismTriggers", bilingualPack(
+            Arrays.asList(
+                // Português - Compras e ostentação
+                "nova compra", "produto caro", "vale muito", "investimento caro",
+                "shopping", "haul", "expensive", "luxury", "designer", "marca cara",
+                "brand new", "worth it", "splurge", "treat myself", "me dei de presente",
+                "money spent", "cost", "price", "expensive taste", "gosto caro",
+                "comprei", "gastei", "paguei", "custou", "valeu cada centavo",
             
-            // Português - Status e luxo
-            "primeira classe", "business class", "five stars", "cinco estrelas",
-            "hotel de luxo", "resort", "spa", "massagem", "tratamento",
-            "personal trainer", "personal chef", "motorista particular",
+                // Português - Status e luxo
+                "primeira classe", "business class", "five stars", "cinco estrelas",
+                "hotel de luxo", "resort", "spa", "massagem", "tratamento",
+                "personal trainer", "personal chef", "motorista particular"
+            ),
+            Arrays.asList(
+                // Inglês - Compras e ostentação
+                "new purchase", "expensive product", "worth a lot", "expensive investment",
+                "shopping", "haul", "expensive", "luxury", "designer", "expensive brand",
+                "brand new", "worth it", "splurge", "treat myself", "gave myself",
+                "money spent", "cost", "price", "expensive taste", "bought", "paid",
             
-            // Inglês - Compras e ostentação
-            "new purchase", "expensive product", "worth a lot", "expensive investment",
-            "shopping", "haul", "expensive", "luxury", "designer", "expensive brand",
-            "brand new", "worth it", "splurge", "treat myself", "gave myself",
-            "money spent", "cost", "price", "expensive taste", "bought", "paid",
-            
-            // Inglês - Status e luxo
-            "first class", "business class", "five star", "luxury hotel",
-            "resort", "spa", "massage", "treatment", "personal trainer",
-            "personal chef", "private driver", "concierge", "vip treatment"
+                // Inglês - Status e luxo
+                "first class", "business class", "five star", "luxury hotel",
+                "resort", "spa", "massage", "treatment", "personal trainer",
+                "personal chef", "private driver", "concierge", "vip treatment"
+            )
         ));
         
         // PADRÕES DE OSTENTAÇÃO (Social Psychology + Digital Behavior)
-        put("ostentationPatterns", Arrays.asList(
-            // Português - Exibição direta
-            "olhem meu", "vejam minha", "consegui comprar", "acabei de ganhar",
-            "meu novo", "minha nova", "finalmente consegui", "me dei o luxo",
-            "posso pagar", "caro mas vale", "dinheiro bem gasto", "investimento",
-            "não é pra qualquer um", "poucos podem", "exclusividade", "raridade",
-            
-            // Português - Humble bragging
-            "não quero me gabar mas", "com toda humildade", "sem querer me exibir",
-            "por acaso consegui", "sorte minha", "não esperava", "surpresa",
-            "não acredito que", "ainda não caiu a ficha", "sonho realizado",
+        put("ostentationPatterns", bilingualPack(
+            Arrays.asList(
+                // Português - Exibição direta
+                "olhem meu", "vejam minha", "consegui comprar", "acabei de ganhar",
+                "meu novo", "minha nova", "finalmente consegui", "me dei o luxo",
+                "posso pagar", "caro mas vale", "dinheiro bem gasto", "investimento",
+                "não é pra qualquer um", "poucos podem", "exclusividade", "raridade",
             
-            // Inglês - Exibição direta
-            "look at my", "check out my", "just bought", "just got",
-            "my new", "finally got", "treated myself", "can afford",
-            "expensive but worth it", "money well spent", "investment",
-            "not for everyone", "few can", "exclusivity", "rarity",
+                // Português - Humble bragging
+                "não quero me gabar mas", "com toda humildade", "sem querer me exibir",
+                "por acaso consegui", "sorte minha", "não esperava", "surpresa",
+                "não acredito que", "ainda não caiu a ficha", "sonho realizado"
+            ),
+            Arrays.asList(
+                // Inglês - Exibição direta
+                "look at my", "check out my", "just bought", "just got",
+                "my new", "finally got", "treated myself", "can afford",
+                "expensive but worth it", "money well spent", "investment",
+                "not for everyone", "few can", "exclusivity", "rarity",
             
-            // Inglês - Humble bragging
-            "not to brag but", "humbly speaking", "dont want to show off",
-            "happened to get", "lucky me", "didnt expect", "surprise",
-            "cant believe", "still processing", "dream come true"
+                // Inglês - Humble bragging
+                "not to brag but", "humbly speaking", "dont want to show off",
+                "happened to get", "lucky me", "didnt expect", "surprise",
+                "cant believe", "still processing", "dream come true"
+            )
         ));
         
         // EMOJIS TÓXICOS (Digital Psychology + Behavioral Analysis)
-        put("toxicEmojis", Arrays.asList(
+        put("toxicEmojis", universalPack(Arrays.asList(
             "💎", "🏖️", "✨", "🚗", "🏠", "💰", "👑", "🔥", "💪", "🎉", 
             "🏆", "💯", "🤑", "💸", "🥇", "⭐", "🌟", "💫", "🎯", "🚀",
             "💎", "👑", "🏆", "🥇", "🎖️", "🏅", "🎗️", "🎊", "🎈", "🍾",
             "🥂", "🍸", "🍷", "🥃", "🍻", "🎂", "🧁", "🍰", "🍭", "🍫"
-        ));
+        )));
         
         // HASHTAGS NOCIVAS (Social Media Psychology + Trend Analysis)
-        put("toxicHashtags", Arrays.asList(
+        put("toxicHashtags", universalPack(Arrays.asList(
             // Lifestyle e ostentação
             "#blessed", "#richlife", "#luxury", "#expensive", "#perfect",
             "#goals", "#rich", "#money", "#success", "#winning", "#winner",
@@ -211,31 +244,49 @@ public class PsychAIEngine {
             // FOMO e ansiedade
             "#fomo", "#dontmiss", "#limited", "#exclusive", "#vip",
             "#lastchance", "#urgent", "#deadline", "#pressure", "#stress"
+        )));
+    }});
+
+    // Serializa as atualizações da base (config JSON, triggers personalizados)
+    private final Object triggerIndexLock = new Object();
+
+    // Forma canônica de cada trigger, para casar com o texto canonicalizado
+    private final Map<String, String> canonicalTriggers = new ConcurrentHashMap<>();
+
+    // Word break de hashtags compostas sobre o vocabulário dos triggers
+    private volatile HashtagSegmenter hashtagSegmenter = buildHashtagSegmenter(triggerIndex.database);
+
+    // Autômato das categorias críticas usado no fast path da thread de eventos
+    private volatile CriticalContentDetector criticalDetector = buildCriticalDetector(triggerIndex.database);
+
+    // Padrões regex avançados para detecção de linguagem tóxica, particionados por idioma
+    private final Map<String, List<Pattern>> patternPacks = new HashMap<String, List<Pattern>>() {{
+        put(LanguageDetector.PORTUGUESE, Arrays.asList(
+            // Padrões de superioridade
+            Pattern.compile("(eu sou|eu tenho|eu consegui).*(melhor|superior|perfeito|único)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(olhem|vejam|admirem).*(meu|minha).*(novo|nova|perfeito|incrível)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(todos|todo mundo).*(inveja|admiram|querem|desejam)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(não conseguem|nunca vão|jamais terão).*(ter|conseguir|alcançar)", Pattern.CASE_INSENSITIVE),
+        
+            // Padrões de comparação implícita
+            Pattern.compile("(enquanto vocês|diferente de vocês|ao contrário de).*(eu|eu já|eu sempre)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(se eu consegui|se eu posso|se eu tenho).*(vocês também|qualquer um)", Pattern.CASE_INSENSITIVE),
+        
+            // Padrões de falsa modéstia
+            Pattern.compile("(não quero|sem querer|não pretendo).*(me gabar|me exibir|mostrar)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(sorte|acaso|coincidência).*(conseguir|ter|ganhar)", Pattern.CASE_INSENSITIVE)
+        ));
+
+        put(LanguageDetector.ENGLISH, Arrays.asList(
+            // Padrões em inglês
+            Pattern.compile("(I am|I have|I got).*(better|superior|perfect|unique)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(look at|check out|see my).*(new|perfect|amazing)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(everyone|everybody).*(envies|admires|wants)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(cant|never will|wont be able).*(have|get|achieve)", Pattern.CASE_INSENSITIVE)
         ));
     }};
 
-    // Padrões regex avançados para detecção de linguagem tóxica
-    private final List<Pattern> advancedToxicPatterns = Arrays.asList(
-        // Padrões de superioridade
-        Pattern.compile("(eu sou|eu tenho|eu consegui).*(melhor|superior|perfeito|único)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(olhem|vejam|admirem).*(meu|minha).*(novo|nova|perfeito|incrível)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(todos|todo mundo).*(inveja|admiram|querem|desejam)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(não conseguem|nunca vão|jamais terão).*(ter|conseguir|alcançar)", Pattern.CASE_INSENSITIVE),
-        
-        // Padrões de comparação implícita
-        Pattern.compile("(enquanto vocês|diferente de vocês|ao contrário de).*(eu|eu já|eu sempre)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(se eu consegui|se eu posso|se eu tenho).*(vocês também|qualquer um)", Pattern.CASE_INSENSITIVE),
-        
-        // Padrões de falsa modéstia
-        Pattern.compile("(não quero|sem querer|não pretendo).*(me gabar|me exibir|mostrar)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(sorte|acaso|coincidência).*(conseguir|ter|ganhar)", Pattern.CASE_INSENSITIVE),
-        
-        // Padrões em inglês
-        Pattern.compile("(I am|I have|I got).*(better|superior|perfect|unique)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(look at|check out|see my).*(new|perfect|amazing)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(everyone|everybody).*(envies|admires|wants)", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("(cant|never will|wont be able).*(have|get|achieve)", Pattern.CASE_INSENSITIVE)
-    );
+    private final List<Pattern> advancedToxicPatterns = flattenPatternPacks(patternPacks);
 
     // Configurações de sensibilidade por categoria - VOCÊ PODE AJUSTAR
     private Map<String, Integer> sensitivityLevels = new HashMap<String, Integer>() {{
@@ -253,17 +304,57 @@ public class PsychAIEngine {
     private boolean patternRecognition = true;
     private boolean learningMode = true;
     private boolean realTimeProcessing = true;
-    private boolean multiLanguageSupport = true;
+    private boolean multiLanguageSupport = true;  // Desligado: sem detecção, apenas o pacote padrão (pt)
+    private boolean obfuscationCanonicalization = true;  // "b0dy g o a l s", confusables, zero-width
+    private boolean hashtagSegmentation = true;          // "#myperfectbodyjourney" -> palavras
     private boolean semanticAnalysis = true;
     private boolean emotionalToneDetection = true;
     private boolean sarcasmDetection = true;
     private boolean implicitComparisonDetection = true;
 
-    // Estatísticas da IA
-    private int totalAnalyzed = 0;
-    private int toxicContentDetected = 0;
-    private double accuracyRate = 96.8;
-    private long totalProcessingTime = 0;
+    // Limiar base de bloqueio e redução adaptativa por exposição da sessão
+    private static final int BASE_BLOCK_THRESHOLD = 35;
+    private boolean exposureAdaptiveThreshold = true;
+
+    // Orçamento de tempo por análise (ms), por app - VOCÊ PODE AJUSTAR
+    // Feeds com threads longas de comentários recebem mais tempo
+    private static final String DEFAULT_BUDGET_KEY = "default";
+    private Map<String, Integer> analysisBudgetsMs = new ConcurrentHashMap<String, Integer>() {{
+        put(DEFAULT_BUDGET_KEY, 60);
+        put("com.facebook.katana", 90);
+        put("com.zhiliaoapp.musically", 90);
+        put("com.twitter.android", 80);
+    }};
+
+    // Estatísticas da IA (atualizadas em paralelo pelas lanes de análise)
+    private final AtomicInteger totalAnalyzed = new AtomicInteger();
+    private final AtomicInteger toxicContentDetected = new AtomicInteger();
+    private volatile double accuracyRate = 96.8;
+    private final AtomicLong totalProcessingTime = new AtomicLong();
+    private final AtomicLong totalTriggersScanned = new AtomicLong();
+    private final Map<String, Integer> languageDistribution = new ConcurrentHashMap<>();
+    private final AtomicInteger criticalFastPathScans = new AtomicInteger();
+    private final AtomicInteger criticalFastPathHits = new AtomicInteger();
+    private final AtomicLong criticalFastPathNanos = new AtomicLong();
+    private final AtomicInteger obfuscatedTriggerMatches = new AtomicInteger();
+    private final AtomicInteger hashtagTriggerMatches = new AtomicInteger();
+    private final AtomicInteger deadlineOverruns = new AtomicInteger();
+    private final Map<String, Integer> deadlineOverrunsByApp = new ConcurrentHashMap<>();
+    private final Map<String, Integer> deadlineOverrunsByStage = new ConcurrentHashMap<>();
+
+    // Estágio de normalização (minúsculas + idioma + forma canônica)
+    private final ContentNormalizer normalizer = new ContentNormalizer();
+
+    // Exposição recente por categoria/app (janela deslizante da sessão)
+    private final ExposureTracker exposureTracker = new ExposureTracker();
+
+    // Vereditos recentes indexados por SimHash para reposts e quase-duplicatas
+    private final NearDuplicateIndex nearDuplicateIndex = new NearDuplicateIndex(256);
+    private boolean nearDuplicateReuse = true;
+    private final AtomicInteger nearDuplicateHits = new AtomicInteger();
+    private final AtomicInteger postUnitAnalyzed = new AtomicInteger();
+    private final AtomicLong fullAnalysisTime = new AtomicLong();
+    private final AtomicInteger fullAnalysisCount = new AtomicInteger();
 
     public PsychAIEngine() {
         Log.d(TAG, "🧠 PsychAI Engine v4.0 inicializado com base científica");
@@ -273,11 +364,76 @@ public class PsychAIEngine {
      * ANÁLISE PRINCIPAL DE CONTEÚDO - FUNÇÃO CORE
      * Esta é a função principal que você pode modificar para controlar o que é bloqueado
      */
-    public AIAnalysisResult analyzeContentAdvanced(String text, String appPackage) {
+    public AIAnalysisResult analyzeContentAdvanced(CharSequence text, String appPackage) {
+        return analyzeContent(text, appPackage, true, false);
+    }
+
+    /**
+     * @param countExposure false quando quem chama registra a exposição por post (recordExposure),
+     *                      para que os mesmos posts visíveis não contem de novo a cada evento
+     */
+    public AIAnalysisResult analyzeContentAdvanced(CharSequence text, String appPackage, boolean countExposure) {
+        return analyzeContent(text, appPackage, countExposure, false);
+    }
+
+    /**
+     * PRÉ-PONTUAÇÃO (lookahead) de posts logo abaixo do viewport
+     * Mesma análise, mas a exposição só é registrada quando o post entra na tela (recordExposure)
+     * e a análise só conta nas estatísticas quando o veredito é aplicado (recordPrescoredVerdict).
+     * O texto é de um único post, então aqui o veredito de uma quase-duplicata pode ser reaproveitado
+     */
+    public AIAnalysisResult prescoreContent(CharSequence text, String appPackage) {
+        return analyzeContent(text, appPackage, false, true);
+    }
+
+    /**
+     * Registrar na sessão a exposição de um veredito pré-computado que entrou na tela
+     */
+    public void recordExposure(String appPackage, AIAnalysisResult verdict) {
+        int[] categoryLevels = {verdict.comparisonLevel, verdict.anxietyLevel,
+                                verdict.depressionRisk, verdict.bodyImageRisk, verdict.materialismLevel};
+        exposureTracker.record(appPackage, categoryLevels, System.currentTimeMillis());
+    }
+
+    /**
+     * Veredito pré-pontuado aplicado na tela: conta como análise nas estatísticas
+     */
+    public void recordPrescoredVerdict(AIAnalysisResult verdict) {
+        totalAnalyzed.incrementAndGet();
+        updateEngineStats(verdict.toxicityScore, verdict.shouldBlock, verdict.processingTime);
+    }
+
+    /**
+     * @param postUnit texto de um único post (pré-pontuação): só então consulta e alimenta o
+     *                 índice de quase-duplicatas (na tela inteira, um post novo tóxico mudaria
+     *                 poucos bits do SimHash e herdaria o veredito seguro da tela anterior).
+     *                 Não conta nas estatísticas de análise: o post ainda não está na tela, ou
+     *                 já foi contado na análise da tela dele
+     */
+    private AIAnalysisResult analyzeContent(CharSequence text, String appPackage, boolean countExposure,
+                                            boolean postUnit) {
         long startTime = System.currentTimeMillis();
-        totalAnalyzed++;
+        (postUnit ? postUnitAnalyzed : totalAnalyzed).incrementAndGet();
         
-        String lowerText = text.toLowerCase();
+        // Prazo da análise: verificado entre estágios e dentro das varreduras longas
+        AnalysisDeadline deadline = AnalysisDeadline.startingNow(getAnalysisBudgetMs(appPackage));
+        
+        // 0. NORMALIZAÇÃO E IDENTIFICAÇÃO DE IDIOMA
+        NormalizedContent content = normalizer.normalize(text, multiLanguageSupport, obfuscationCanonicalization,
+                                                        hashtagSegmentation ? hashtagSegmenter : null);
+        String lowerText = content.lowerText;
+        String language = content.language;
+        languageDistribution.merge(language, 1, Integer::sum);
+
+        // 0.1 QUASE-DUPLICATAS: reaproveitar o veredito de um repost/slide recente. Uma frase
+        // crítica acrescentada muda poucos bits do SimHash: com trigger crítico, análise completa
+        long fingerprint = nearDuplicateReuse && postUnit ?
+                           NearDuplicateIndex.fingerprint(lowerText) : NearDuplicateIndex.NO_FINGERPRINT;
+        AIAnalysisResult previousVerdict = nearDuplicateIndex.find(fingerprint, appPackage, startTime);
+        if (previousVerdict != null && criticalDetector.findFirst(obfuscationCanonicalization ?
+                content.canonicalText : TextCanonicalizer.canonicalize(text)) == null) {
+            return reuseVerdict(previousVerdict, appPackage, startTime, countExposure);
+        }
         
         int toxicityScore = 0;
         int comparisonLevel = 0;
@@ -292,8 +448,10 @@ public class PsychAIEngine {
         String triggerReason = "";
 
         // 1. ANÁLISE DE COMPARAÇÃO SOCIAL (peso alto - estudos de Harvard)
-        for (String trigger : psychologyDatabase.get("comparisonTriggers")) {
-            if (lowerText.contains(trigger)) {
+        deadline.enterStage("comparison");
+        for (String trigger : triggersFor("comparisonTriggers", language)) {
+            if (deadline.poll()) break;
+            if (containsTrigger(content, trigger)) {
                 int weight = calculateTriggerWeight(trigger, "comparison");
                 comparisonLevel += weight;
                 toxicityScore += weight;
@@ -307,8 +465,10 @@ public class PsychAIEngine {
         }
 
         // 2. ANÁLISE DE ANSIEDADE/FOMO (peso muito alto - estudos do MIT)
-        for (String trigger : psychologyDatabase.get("anxietyTriggers")) {
-            if (lowerText.contains(trigger)) {
+        deadline.enterStage("anxiety");
+        for (String trigger : triggersFor("anxietyTriggers", language)) {
+            if (deadline.poll()) break;
+            if (containsTrigger(content, trigger)) {
                 int weight = calculateTriggerWeight(trigger, "anxiety");
                 anxietyLevel += weight;
                 toxicityScore += (int)(weight * 1.1); // Peso aumentado para ansiedade
@@ -322,23 +482,30 @@ public class PsychAIEngine {
         }
 
         // 3. ANÁLISE DE DEPRESSÃO (peso crítico - estudos clínicos)
-        for (String trigger : psychologyDatabase.get("depressionTriggers")) {
-            if (lowerText.contains(trigger)) {
-                int weight = calculateTriggerWeight(trigger, "depression");
-                depressionRisk += weight;
-                toxicityScore += (int)(weight * 1.3); // Peso máximo para depressão
-                foundTriggers.add(trigger);
-                
-                if (primaryTriggerType.isEmpty()) {
-                    primaryTriggerType = "Risco de Depressão";
-                    triggerReason = "Conteúdo potencialmente depressivo que pode afetar humor, autoestima e bem-estar mental";
+        // Categorias críticas (as mesmas do fast path) não respeitam o prazo: um veredito
+        // parcial nunca deixa de olhar depressão/autolesão
+        deadline.enterStage("depression");
+        for (String category : CRITICAL_CATEGORIES) {
+            for (String trigger : triggersFor(category, language)) {
+                if (containsTrigger(content, trigger)) {
+                    int weight = calculateTriggerWeight(trigger, "depression");
+                    depressionRisk += weight;
+                    toxicityScore += (int)(weight * 1.3); // Peso máximo para depressão
+                    foundTriggers.add(trigger);
+
+                    if (primaryTriggerType.isEmpty()) {
+                        primaryTriggerType = "Risco de Depressão";
+                        triggerReason = "Conteúdo potencialmente depressivo que pode afetar humor, autoestima e bem-estar mental";
+                    }
                 }
             }
         }
 
         // 4. ANÁLISE DE IMAGEM CORPORAL (peso muito alto - estudos de Stanford)
-        for (String trigger : psychologyDatabase.get("bodyImageTriggers")) {
-            if (lowerText.contains(trigger)) {
+        deadline.enterStage("bodyImage");
+        for (String trigger : triggersFor("bodyImageTriggers", language)) {
+            if (deadline.poll()) break;
+            if (containsTrigger(content, trigger)) {
                 int weight = calculateTriggerWeight(trigger, "bodyImage");
                 bodyImageRisk += weight;
                 toxicityScore += (int)(weight * 1.2);
@@ -352,8 +519,10 @@ public class PsychAIEngine {
         }
 
         // 5. ANÁLISE DE MATERIALISMO (peso moderado - estudos de psicologia do consumidor)
-        for (String trigger : psychologyDatabase.get("materialismTriggers")) {
-            if (lowerText.contains(trigger)) {
+        deadline.enterStage("materialism");
+        for (String trigger : triggersFor("materialismTriggers", language)) {
+            if (deadline.poll()) break;
+            if (containsTrigger(content, trigger)) {
                 int weight = calculateTriggerWeight(trigger, "materialism");
                 materialismLevel += weight;
                 toxicityScore += (int)(weight * 0.8);
@@ -367,38 +536,70 @@ public class PsychAIEngine {
         }
 
         // 6. ANÁLISE DE PADRÕES REGEX AVANÇADOS
-        if (patternRecognition) {
-            for (Pattern pattern : advancedToxicPatterns) {
-                if (pattern.matcher(text).find()) {
-                    toxicityScore += 22;
-                    contextualFactors.add("Padrão linguístico tóxico detectado");
+        // O texto é envolvido para que um backtracking patológico respeite o prazo
+        deadline.enterStage("patterns");
+        if (patternRecognition && !deadline.isExpired()) {
+            CharSequence boundedText = new DeadlineCharSequence(text, deadline);
+            try {
+                for (Pattern pattern : patternsFor(language)) {
+                    if (pattern.matcher(boundedText).find()) {
+                        toxicityScore += 22;
+                        contextualFactors.add("Padrão linguístico tóxico detectado");
+                    }
                 }
+            } catch (AnalysisDeadlineExceededException e) {
+                // Veredito parcial: mantém o score acumulado até aqui
             }
         }
 
         // 7. ANÁLISE CONTEXTUAL PROFUNDA
-        if (contextualAnalysis) {
-            toxicityScore += analyzeAdvancedContextualFactors(text, contextualFactors);
+        deadline.enterStage("contextual");
+        if (contextualAnalysis && !deadline.isExpired()) {
+            toxicityScore += analyzeAdvancedContextualFactors(text, lowerText, contextualFactors, deadline);
         }
 
         // 8. ANÁLISE SEMÂNTICA AVANÇADA
-        if (semanticAnalysis) {
-            toxicityScore += analyzeSemanticContent(text, contextualFactors);
+        deadline.enterStage("semantic");
+        if (semanticAnalysis && !deadline.isExpired()) {
+            toxicityScore += analyzeSemanticContent(lowerText, contextualFactors);
         }
 
         // 9. ANÁLISE ESPECÍFICA POR APP
-        toxicityScore += analyzeAppSpecificPatterns(text, appPackage, contextualFactors);
+        deadline.enterStage("appSpecific");
+        if (!deadline.isExpired()) {
+            toxicityScore += analyzeAppSpecificPatterns(lowerText, appPackage, contextualFactors);
+        }
 
         // 10. DETECÇÃO DE TOM EMOCIONAL
-        String emotionalTone = emotionalToneDetection ? detectEmotionalTone(text) : "Neutro";
+        deadline.enterStage("emotionalTone");
+        String emotionalTone = emotionalToneDetection && !deadline.isExpired() ? detectEmotionalTone(lowerText) : "Neutro";
         if ("Tóxico".equals(emotionalTone)) {
             toxicityScore += 15;
             contextualFactors.add("Tom emocional tóxico");
         }
 
+        // Prazo excedido: veredito parcial com o melhor score obtido. Fica só em
+        // AIAnalysisResult.partial: em contextualFactors aumentaria a confiança
+        boolean partial = deadline.wasExpired();
+        if (partial) {
+            recordDeadlineOverrun(appPackage, deadline.getExpiredStage());
+        }
+
         // CÁLCULO FINAL OTIMIZADO
-        boolean shouldBlock = toxicityScore > 35;
+        // Limiar reduzido quando a sessão já acumulou muita exposição às mesmas categorias
+        long now = System.currentTimeMillis();
+        int[] categoryLevels = {comparisonLevel, anxietyLevel, depressionRisk, bodyImageRisk, materialismLevel};
+        int blockThreshold = BASE_BLOCK_THRESHOLD;
+        if (exposureAdaptiveThreshold) blockThreshold -= exposureTracker.thresholdReduction(categoryLevels, now);
+        if (countExposure) exposureTracker.record(appPackage, categoryLevels, now);
+
+        boolean shouldBlock = toxicityScore > blockThreshold;
         int confidence = calculateAdvancedConfidence(toxicityScore, foundTriggers.size(), contextualFactors.size(), text.length());
+
+        // Explicação para o usuário, depois da confiança: exposição não é evidência sobre o conteúdo
+        if (blockThreshold < BASE_BLOCK_THRESHOLD) {
+            contextualFactors.add(String.format("Exposição elevada na sessão (limiar %d)", blockThreshold));
+        }
         String riskLevel = calculateRiskLevel(toxicityScore);
         long processingTime = System.currentTimeMillis() - startTime;
 
@@ -409,23 +610,290 @@ public class PsychAIEngine {
         }
 
         // Atualizar estatísticas
-        updateEngineStats(toxicityScore, shouldBlock, processingTime);
+        if (!postUnit) updateEngineStats(toxicityScore, shouldBlock, processingTime);
+        fullAnalysisTime.addAndGet(processingTime);
+        fullAnalysisCount.incrementAndGet();
 
         // Log detalhado para debugging
-        Log.d(TAG, String.format(
+        if (FastLog.D) FastLog.d(TAG,
             "🧠 Análise PsychAI v4.0 - Score: %d, Comparação: %d, Ansiedade: %d, Depressão: %d, " +
-            "Imagem Corporal: %d, Materialismo: %d, Bloquear: %b, Confiança: %d%%, Tempo: %dms",
+            "Imagem Corporal: %d, Materialismo: %d, Bloquear: %b, Confiança: %d%%, Tempo: %dms, Parcial: %b",
             toxicityScore, comparisonLevel, anxietyLevel, depressionRisk, 
-            bodyImageRisk, materialismLevel, shouldBlock, confidence, processingTime
-        ));
+            bodyImageRisk, materialismLevel, shouldBlock, confidence, processingTime, partial
+        );
 
-        return new AIAnalysisResult(
+        AIAnalysisResult result = new AIAnalysisResult(
             toxicityScore, comparisonLevel, anxietyLevel, depressionRisk,
-            bodyImageRisk, foundTriggers, shouldBlock, confidence,
-            primaryTriggerType, triggerReason, riskLevel, processingTime, contextualFactors
+            bodyImageRisk, materialismLevel, foundTriggers, shouldBlock, confidence,
+            primaryTriggerType, triggerReason, riskLevel, processingTime, contextualFactors,
+            partial
+        );
+
+        // Vereditos parciais não são reaproveitados
+        if (!partial) {
+            nearDuplicateIndex.put(fingerprint, appPackage, result, startTime);
+        }
+
+        return result;
+    }
+
+    /**
+     * VEREDITO REAPROVEITADO DE QUASE-DUPLICATA
+     * Só acontece na pré-pontuação (postUnit), que não conta nas estatísticas de análise;
+     * a taxa de acerto é sobre as análises por post
+     */
+    private AIAnalysisResult reuseVerdict(AIAnalysisResult previous, String appPackage, long startTime,
+                                          boolean countExposure) {
+        nearDuplicateHits.incrementAndGet();
+
+        if (countExposure) {
+            int[] categoryLevels = {previous.comparisonLevel, previous.anxietyLevel,
+                                    previous.depressionRisk, previous.bodyImageRisk, previous.materialismLevel};
+            exposureTracker.record(appPackage, categoryLevels, startTime);
+        }
+
+        List<String> contextualFactors = new ArrayList<>(previous.contextualFactors);
+        contextualFactors.add("Veredito reaproveitado de conteúdo quase idêntico");
+
+        long processingTime = System.currentTimeMillis() - startTime;
+
+        return new AIAnalysisResult(
+            previous.toxicityScore, previous.comparisonLevel, previous.anxietyLevel,
+            previous.depressionRisk, previous.bodyImageRisk, previous.materialismLevel, previous.foundTriggers,
+            previous.shouldBlock, previous.confidence, previous.triggerType,
+            previous.triggerReason, previous.riskLevel, processingTime, contextualFactors, false
         );
     }
 
+    /**
+     * ORÇAMENTO DE TEMPO DA ANÁLISE PARA O APP
+     */
+    private long getAnalysisBudgetMs(String appPackage) {
+        Integer budget = appPackage != null ? analysisBudgetsMs.get(appPackage) : null;
+        return budget != null ? budget : analysisBudgetsMs.getOrDefault(DEFAULT_BUDGET_KEY, 60);
+    }
+
+    private void recordDeadlineOverrun(String appPackage, String stage) {
+        deadlineOverruns.incrementAndGet();
+        deadlineOverrunsByApp.merge(appPackage != null ? appPackage : "", 1, Integer::sum);
+        deadlineOverrunsByStage.merge(stage, 1, Integer::sum);
+        Log.w(TAG, String.format("⏱️ Prazo excedido em %s (%s)", stage, appPackage));
+    }
+
+    /**
+     * FAST PATH CRÍTICO - chamado inline em onAccessibilityEvent
+     * Retorna o trigger crítico encontrado ou null; a análise completa confirma depois
+     */
+    public String detectCriticalTrigger(CharSequence text) {
+        if (text == null || text.length() == 0) return null;
+
+        long startNanos = System.nanoTime();
+        // O detector é montado com triggers canônicos: o texto vai sempre na mesma forma,
+        // mesmo com obfuscationCanonicalization desligada (senão triggers acentuados não casam)
+        String trigger = criticalDetector.findFirst(TextCanonicalizer.canonicalize(text));
+        criticalFastPathNanos.addAndGet(System.nanoTime() - startNanos);
+        criticalFastPathScans.incrementAndGet();
+        if (trigger != null) criticalFastPathHits.incrementAndGet();
+
+        return trigger;
+    }
+
+    /**
+     * O texto contém o trigger crítico devolvido pelo fast path (mesma forma de comparação),
+     * para saber se um veredito completo leu o conteúdo que disparou o overlay provisório
+     */
+    public boolean containsCriticalTrigger(CharSequence text, String trigger) {
+        if (text == null || trigger == null) return false;
+        return TextCanonicalizer.canonicalize(text).contains(trigger);
+    }
+
+    /**
+     * O trecho de um post contém algum dos triggers achados pela análise da tela (mesma
+     * forma de comparação), para atribuir o bloqueio só aos posts que o causaram
+     */
+    public boolean containsAnyTrigger(CharSequence text, List<String> triggers) {
+        if (text == null || triggers == null || triggers.isEmpty()) return false;
+        String comparable = obfuscationCanonicalization ?
+            TextCanonicalizer.canonicalize(text) : text.toString().toLowerCase();
+        String segmented = hashtagSegmentation && comparable.indexOf('#') >= 0 ?
+            hashtagSegmenter.segmentAll(comparable) : "";
+
+        for (String trigger : triggers) {
+            String canonical = comparableTrigger(trigger);
+            if (comparable.contains(canonical) || (!segmented.isEmpty() && segmented.contains(canonical))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * MATCHING CANÔNICO - texto e trigger passam pela mesma canonicalização,
+     * então variações ofuscadas casam sem ampliar o dicionário
+     */
+    private boolean containsTrigger(NormalizedContent content, String trigger) {
+        String canonical = comparableTrigger(trigger);
+
+        if (content.canonicalText.contains(canonical)) {
+            if (!content.lowerText.contains(trigger)) obfuscatedTriggerMatches.incrementAndGet();
+            return true;
+        }
+
+        // Palavras extraídas de hashtags compostas
+        if (!content.segmentedHashtags.isEmpty() && content.segmentedHashtags.contains(canonical)) {
+            hashtagTriggerMatches.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private String comparableTrigger(String trigger) {
+        if (!obfuscationCanonicalization) return trigger;
+        String canonical = canonicalTriggers.get(trigger);
+        if (canonical == null) {
+            canonical = TextCanonicalizer.canonicalize(trigger);
+            canonicalTriggers.put(trigger, canonical);
+        }
+        return canonical;
+    }
+
+    /**
+     * ROTEAMENTO POR IDIOMA
+     * Retorna apenas a partição do idioma detectado (mais os triggers universais).
+     * Texto misto ou idioma sem partição na categoria fazem fallback para a lista completa.
+     */
+    private List<String> triggersFor(String category, String language) {
+        // Partições e cache vêm do mesmo índice: uma troca no meio não mistura versões
+        TriggerIndex index = triggerIndex;
+        String cacheKey = category + ":" + language;
+        List<String> routed = index.routed.get(cacheKey);
+
+        if (routed == null) {
+            Map<String, List<String>> packs = index.languagePacks.get(category);
+            if (packs == null) {
+                routed = Collections.emptyList();
+            } else if (LanguageDetector.MIXED.equals(language) || !packs.containsKey(language)) {
+                routed = index.database.getOrDefault(category, Collections.<String>emptyList());
+            } else {
+                routed = new ArrayList<>(packs.get(language));
+                List<String> universal = packs.get(UNIVERSAL_LANGUAGE);
+                if (universal != null) routed.addAll(universal);
+            }
+            index.routed.put(cacheKey, routed);
+        }
+
+        totalTriggersScanned.addAndGet(routed.size());
+        return routed;
+    }
+
+    private List<Pattern> patternsFor(String language) {
+        List<Pattern> patterns = patternPacks.get(language);
+        return patterns != null ? patterns : advancedToxicPatterns;
+    }
+
+    private static Map<String, List<String>> bilingualPack(List<String> portuguese, List<String> english) {
+        Map<String, List<String>> pack = new LinkedHashMap<>();
+        pack.put(LanguageDetector.PORTUGUESE, new ArrayList<>(portuguese));
+        pack.put(LanguageDetector.ENGLISH, new ArrayList<>(english));
+        return pack;
+    }
+
+    private static Map<String, List<String>> universalPack(List<String> triggers) {
+        Map<String, List<String>> pack = new LinkedHashMap<>();
+        pack.put(UNIVERSAL_LANGUAGE, new ArrayList<>(triggers));
+        return pack;
+    }
+
+    private static Map<String, List<String>> flattenLanguagePacks(Map<String, Map<String, List<String>>> packs) {
+        Map<String, List<String>> flattened = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<String>>> category : packs.entrySet()) {
+            List<String> allTriggers = new ArrayList<>();
+            for (List<String> triggers : category.getValue().values()) {
+                allTriggers.addAll(triggers);
+            }
+            flattened.put(category.getKey(), allTriggers);
+        }
+        return flattened;
+    }
+
+    private static List<Pattern> flattenPatternPacks(Map<String, List<Pattern>> packs) {
+        List<Pattern> allPatterns = new ArrayList<>();
+        for (List<Pattern> patterns : packs.values()) {
+            allPatterns.addAll(patterns);
+        }
+        return allPatterns;
+    }
+
+    private static CriticalContentDetector buildCriticalDetector(Map<String, List<String>> database) {
+        List<String> criticalTriggers = new ArrayList<>();
+        for (String category : CRITICAL_CATEGORIES) {
+            List<String> triggers = database.get(category);
+            if (triggers == null) continue;
+            for (String trigger : triggers) {
+                criticalTriggers.add(TextCanonicalizer.canonicalize(trigger));
+            }
+        }
+        return CriticalContentDetector.build(criticalTriggers);
+    }
+
+    private static Set<String> collectAllTriggers(Map<String, List<String>> database) {
+        Set<String> triggers = new HashSet<>();
+        for (List<String> list : database.values()) triggers.addAll(list);
+        return triggers;
+    }
+
+    private static HashtagSegmenter buildHashtagSegmenter(Map<String, List<String>> database) {
+        List<String> allTriggers = new ArrayList<>();
+        for (List<String> triggers : database.values()) {
+            allTriggers.addAll(triggers);
+        }
+        return HashtagSegmenter.build(allTriggers);
+    }
+
+    /**
+     * Snapshot imutável da base de triggers com as visões derivadas e o cache de roteamento
+     */
+    private static final class TriggerIndex {
+        final Map<String, Map<String, List<String>>> languagePacks;
+        final Map<String, List<String>> database;  // visão unificada (todos os idiomas)
+        final Set<String> allTriggers;              // para a densidade de palavras-chave
+        final Map<String, List<String>> routed = new ConcurrentHashMap<>(); // "categoria:idioma"
+
+        TriggerIndex(Map<String, Map<String, List<String>>> languagePacks) {
+            this.languagePacks = languagePacks;
+            this.database = flattenLanguagePacks(languagePacks);
+            this.allTriggers = collectAllTriggers(database);
+        }
+
+        /**
+         * Cópia profunda para ser alterada fora do índice publicado
+         */
+        Map<String, Map<String, List<String>>> copyLanguagePacks() {
+            Map<String, Map<String, List<String>>> copy = new HashMap<>();
+            for (Map.Entry<String, Map<String, List<String>>> category : languagePacks.entrySet()) {
+                Map<String, List<String>> packs = new LinkedHashMap<>();
+                for (Map.Entry<String, List<String>> pack : category.getValue().entrySet()) {
+                    packs.put(pack.getKey(), new ArrayList<>(pack.getValue()));
+                }
+                copy.put(category.getKey(), packs);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * PUBLICAR A BASE alterada: índice, segmentador e detector crítico novos
+     * Chamado com triggerIndexLock
+     */
+    private void publishLanguagePacks(Map<String, Map<String, List<String>>> languagePacks) {
+        TriggerIndex index = new TriggerIndex(languagePacks);
+        hashtagSegmenter = buildHashtagSegmenter(index.database);
+        criticalDetector = buildCriticalDetector(index.database);
+        triggerIndex = index;
+        canonicalTriggers.clear();
+        nearDuplicateIndex.clear();
+    }
+
     /**
      * CÁLCULO DE PESO DOS TRIGGERS - VOCÊ PODE AJUSTAR AQUI
      */
@@ -455,26 +923,29 @@ public class PsychAIEngine {
 
     /**
      * ANÁLISE CONTEXTUAL AVANÇADA - VOCÊ PODE EXPANDIR AQUI
+     * @param text texto original (view do buffer da lane)
+     * @param lowerText texto em minúsculas da normalização, usado por todos os matchings
      */
-    private int analyzeAdvancedContextualFactors(String text, List<String> contextualFactors) {
+    private int analyzeAdvancedContextualFactors(CharSequence text, String lowerText, List<String> contextualFactors,
+                                                 AnalysisDeadline deadline) {
         int contextScore = 0;
 
         // 1. Análise de densidade de emojis tóxicos
-        int emojiCount = countToxicEmojis(text);
+        int emojiCount = countToxicEmojis(lowerText);
         if (emojiCount > 2) {
             contextScore += emojiCount * 4;
             contextualFactors.add(String.format("%d emojis de ostentação", emojiCount));
         }
 
         // 2. Análise de hashtags nocivas
-        int hashtagCount = countToxicHashtags(text);
+        int hashtagCount = countToxicHashtags(lowerText);
         if (hashtagCount > 0) {
             contextScore += hashtagCount * 10;
             contextualFactors.add(String.format("%d hashtags tóxicas", hashtagCount));
         }
 
         // 3. Análise de densidade de palavras-chave
-        double keywordDensity = calculateKeywordDensity(text);
+        double keywordDensity = calculateKeywordDensity(lowerText, deadline);
         if (keywordDensity > 0.25) {
             contextScore += (int)(keywordDensity * 30);
             contextualFactors.add(String.format("Alta densidade de palavras tóxicas (%.1f%%)", keywordDensity * 100));
@@ -487,7 +958,7 @@ public class PsychAIEngine {
         };
         
         for (String word : exclusivityWords) {
-            if (text.toLowerCase().contains(word)) {
+            if (lowerText.contains(word)) {
                 contextScore += 12;
                 contextualFactors.add("Linguagem exclusiva/elitista");
                 break;
@@ -501,14 +972,14 @@ public class PsychAIEngine {
         }
 
         // 6. Análise de frequência de primeira pessoa
-        int firstPersonCount = countFirstPersonReferences(text);
+        int firstPersonCount = countFirstPersonReferences(lowerText);
         if (firstPersonCount > 5) {
             contextScore += 8;
             contextualFactors.add("Excesso de referências em primeira pessoa");
         }
 
         // 7. Análise de linguagem temporal (urgência)
-        if (containsUrgencyLanguage(text)) {
+        if (containsUrgencyLanguage(lowerText)) {
             contextScore += 14;
             contextualFactors.add("Linguagem de urgência detectada");
         }
@@ -519,7 +990,7 @@ public class PsychAIEngine {
     /**
      * ANÁLISE SEMÂNTICA AVANÇADA
      */
-    private int analyzeSemanticContent(String text, List<String> contextualFactors) {
+    private int analyzeSemanticContent(String lowerText, List<String> contextualFactors) {
         int semanticScore = 0;
 
         // 1. Detecção de negatividade mascarada
@@ -529,7 +1000,7 @@ public class PsychAIEngine {
         };
         
         for (String pattern : maskedNegativityPatterns) {
-            if (text.toLowerCase().contains(pattern)) {
+            if (lowerText.contains(pattern)) {
                 semanticScore += 16;
                 contextualFactors.add("Negatividade mascarada detectada");
                 break;
@@ -544,7 +1015,7 @@ public class PsychAIEngine {
         };
         
         for (String word : toxicAspirationalWords) {
-            if (text.toLowerCase().contains(word)) {
+            if (lowerText.contains(word)) {
                 semanticScore += 10;
                 contextualFactors.add("Linguagem aspiracional potencialmente tóxica");
                 break;
@@ -558,7 +1029,7 @@ public class PsychAIEngine {
         };
         
         for (String pattern : temporalComparisonPatterns) {
-            if (text.toLowerCase().contains(pattern)) {
+            if (lowerText.contains(pattern)) {
                 semanticScore += 12;
                 contextualFactors.add("Comparação temporal detectada");
                 break;
@@ -571,25 +1042,28 @@ public class PsychAIEngine {
     /**
      * ANÁLISE ESPECÍFICA POR APP - VOCÊ PODE PERSONALIZAR
      */
-    private int analyzeAppSpecificPatterns(String text, String appPackage, List<String> contextualFactors) {
+    private int analyzeAppSpecificPatterns(String lowerText, String appPackage, List<String> contextualFactors) {
         int appScore = 0;
 
         switch (appPackage) {
             case "com.instagram.android":
                 // Instagram: Stories de lifestyle, posts de influencer, reels
-                if (text.contains("story") && (text.contains("lifestyle") || text.contains("day in my life"))) {
+                if (lowerText.contains("story") && (lowerText.contains("lifestyle") || lowerText.contains("day in my life"))) {
                     appScore += 15;
                     contextualFactors.add("Story de lifestyle Instagram");
                 }
-                if (text.contains("influencer") || text.contains("sponsored") || text.contains("ad")) {
+                // Com o filtro de chrome ligado, o selo ("Patrocinado", "Ad"...) chega como "sponsored";
+                // desligado, o rótulo original fica no texto
+                if (lowerText.contains("influencer") || lowerText.contains(ChromeFilter.SPONSORED_MARKER) ||
+                        containsWord(lowerText, "ad")) {
                     appScore += 12;
                     contextualFactors.add("Conteúdo de influencer/patrocinado");
                 }
-                if (text.contains("swipe up") || text.contains("link in bio")) {
+                if (lowerText.contains("swipe up") || lowerText.contains("link in bio")) {
                     appScore += 10;
                     contextualFactors.add("Call-to-action comercial");
                 }
-                if (text.contains("reel") || text.contains("trending")) {
+                if (lowerText.contains("reel") || lowerText.contains("trending")) {
                     appScore += 8;
                     contextualFactors.add("Conteúdo viral/trending");
                 }
@@ -597,19 +1071,19 @@ public class PsychAIEngine {
                 
             case "com.zhiliaoapp.musically": // TikTok
                 // TikTok: Challenges perigosos, trends de comparação, transformações
-                if (text.contains("challenge") || text.contains("trend")) {
+                if (lowerText.contains("challenge") || lowerText.contains("trend")) {
                     appScore += 18;
                     contextualFactors.add("Challenge/trend TikTok");
                 }
-                if (text.contains("transformation") || text.contains("glow up")) {
+                if (lowerText.contains("transformation") || lowerText.contains("glow up")) {
                     appScore += 22;
                     contextualFactors.add("Conteúdo de transformação");
                 }
-                if (text.contains("viral") || text.contains("famous") || text.contains("fyp")) {
+                if (lowerText.contains("viral") || lowerText.contains("famous") || lowerText.contains("fyp")) {
                     appScore += 12;
                     contextualFactors.add("Conteúdo viral TikTok");
                 }
-                if (text.contains("duet") || text.contains("react")) {
+                if (lowerText.contains("duet") || lowerText.contains("react")) {
                     appScore += 8;
                     contextualFactors.add("Conteúdo de reação/dueto");
                 }
@@ -617,15 +1091,15 @@ public class PsychAIEngine {
                 
             case "com.facebook.katana":
                 // Facebook: Posts de conquistas pessoais, life updates, milestones
-                if (text.contains("life update") || text.contains("achievement")) {
+                if (lowerText.contains("life update") || lowerText.contains("achievement")) {
                     appScore += 14;
                     contextualFactors.add("Life update Facebook");
                 }
-                if (text.contains("milestone") || text.contains("celebration")) {
+                if (lowerText.contains("milestone") || lowerText.contains("celebration")) {
                     appScore += 12;
                     contextualFactors.add("Milestone/celebração");
                 }
-                if (text.contains("relationship status") || text.contains("engaged") || text.contains("married")) {
+                if (lowerText.contains("relationship status") || lowerText.contains("engaged") || lowerText.contains("married")) {
                     appScore += 10;
                     contextualFactors.add("Update de relacionamento");
                 }
@@ -633,15 +1107,15 @@ public class PsychAIEngine {
                 
             case "com.twitter.android":
                 // Twitter: Threads de sucesso, hot takes, humble brags
-                if (text.contains("thread") && (text.contains("success") || text.contains("journey"))) {
+                if (lowerText.contains("thread") && (lowerText.contains("success") || lowerText.contains("journey"))) {
                     appScore += 16;
                     contextualFactors.add("Thread de sucesso Twitter");
                 }
-                if (text.contains("hot take") || text.contains("unpopular opinion")) {
+                if (lowerText.contains("hot take") || lowerText.contains("unpopular opinion")) {
                     appScore += 10;
                     contextualFactors.add("Hot take/opinião controversa");
                 }
-                if (text.contains("just closed") || text.contains("just raised")) {
+                if (lowerText.contains("just closed") || lowerText.contains("just raised")) {
                     appScore += 18;
                     contextualFactors.add("Anúncio de sucesso empresarial");
                 }
@@ -649,11 +1123,11 @@ public class PsychAIEngine {
                 
             case "com.linkedin.android":
                 // LinkedIn: Humble brags profissionais, success stories
-                if (text.contains("promoted") || text.contains("new job") || text.contains("new role")) {
+                if (lowerText.contains("promoted") || lowerText.contains("new job") || lowerText.contains("new role")) {
                     appScore += 12;
                     contextualFactors.add("Anúncio profissional LinkedIn");
                 }
-                if (text.contains("grateful") && text.contains("opportunity")) {
+                if (lowerText.contains("grateful") && lowerText.contains("opportunity")) {
                     appScore += 10;
                     contextualFactors.add("Humble brag profissional");
                 }
@@ -666,10 +1140,23 @@ public class PsychAIEngine {
     /**
      * FUNÇÕES AUXILIARES PARA ANÁLISE CONTEXTUAL
      */
+
+    // Palavra inteira: "ad" não casa dentro de "cidade"
+    private static boolean containsWord(String text, String word) {
+        int index = 0;
+        while ((index = text.indexOf(word, index)) != -1) {
+            int end = index + word.length();
+            boolean startsWord = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+            boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (startsWord && endsWord) return true;
+            index = end;
+        }
+        return false;
+    }
     
     private int countToxicEmojis(String text) {
         int count = 0;
-        for (String emoji : psychologyDatabase.get("toxicEmojis")) {
+        for (String emoji : triggerIndex.database.getOrDefault("toxicEmojis", Collections.<String>emptyList())) {
             int index = 0;
             while ((index = text.indexOf(emoji, index)) != -1) {
                 count++;
@@ -679,10 +1166,9 @@ public class PsychAIEngine {
         return count;
     }
 
-    private int countToxicHashtags(String text) {
+    private int countToxicHashtags(String lowerText) {
         int count = 0;
-        String lowerText = text.toLowerCase();
-        for (String hashtag : psychologyDatabase.get("toxicHashtags")) {
+        for (String hashtag : triggerIndex.database.getOrDefault("toxicHashtags", Collections.<String>emptyList())) {
             if (lowerText.contains(hashtag)) {
                 count++;
             }
@@ -690,42 +1176,61 @@ public class PsychAIEngine {
         return count;
     }
 
-    private double calculateKeywordDensity(String text) {
-        String[] words = text.toLowerCase().split("\\s+");
-        int totalWords = words.length;
-        
-        if (totalWords == 0) return 0;
-        
+    /**
+     * Palavras (separadas por espaço em branco) contidas em algum trigger, varridas como
+     * trechos de lowerText, sem split nem String por palavra
+     */
+    private double calculateKeywordDensity(String lowerText, AnalysisDeadline deadline) {
+        Set<String> triggers = triggerIndex.allTriggers;
         int toxicWords = 0;
-        Set<String> allTriggers = new HashSet<>();
-        
-        // Combinar todos os triggers
-        for (List<String> triggers : psychologyDatabase.values()) {
-            allTriggers.addAll(triggers);
-        }
-        
-        for (String word : words) {
-            for (String trigger : allTriggers) {
-                if (trigger.contains(word) && word.length() > 3) {
+        int scannedWords = 0;
+        int length = lowerText.length();
+        int position = 0;
+
+        while (position < length) {
+            while (position < length && isRegexWhitespace(lowerText.charAt(position))) position++;
+            int start = position;
+            while (position < length && !isRegexWhitespace(lowerText.charAt(position))) position++;
+            if (position == start) break;
+
+            if (deadline.poll()) break; // Densidade calculada sobre as palavras já vistas
+            scannedWords++;
+            int wordLength = position - start;
+            if (wordLength <= 3) continue;
+            for (String trigger : triggers) {
+                if (containsRegion(trigger, lowerText, start, wordLength)) {
                     toxicWords++;
                     break;
                 }
             }
         }
         
-        return (double) toxicWords / totalWords;
+        return scannedWords > 0 ? (double) toxicWords / scannedWords : 0;
+    }
+
+    // Mesmo conjunto de \s das expressões regulares
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean containsRegion(String haystack, String text, int start, int length) {
+        for (int i = 0; i + length <= haystack.length(); i++) {
+            if (haystack.regionMatches(i, text, start, length)) return true;
+        }
+        return false;
     }
 
-    private boolean containsHighValues(String text) {
-        // Detectar valores monetários altos
-        Pattern pricePattern = Pattern.compile("(R\\$|\\$|€|£)\\s*([1-9]\\d{3,}|[1-9]\\d{2}\\.\\d{3})", Pattern.CASE_INSENSITIVE);
-        return pricePattern.matcher(text).find();
+    // Valores monetários altos
+    private static final Pattern PRICE_PATTERN =
+        Pattern.compile("(R\\$|\\$|€|£)\\s*([1-9]\\d{3,}|[1-9]\\d{2}\\.\\d{3})", Pattern.CASE_INSENSITIVE);
+
+    private boolean containsHighValues(CharSequence text) {
+        return PRICE_PATTERN.matcher(text).find();
     }
 
-    private int countFirstPersonReferences(String text) {
+    private int countFirstPersonReferences(String lowerText) {
         String[] firstPersonWords = {"eu", "meu", "minha", "meus", "minhas", "I", "my", "mine", "me"};
         int count = 0;
-        String lowerText = text.toLowerCase();
         
         for (String word : firstPersonWords) {
             int index = 0;
@@ -738,13 +1243,12 @@ public class PsychAIEngine {
         return count;
     }
 
-    private boolean containsUrgencyLanguage(String text) {
+    private boolean containsUrgencyLanguage(String lowerText) {
         String[] urgencyWords = {
             "agora", "já", "rápido", "urgente", "imediato", "hoje", "amanhã",
             "now", "already", "fast", "urgent", "immediate", "today", "tomorrow"
         };
         
-        String lowerText = text.toLowerCase();
         for (String word : urgencyWords) {
             if (lowerText.contains(word)) {
                 return true;
@@ -753,12 +1257,10 @@ public class PsychAIEngine {
         return false;
     }
 
-    private String detectEmotionalTone(String text) {
+    private String detectEmotionalTone(String lowerText) {
         String[] positiveWords = {"feliz", "grato", "amor", "paz", "alegria", "happy", "grateful", "love", "peace", "joy"};
         String[] negativeWords = {"triste", "ansioso", "deprimido", "sad", "anxious", "depressed", "worried", "stressed"};
         String[] toxicWords = {"inveja", "ódio", "raiva", "hate", "envy", "anger", "jealous", "bitter", "resentful"};
-
-        String lowerText = text.toLowerCase();
         
         int positiveCount = 0;
         int negativeCount = 0;
@@ -805,12 +1307,12 @@ public class PsychAIEngine {
     }
 
     private void updateEngineStats(int toxicityScore, boolean shouldBlock, long processingTime) {
-        if (shouldBlock) toxicContentDetected++;
+        if (shouldBlock) toxicContentDetected.incrementAndGet();
         
-        totalProcessingTime += processingTime;
+        totalProcessingTime.addAndGet(processingTime);
         
         // Atualizar taxa de precisão baseada em feedback simulado
-        double newAccuracy = 96.8 + (totalAnalyzed * 0.0008); // Melhoria gradual
+        double newAccuracy = 96.8 + (totalAnalyzed.get() * 0.0008); // Melhoria gradual
         accuracyRate = Math.min(98.5, newAccuracy);
     }
 
@@ -835,19 +1337,109 @@ public class PsychAIEngine {
             // Atualizar triggers personalizados
             if (config.has("customTriggers")) {
                 JSONObject customTriggers = config.getJSONObject("customTriggers");
-                Iterator<String> categories = customTriggers.keys();
-                while (categories.hasNext()) {
-                    String category = categories.next();
-                    JSONArray triggers = customTriggers.getJSONArray(category);
-                    
-                    List<String> triggerList = new ArrayList<>();
-                    for (int i = 0; i < triggers.length(); i++) {
-                        triggerList.add(triggers.getString(i));
+                synchronized (triggerIndexLock) {
+                    Map<String, Map<String, List<String>>> languagePacks = triggerIndex.copyLanguagePacks();
+                    Iterator<String> categories = customTriggers.keys();
+                    while (categories.hasNext()) {
+                        String category = categories.next();
+                        JSONArray triggers = customTriggers.getJSONArray(category);
+
+                        List<String> triggerList = new ArrayList<>();
+                        for (int i = 0; i < triggers.length(); i++) {
+                            triggerList.add(triggers.getString(i));
+                        }
+
+                        languagePacks.put(category, universalPack(triggerList));
+                    }
+                    publishLanguagePacks(languagePacks);
+                }
+            }
+
+            // Perfis de idioma adicionais para o detector (ex.: {"it": ["di", "che", ...]})
+            if (config.has("languageProfiles")) {
+                JSONObject profiles = config.getJSONObject("languageProfiles");
+                Iterator<String> languages = profiles.keys();
+                while (languages.hasNext()) {
+                    String language = languages.next();
+                    JSONArray words = profiles.getJSONArray(language);
+
+                    List<String> wordList = new ArrayList<>();
+                    for (int i = 0; i < words.length(); i++) {
+                        wordList.add(words.getString(i));
                     }
-                    
-                    psychologyDatabase.put(category, triggerList);
+
+                    normalizer.getLanguageDetector().registerLanguage(language, wordList);
                 }
             }
+
+            // Pacotes de triggers por idioma (ex.: {"es": {"comparisonTriggers": [...]}})
+            // Só são percorridos quando o texto é detectado nesse idioma ou é misto
+            if (config.has("languagePacks")) {
+                JSONObject packs = config.getJSONObject("languagePacks");
+                synchronized (triggerIndexLock) {
+                    Map<String, Map<String, List<String>>> languagePacks = triggerIndex.copyLanguagePacks();
+                    Iterator<String> languages = packs.keys();
+                    while (languages.hasNext()) {
+                        String language = languages.next();
+                        JSONObject categories = packs.getJSONObject(language);
+                        Iterator<String> categoryNames = categories.keys();
+                        while (categoryNames.hasNext()) {
+                            String category = categoryNames.next();
+                            JSONArray triggers = categories.getJSONArray(category);
+
+                            List<String> triggerList = new ArrayList<>();
+                            for (int i = 0; i < triggers.length(); i++) {
+                                triggerList.add(triggers.getString(i).toLowerCase());
+                            }
+
+                            Map<String, List<String>> categoryPacks = languagePacks.get(category);
+                            if (categoryPacks == null) {
+                                categoryPacks = new LinkedHashMap<>();
+                                languagePacks.put(category, categoryPacks);
+                            }
+                            categoryPacks.put(language, triggerList);
+                        }
+                    }
+                    publishLanguagePacks(languagePacks);
+                }
+            }
+
+            // Orçamento de tempo por app (ex.: {"default": 60, "com.facebook.katana": 120})
+            if (config.has("analysisBudgetsMs")) {
+                JSONObject budgets = config.getJSONObject("analysisBudgetsMs");
+                Iterator<String> apps = budgets.keys();
+                while (apps.hasNext()) {
+                    String app = apps.next();
+                    analysisBudgetsMs.put(app, Math.max(5, budgets.getInt(app)));
+                }
+            }
+
+            // Reaproveitamento de quase-duplicatas (distância de Hamming máxima: 0 a 3)
+            if (config.has("nearDuplicateReuse")) {
+                nearDuplicateReuse = config.getBoolean("nearDuplicateReuse");
+            }
+            if (config.has("nearDuplicateMaxDistance")) {
+                nearDuplicateIndex.setMaxHammingDistance(config.getInt("nearDuplicateMaxDistance"));
+            }
+
+            if (config.has("exposureAdaptiveThreshold")) {
+                exposureAdaptiveThreshold = config.getBoolean("exposureAdaptiveThreshold");
+            }
+
+            if (config.has("multiLanguageSupport")) {
+                multiLanguageSupport = config.getBoolean("multiLanguageSupport");
+            }
+
+            if (config.has("obfuscationCanonicalization")) {
+                obfuscationCanonicalization = config.getBoolean("obfuscationCanonicalization");
+            }
+
+            if (config.has("hashtagSegmentation")) {
+                hashtagSegmentation = config.getBoolean("hashtagSegmentation");
+            }
+
+            // Vereditos guardados foram calculados com a configuração anterior
+            nearDuplicateIndex.clear();
             
             Log.d(TAG, "🔧 Configuração da IA atualizada via JSON");
             
@@ -865,41 +1457,107 @@ public class PsychAIEngine {
             int newLevel = (int)(currentLevel * (normalizedSensitivity / 100.0));
             sensitivityLevels.put(category, Math.max(25, Math.min(100, newLevel)));
         }
+        nearDuplicateIndex.clear();
         
         Log.d(TAG, String.format("🎯 Sensibilidade global definida: %d%%", normalizedSensitivity));
     }
 
     public void addCustomTrigger(String category, String trigger) {
-        List<String> triggers = psychologyDatabase.get(category);
-        if (triggers != null) {
-            triggers.add(trigger.toLowerCase());
-            Log.d(TAG, String.format("➕ Trigger personalizado adicionado em %s: %s", category, trigger));
+        synchronized (triggerIndexLock) {
+            Map<String, Map<String, List<String>>> languagePacks = triggerIndex.copyLanguagePacks();
+            Map<String, List<String>> packs = languagePacks.get(category);
+            if (packs == null) return;
+
+            List<String> universal = packs.get(UNIVERSAL_LANGUAGE);
+            if (universal == null) {
+                universal = new ArrayList<>();
+                packs.put(UNIVERSAL_LANGUAGE, universal);
+            }
+            universal.add(trigger.toLowerCase());
+            publishLanguagePacks(languagePacks);
         }
+        Log.d(TAG, String.format("➕ Trigger personalizado adicionado em %s: %s", category, trigger));
     }
 
     public void removeCustomTrigger(String category, String trigger) {
-        List<String> triggers = psychologyDatabase.get(category);
-        if (triggers != null) {
-            triggers.remove(trigger.toLowerCase());
-            Log.d(TAG, String.format("➖ Trigger removido de %s: %s", category, trigger));
+        synchronized (triggerIndexLock) {
+            Map<String, Map<String, List<String>>> languagePacks = triggerIndex.copyLanguagePacks();
+            Map<String, List<String>> packs = languagePacks.get(category);
+            if (packs == null) return;
+
+            for (List<String> triggers : packs.values()) {
+                triggers.remove(trigger.toLowerCase());
+            }
+            publishLanguagePacks(languagePacks);
         }
+        Log.d(TAG, String.format("➖ Trigger removido de %s: %s", category, trigger));
+    }
+
+    /**
+     * EXPOSIÇÃO DA SESSÃO (últimos 5 minutos) por app e categoria - consulta barata para o dashboard
+     */
+    public Map<String, Object> getExposureSnapshot() {
+        return exposureTracker.snapshot(System.currentTimeMillis());
     }
 
     public Map<String, Object> getEngineStats() {
         Map<String, Object> stats = new HashMap<>();
+        int totalAnalyzed = this.totalAnalyzed.get();
+        int nearDuplicateHits = this.nearDuplicateHits.get();
+        int postUnitAnalyzed = this.postUnitAnalyzed.get();
+        int fullAnalysisCount = this.fullAnalysisCount.get();
+        int criticalFastPathScans = this.criticalFastPathScans.get();
         stats.put("totalAnalyzed", totalAnalyzed);
-        stats.put("toxicContentDetected", toxicContentDetected);
+        stats.put("toxicContentDetected", toxicContentDetected.get());
         stats.put("accuracyRate", accuracyRate);
-        stats.put("averageProcessingTime", totalAnalyzed > 0 ? totalProcessingTime / totalAnalyzed : 0);
+        stats.put("averageProcessingTime", totalAnalyzed > 0 ? totalProcessingTime.get() / totalAnalyzed : 0);
         stats.put("version", "4.0");
         stats.put("modelsActive", 8);
+        stats.put("averageTriggersScanned", totalAnalyzed > 0 ? totalTriggersScanned.get() / totalAnalyzed : 0);
+        stats.put("languageDistribution", new HashMap<>(languageDistribution));
+        stats.put("criticalFastPathHits", criticalFastPathHits.get());
+        stats.put("sessionExposure", getExposureSnapshot());
+        stats.put("nearDuplicateHits", nearDuplicateHits);
+        stats.put("postUnitAnalyzed", postUnitAnalyzed);
+        stats.put("nearDuplicateHitRate", postUnitAnalyzed > 0 ? nearDuplicateHits * 100.0 / postUnitAnalyzed : 0);
+        stats.put("nearDuplicateMsSaved", fullAnalysisCount > 0 ?
+                  nearDuplicateHits * (fullAnalysisTime.get() / (double) fullAnalysisCount) : 0);
+        stats.put("deadlineOverruns", deadlineOverruns.get());
+        stats.put("deadlineOverrunsByApp", new HashMap<>(deadlineOverrunsByApp));
+        stats.put("deadlineOverrunsByStage", new HashMap<>(deadlineOverrunsByStage));
+        stats.put("criticalFastPathAvgMicros", criticalFastPathScans > 0 ?
+                  (criticalFastPathNanos.get() / criticalFastPathScans) / 1000.0 : 0);
+        stats.put("obfuscatedTriggerMatches", obfuscatedTriggerMatches.get());
+        stats.put("canonicalizationNanosPerChar", normalizer.getCanonicalizationNanosPerChar());
+        stats.put("canonicalizedChars", normalizer.getCanonicalizedChars());
+        stats.put("hashtagTriggerMatches", hashtagTriggerMatches.get());
+        stats.put("hashtagSegmentations", hashtagSegmenter.getSegmentations());
+        stats.put("hashtagMemoHits", hashtagSegmenter.getMemoHits());
+        stats.put("hashtagVocabularySize", hashtagSegmenter.getVocabularySize());
         return stats;
     }
 
     public void resetStats() {
-        totalAnalyzed = 0;
-        toxicContentDetected = 0;
-        totalProcessingTime = 0;
+        totalAnalyzed.set(0);
+        toxicContentDetected.set(0);
+        totalProcessingTime.set(0);
+        totalTriggersScanned.set(0);
+        languageDistribution.clear();
+        criticalFastPathScans.set(0);
+        criticalFastPathHits.set(0);
+        criticalFastPathNanos.set(0);
+        obfuscatedTriggerMatches.set(0);
+        hashtagTriggerMatches.set(0);
+        normalizer.resetStats();
+        deadlineOverruns.set(0);
+        deadlineOverrunsByApp.clear();
+        deadlineOverrunsByStage.clear();
+        exposureTracker.reset();
+        nearDuplicateIndex.clear();
+        nearDuplicateHits.set(0);
+        postUnitAnalyzed.set(0);
+        fullAnalysisTime.set(0);
+        fullAnalysisCount.set(0);
         accuracyRate = 96.8;
         Log.d(TAG, "📊 Estatísticas da IA resetadas");
     }
@@ -2,22 +2,34 @@ package com.redesegura.accessibility;
 
 import android.accessibilityservice.AccessibilityService;
 import android.accessibilityservice.AccessibilityServiceInfo;
+import android.content.Context;
 import android.graphics.Rect;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityWindowInfo;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RedeSegura Accessibility Service - Versão 3.0
@@ -35,7 +47,13 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
     private static final String TAG = "RedeSeguraAccessibility";
     private static RedeSeguraAccessibilityService instance;
     
-    private ExecutorService executor = Executors.newFixedThreadPool(3);
+    // Pipeline de análise: até 3 lanes com consumidor único, ordem preservada por app;
+    // lanes ativas, ritmo da coalescência e lookahead ajustados pelo controlador adaptativo
+    private static final int ANALYSIS_LANES = 3;
+    private static final long RATE_CONTROLLER_TICK_MS = 1000;
+    private static final int ANALYSIS_QUEUE_CAPACITY = 4;
+    private static final long VISIBLE_WINDOWS_DEBOUNCE_MS = 150;
+    private AnalysisPipeline analysisPipeline;
     private Handler mainHandler = new Handler(Looper.getMainLooper());
     
     // Apps de redes sociais para monitorar
@@ -55,10 +73,25 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
     private PsychAIEngine aiEngine;
     private AutoScrollController autoScrollController;
     private ContentAnalyzer contentAnalyzer;
+    private EventCoalescer eventCoalescer;
+    private final NodeFingerprintCache nodeFingerprintCache = new NodeFingerprintCache();
+    private final LookaheadCache lookaheadCache = new LookaheadCache();
+    private boolean lookaheadEnabled = true;
+    private final PostVerdictMemo postVerdictMemo = new PostVerdictMemo();
+    private final TextBuffer extractionBuffers = new TextBuffer();
+    private final TextBuffer memoBuffers = new TextBuffer();
+    private boolean postVerdictMemoEnabled = true;
+    private AdaptiveRateController rateController;
+    private boolean adaptiveRateEnabled = true;
+    private final Runnable rateControllerTick = this::tickRateController;
+    private final Runnable visibleWindowsRefresh = this::refreshVisibleWindows;
+    private boolean visibleWindowsRefreshPending = false; // thread principal
+    private final TraceRecorder traceRecorder = new TraceRecorder();
+    private BridgeDispatcher bridgeDispatcher;
+    private EventJournal eventJournal;
+    private RollupStore rollupStore;
     
     private boolean isProtectionActive = false;
-    private boolean isAnalyzing = false;
-    private long lastAnalysisTime = 0;
     private int analysisCount = 0;
     
     // Configurações avançadas
@@ -66,6 +99,33 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
     private boolean autoScrollEnabled = true;
     private boolean realTimeAnalysis = true;
     private boolean learningMode = true;
+    private boolean criticalFastPathEnabled = true;
+
+    // Overlays provisórios do fast path crítico por nó de origem (janela + view + trigger),
+    // resolvidos pela próxima passada completa da janela (ou pelo timeout do OverlayManager)
+    private final Map<String, ProvisionalOverlay> provisionalOverlays = new ConcurrentHashMap<>();
+
+    // Hash do último texto contado como exposição por janela, quando não há posts identificáveis
+    private final Map<String, Long> screenExposureHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Overlay provisório e o conteúdo que o disparou
+     */
+    private static final class ProvisionalOverlay {
+        final String overlayKey;
+        final int windowId;
+        final String packageName;
+        final String trigger;   // trigger crítico canônico achado no texto do evento
+        final long eventTime;   // evento que disparou; vereditos de eventos anteriores não resolvem
+
+        ProvisionalOverlay(String overlayKey, int windowId, String packageName, String trigger, long eventTime) {
+            this.overlayKey = overlayKey;
+            this.windowId = windowId;
+            this.packageName = packageName;
+            this.trigger = trigger;
+            this.eventTime = eventTime;
+        }
+    }
 
     @Override
     protected void onServiceConnected() {
@@ -79,6 +139,7 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         serviceInfo.eventTypes = AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED |
                                 AccessibilityEvent.TYPE_VIEW_SCROLLED |
                                 AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED |
+                                AccessibilityEvent.TYPE_WINDOWS_CHANGED |
                                 AccessibilityEvent.TYPE_VIEW_TEXT_CHANGED;
         serviceInfo.feedbackType = AccessibilityServiceInfo.FEEDBACK_GENERIC;
         serviceInfo.flags = AccessibilityServiceInfo.FLAG_REPORT_VIEW_IDS |
@@ -89,9 +150,22 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         
         // Inicializar componentes avançados
         overlayManager = new OverlayManager(this);
+        eventJournal = new EventJournal(getFilesDir(), SOCIAL_MEDIA_APPS, RollupStore.CATEGORIES);
+        rollupStore = new RollupStore(getFilesDir(), SOCIAL_MEDIA_APPS);
+        if (!rollupStore.isRestored()) {
+            // Primeira abertura: o que o diário ainda guarda vira o ponto de partida
+            long now = System.currentTimeMillis();
+            rollupStore.rebuild(eventJournal.query(now - RollupStore.BUCKETS[RollupStore.DAY] * 86_400_000L, now));
+        }
+        overlayManager.setInteractionListener(eventJournal::recordInteraction);
+        bridgeDispatcher = new BridgeDispatcher(mainHandler, this::sendEventToReactNative);
         aiEngine = new PsychAIEngine();
         autoScrollController = new AutoScrollController(this);
-        contentAnalyzer = new ContentAnalyzer();
+        contentAnalyzer = new ContentAnalyzer(lookaheadCache);
+        analysisPipeline = new AnalysisPipeline(ANALYSIS_LANES, ANALYSIS_QUEUE_CAPACITY, this::analyzeContentInRealTime);
+        eventCoalescer = new EventCoalescer(mainHandler, this::dispatchAnalysis, analysisPipeline::isBackpressured);
+        rateController = new AdaptiveRateController(SystemClock::uptimeMillis, createDeviceSignals(), ANALYSIS_LANES);
+        applyRateSettings();
         
         Log.d(TAG, "✅ Todos os componentes RedeSegura inicializados");
     }
@@ -102,79 +176,329 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         
         String packageName = event.getPackageName() != null ? 
                             event.getPackageName().toString() : "";
+        
+        // Janela em primeiro plano (de qualquer app, menos os nossos overlays):
+        // eventos enfileirados de outras janelas perdem prioridade
+        int eventType = event.getEventType();
+        if ((eventType == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED ||
+                eventType == AccessibilityEvent.TYPE_VIEW_SCROLLED) && !packageName.equals(getPackageName())) {
+            analysisPipeline.setForeground(event.getWindowId(), packageName);
+        }
+        
+        // Tela dividida / picture-in-picture: todas as janelas monitoradas visíveis são primeiro plano.
+        // Nossos overlays também geram TYPE_WINDOWS_CHANGED e não mudam as janelas dos apps
+        if ((eventType == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED ||
+                eventType == AccessibilityEvent.TYPE_WINDOWS_CHANGED) && !packageName.equals(getPackageName())) {
+            scheduleVisibleWindowsRefresh();
+        }
                             
         // Verificar se é uma rede social monitorada
         if (!SOCIAL_MEDIA_APPS.contains(packageName)) return;
         
-        // Evitar análise excessiva (throttling inteligente)
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastAnalysisTime < 500) return; // Máximo 2 análises por segundo
+        // Deslocamento de scroll e nós alterados por janela, usados pelo diff incremental da árvore
+        nodeFingerprintCache.onRawEvent(event);
         
-        lastAnalysisTime = currentTime;
-        analysisCount++;
+        // Lookahead: posts pré-pontuados que o scroll trouxe para a tela são cobertos na hora
+        if (lookaheadEnabled) applyLookaheadVerdicts(event, packageName);
         
-        // Processar em thread separada para não bloquear UI
-        executor.execute(() -> {
-            try {
-                analyzeContentInRealTime(event, packageName);
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Erro na análise de conteúdo", e);
+        // Fast path crítico: roda antes da coalescência, direto no texto visível do evento
+        boolean criticalHit = criticalFastPathEnabled && applyCriticalFastPath(event, packageName);
+        
+        // Coalescência por janela: rajadas viram um único evento (o mais recente),
+        // sempre processado na borda final
+        eventCoalescer.submit(event, packageName);
+        
+        // Um hit crítico não espera o silêncio, para que a análise completa refine ou retire o overlay
+        if (criticalHit) eventCoalescer.flushNow(event, packageName);
+    }
+
+    /**
+     * Agendar a releitura das janelas: uma rajada de mudanças vira uma só leitura
+     */
+    private void scheduleVisibleWindowsRefresh() {
+        if (visibleWindowsRefreshPending) return;
+        visibleWindowsRefreshPending = true;
+        mainHandler.postDelayed(visibleWindowsRefresh, VISIBLE_WINDOWS_DEBOUNCE_MS);
+    }
+
+    /**
+     * JANELAS MONITORADAS VISÍVEIS (tela dividida, picture-in-picture)
+     * Só roda em mudanças de janela, com debounce: getWindows() e getRoot() são chamadas IPC
+     */
+    private void refreshVisibleWindows() {
+        visibleWindowsRefreshPending = false;
+        if (!isProtectionActive) return;
+
+        List<AccessibilityWindowInfo> windows = getWindows();
+        if (windows == null) return;
+
+        int[] visible = new int[windows.size()];
+        int count = 0;
+        for (AccessibilityWindowInfo window : windows) {
+            if (window.getType() == AccessibilityWindowInfo.TYPE_APPLICATION) {
+                AccessibilityNodeInfo root = window.getRoot();
+                if (root != null) {
+                    CharSequence rootPackage = root.getPackageName();
+                    if (rootPackage != null && SOCIAL_MEDIA_APPS.contains(rootPackage.toString())) {
+                        visible[count++] = window.getId();
+                    }
+                    root.recycle();
+                }
             }
-        });
+            window.recycle();
+        }
+        int[] visibleWindows = Arrays.copyOf(visible, count);
+        analysisPipeline.setVisibleWindows(visibleWindows);
+        retractProvisionalOverlaysOutside(visibleWindows);
+    }
+
+    private static String windowKey(int windowId, String packageName) {
+        return windowId + ":" + packageName;
+    }
+
+    /**
+     * DESPACHAR EVENTO COALESCIDO para o pipeline de análise
+     * O evento é uma cópia própria do coalescedor; o pipeline o recicla ao fim da análise
+     * ou quando é descartado por fila cheia
+     */
+    private void dispatchAnalysis(AccessibilityEvent event, String packageName, long receivedAtNanos) {
+        analysisCount++;
+        bridgeDispatcher.addStatsDelta("analyses", 1);
+        eventJournal.recordAnalysis(packageName);
+        analysisPipeline.submit(event, packageName, traceRecorder.begin(packageName, receivedAtNanos));
+    }
+
+    /**
+     * FAST PATH CRÍTICO (depressão/autolesão) NA THREAD DE EVENTOS
+     * Só usa o texto que já vem no evento; em caso de hit aplica um overlay provisório
+     * sobre a view de origem sem passar pela fila de análise
+     */
+    private boolean applyCriticalFastPath(AccessibilityEvent event, String packageName) {
+        String trigger = null;
+        for (CharSequence text : event.getText()) {
+            trigger = aiEngine.detectCriticalTrigger(text);
+            if (trigger != null) break;
+        }
+        if (trigger == null) {
+            trigger = aiEngine.detectCriticalTrigger(event.getContentDescription());
+        }
+        if (trigger == null) return false;
+
+        AccessibilityNodeInfo source = event.getSource();
+        if (source == null) return true;
+
+        Rect bounds = new Rect();
+        String nodeKey;
+        try {
+            source.getBoundsInScreen(bounds);
+            nodeKey = windowKey(event.getWindowId(), packageName) + "#" + LookaheadCache.key(source) + "#" + trigger;
+        } finally {
+            source.recycle();
+        }
+
+        // Mesmo nó já coberto, aguardando um veredito que inclua o seu texto
+        ProvisionalOverlay existing = provisionalOverlays.get(nodeKey);
+        if (existing != null && overlayManager.isProvisionalOverlayActive(existing.overlayKey)) return true;
+
+        String overlayKey = overlayManager.showProvisionalOverlay(
+            bounds,
+            "Conteúdo potencialmente depressivo que pode afetar humor, autoestima e bem-estar mental",
+            90,
+            "Risco de Depressão",
+            packageName
+        );
+        provisionalOverlays.put(nodeKey, new ProvisionalOverlay(
+            overlayKey, event.getWindowId(), packageName, trigger, event.getEventTime()));
+
+        if (FastLog.D) FastLog.d(TAG, "⚡ Fast path crítico: \"%s\" em %s", trigger, packageName);
+        return true;
+    }
+
+    /**
+     * APLICAR VEREDITOS DO LOOKAHEAD NA THREAD DE EVENTOS
+     * Só percorre os itens diretos do container rolado, e só quando há veredito de bloqueio pronto
+     */
+    private void applyLookaheadVerdicts(AccessibilityEvent event, String packageName) {
+        if (event.getEventType() != AccessibilityEvent.TYPE_VIEW_SCROLLED) return;
+        long now = System.currentTimeMillis();
+        if (!lookaheadCache.hasBlockedVerdicts(event.getWindowId(), now)) return;
+
+        AccessibilityNodeInfo source = event.getSource();
+        if (source == null) return;
+
+        NodeLifecycle lifecycle = new NodeLifecycle();
+        try {
+            for (int i = 0; i < source.getChildCount(); i++) {
+                AccessibilityNodeInfo item = lifecycle.obtainChild(source, i);
+                if (item == null) continue;
+
+                long key = LookaheadCache.key(item);
+                AIAnalysisResult verdict = null;
+                if (!item.isVisibleToUser()) {
+                    lookaheadCache.markOffscreen(key);
+                } else if (lookaheadCache.hasBlockedVerdict(key, now)) {
+                    // Só o item com bloqueio pendente tem o texto lido, para conferir o conteúdo
+                    verdict = lookaheadCache.takeBlocked(key, LookaheadCache.shape(item),
+                        contentAnalyzer.lookaheadContentHash(item, packageName), now);
+                }
+                if (verdict != null) {
+                    Rect bounds = new Rect();
+                    item.getBoundsInScreen(bounds);
+                    overlayManager.showAdvancedProtectiveOverlay(
+                        bounds,
+                        verdict.triggerReason,
+                        verdict.riskLevel,
+                        verdict.confidence,
+                        verdict.triggerType,
+                        packageName
+                    );
+                    aiEngine.recordExposure(packageName, verdict);
+                    aiEngine.recordPrescoredVerdict(verdict);
+                    notifyContentBlocked(verdict, packageName);
+                    lookaheadCache.recordCoverLatency(true, SystemClock.uptimeMillis() - event.getEventTime());
+
+                    if (FastLog.D) FastLog.d(TAG, "🔮 Overlay do lookahead aplicado: %s em %s",
+                        verdict.triggerType, packageName);
+                }
+                lifecycle.release(item);
+            }
+        } finally {
+            lifecycle.releaseAll();
+            source.recycle();
+        }
+    }
+
+    /**
+     * REFINAR OU RETIRAR OS OVERLAYS PROVISÓRIOS DA JANELA COM O VEREDITO COMPLETO
+     * Resolve o provisório a passada de um evento igual ou posterior ao que o disparou: com
+     * o trigger no texto pontuado, o veredito refina ou retira; sem ele (post pulado,
+     * memorizado ou que saiu da tela), o provisório sai, e os posts já bloqueados têm os
+     * próprios overlays. analysis null = passada sem texto novo para pontuar.
+     */
+    private void resolveProvisionalOverlays(int windowId, String packageName, long eventTime,
+                                            CharSequence scoredText, AIAnalysisResult analysis) {
+        if (provisionalOverlays.isEmpty()) return;
+
+        for (Iterator<ProvisionalOverlay> iterator = provisionalOverlays.values().iterator(); iterator.hasNext(); ) {
+            ProvisionalOverlay provisional = iterator.next();
+            if (provisional.windowId != windowId || !provisional.packageName.equals(packageName)) continue;
+            if (!overlayManager.isProvisionalOverlayActive(provisional.overlayKey)) {
+                iterator.remove(); // dispensado pelo usuário ou retirado por timeout
+                continue;
+            }
+            if (eventTime < provisional.eventTime) continue;
+
+            boolean refined = false;
+            if (analysis != null && aiEngine.containsCriticalTrigger(scoredText, provisional.trigger)) {
+                // Veredito parcial e seguro pode não ter chegado às categorias críticas
+                if (analysis.partial && !analysis.shouldBlock) continue;
+                refined = analysis.shouldBlock;
+            }
+
+            iterator.remove();
+            // Postado depois de applyAdvancedProtection: os overlays refinados entram antes do provisório sair
+            String removalType = refined ? "refined" : "retracted";
+            mainHandler.post(() -> overlayManager.retractProvisionalOverlay(provisional.overlayKey, removalType));
+        }
+    }
+
+    /**
+     * Janela que saiu da tela: os provisórios dela ficariam sobre outro conteúdo
+     */
+    private void retractProvisionalOverlaysOutside(int[] visibleWindows) {
+        for (Iterator<ProvisionalOverlay> iterator = provisionalOverlays.values().iterator(); iterator.hasNext(); ) {
+            ProvisionalOverlay provisional = iterator.next();
+            boolean visible = false;
+            for (int windowId : visibleWindows) visible |= windowId == provisional.windowId;
+            if (visible) continue;
+
+            iterator.remove();
+            overlayManager.retractProvisionalOverlay(provisional.overlayKey, "window_closed");
+        }
     }
 
     /**
      * ANÁLISE DE CONTEÚDO EM TEMPO REAL - CORE FUNCTION
      */
-    private void analyzeContentInRealTime(AccessibilityEvent event, String packageName) {
-        if (isAnalyzing) return; // Evitar análises simultâneas
-        
-        isAnalyzing = true;
+    private void analyzeContentInRealTime(AccessibilityEvent event, String packageName,
+                                          TraceRecorder.Trace trace) {
         long startTime = System.currentTimeMillis();
         
         AccessibilityNodeInfo rootNode = event.getSource();
-        if (rootNode == null) {
-            isAnalyzing = false;
-            return;
-        }
+        if (rootNode == null) return;
 
         try {
-            // Extrair todo o conteúdo textual da tela
-            StringBuilder allText = new StringBuilder();
-            List<AccessibilityNodeInfo> postElements = contentAnalyzer.extractAllContent(rootNode, allText);
+            // Extrair o conteúdo textual novo ou alterado desde a última passada na janela,
+            // direto no buffer reutilizado da lane
+            StringBuilder allText = extractionBuffers.acquire();
+            List<LookaheadItem> lookaheadItems = lookaheadEnabled ? new ArrayList<>() : null;
+            List<PostTarget> postTargets = contentAnalyzer.extractAllContent(
+                rootNode, packageName, allText, nodeFingerprintCache.beginPass(event.getWindowId()), lookaheadItems);
+            if (trace != null) trace.mark(TraceRecorder.EXTRACTED);
+            
+            // Pré-pontuação em baixa prioridade: só roda quando a lane do app está ociosa
+            if (lookaheadItems != null) {
+                for (LookaheadItem item : lookaheadItems) {
+                    analysisPipeline.submitLookahead(event.getWindowId(), packageName, () ->
+                        lookaheadCache.complete(item.key, item.contentHash,
+                                                aiEngine.prescoreContent(item.text, packageName)));
+                }
+            }
             
-            String contentText = allText.toString().trim();
-            if (contentText.isEmpty() || contentText.length() < 10) {
-                isAnalyzing = false;
+            // Posts bloqueados que o diff incremental pulou: overlay acompanha o post
+            recoverUnchangedPosts(postTargets, packageName);
+            
+            // Posts já julgados nesta sessão: recobertos na hora e fora da pontuação
+            List<PostTarget> newPosts = new ArrayList<>();
+            CharSequence contentText = TextBuffer.trimmed(postVerdictMemoEnabled ?
+                applyPostVerdictMemo(allText, postTargets, newPosts, packageName) : allText);
+            if (contentText.length() < 10) {
+                // Passada completa sem texto novo para pontuar: o trigger não está nela
+                resolveProvisionalOverlays(event.getWindowId(), packageName, event.getEventTime(), contentText, null);
                 return;
             }
 
-            Log.d(TAG, String.format("🔍 Analisando %s: %s", 
-                packageName, contentText.substring(0, Math.min(100, contentText.length()))));
+            if (FastLog.D) FastLog.d(TAG, "🔍 Analisando %s: %s", packageName, TextBuffer.preview(contentText, 100));
 
-            // Análise de IA psicológica avançada
-            AIAnalysisResult analysis = aiEngine.analyzeContentAdvanced(contentText, packageName);
+            // Análise de IA psicológica avançada. A exposição da sessão conta por post novo
+            // (rememberPostVerdicts); sem posts novos, só quando o texto da janela mudou
+            boolean countScreenExposure = newPosts.isEmpty() &&
+                isNewScreenContent(windowKey(event.getWindowId(), packageName), contentText);
+            AIAnalysisResult analysis = aiEngine.analyzeContentAdvanced(contentText, packageName, countScreenExposure);
+            if (trace != null) trace.mark(TraceRecorder.SCORED);
             
             if (analysis.shouldBlock) {
-                Log.d(TAG, String.format("🚫 Conteúdo tóxico detectado! Score: %d, Tipo: %s, Confiança: %d%%", 
-                    analysis.toxicityScore, analysis.triggerType, analysis.confidence));
+                if (FastLog.D) FastLog.d(TAG, "🚫 Conteúdo tóxico detectado! Score: %d, Tipo: %s, Confiança: %d%%", 
+                    analysis.toxicityScore, analysis.triggerType, analysis.confidence);
                 
-                // Aplicar proteção em múltiplas camadas
-                applyAdvancedProtection(postElements, analysis, packageName);
+                // Aplicar proteção em múltiplas camadas. Sem nenhum post identificado, o
+                // bloqueio cobre a origem do evento (ou a janela), nunca fica sem overlay
+                if (postTargets.isEmpty()) postTargets.add(contentAnalyzer.sourceTarget(rootNode));
+                applyAdvancedProtection(postTargets, analysis, packageName, trace);
+                markTriggerPosts(postTargets, allText, analysis);
+                lookaheadCache.recordCoverLatency(false, SystemClock.uptimeMillis() - event.getEventTime());
                 
                 // Notificar React Native
                 notifyContentBlocked(analysis, packageName);
                 
                 // Auto-scroll inteligente se habilitado
                 if (autoScrollEnabled && analysis.toxicityScore > 50) {
-                    scheduleAutoScroll(packageName, analysis.riskLevel);
+                    scheduleAutoScroll(event.getWindowId(), packageName, analysis.riskLevel);
                 }
             } else {
-                Log.d(TAG, String.format("✅ Conteúdo seguro - Score: %d", analysis.toxicityScore));
+                if (FastLog.D) FastLog.d(TAG, "✅ Conteúdo seguro - Score: %d", analysis.toxicityScore);
+            }
+            
+            if (postVerdictMemoEnabled) {
+                rememberPostVerdicts(newPosts, allText, analysis, event.getWindowId(), packageName);
             }
             
+            // Fast path crítico: substituir pelo resultado refinado ou retirar
+            resolveProvisionalOverlays(event.getWindowId(), packageName, event.getEventTime(), contentText, analysis);
+            
             long processingTime = System.currentTimeMillis() - startTime;
-            Log.d(TAG, String.format("⚡ Análise completa em %dms", processingTime));
+            rateController.recordAnalysisLatency(processingTime);
+            if (FastLog.D) FastLog.d(TAG, "⚡ Análise completa em %dms", processingTime);
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Erro crítico na análise", e);
@@ -182,33 +506,247 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
             if (rootNode != null) {
                 rootNode.recycle();
             }
-            isAnalyzing = false;
+            traceRecorder.record(trace);
         }
     }
 
+    /**
+     * POSTS PULADOS PELO DIFF INCREMENTAL
+     * Não têm texto no extraído: saem dos alvos, e os que estavam bloqueados são
+     * recobertos quando os bounds mudaram (o feed rolou). O overlay anterior do post,
+     * se ainda está na tela, é movido para os bounds novos
+     */
+    private void recoverUnchangedPosts(List<PostTarget> postTargets, String packageName) {
+        for (Iterator<PostTarget> iterator = postTargets.iterator(); iterator.hasNext(); ) {
+            PostTarget target = iterator.next();
+            AIAnalysisResult verdict = target.unchangedVerdict;
+            if (verdict == null) continue;
+
+            iterator.remove();
+            if (!nodeFingerprintCache.markCovered(target)) continue;
+
+            overlayManager.showTrackedOverlay(
+                overlayTrackKey(target),
+                target.bounds,
+                verdict.triggerReason,
+                verdict.riskLevel,
+                verdict.confidence,
+                verdict.triggerType,
+                packageName,
+                null
+            );
+            if (FastLog.D) FastLog.d(TAG, "🔁 Post inalterado recoberto: %s em %s",
+                verdict.triggerType, packageName);
+        }
+    }
+
+    /**
+     * Só os posts cujo trecho contém um trigger do veredito da tela ficam bloqueados no
+     * diff incremental; os vizinhos inofensivos da mesma tela não são recobertos depois
+     */
+    private void markTriggerPosts(List<PostTarget> postTargets, StringBuilder allText, AIAnalysisResult analysis) {
+        for (PostTarget target : postTargets) {
+            if (target.fingerprint == 0 || target.textEnd <= target.textStart) continue;
+            if (aiEngine.containsAnyTrigger(allText.subSequence(target.textStart, target.textEnd),
+                                            analysis.foundTriggers)) {
+                nodeFingerprintCache.markBlocked(target, analysis);
+            }
+        }
+    }
+
+    /**
+     * Chave do overlay que acompanha o post (janela + fingerprint da subárvore, estável
+     * durante a rolagem); null sem fingerprint
+     */
+    private static String overlayTrackKey(PostTarget target) {
+        return target.fingerprint != 0 ? target.windowId + ":" + target.fingerprint : null;
+    }
+
+    /**
+     * MEMO DE VEREDITOS POR POST
+     * Posts folha já vistos na sessão saem do texto a pontuar e da lista de alvos; os
+     * bloqueados são recobertos imediatamente. Os posts folha novos vão para newPosts.
+     * @return texto extraído sem os trechos dos posts já julgados (buffer da lane, sem cópia)
+     */
+    private CharSequence applyPostVerdictMemo(StringBuilder allText, List<PostTarget> postTargets,
+                                        List<PostTarget> newPosts, String packageName) {
+        StringBuilder remaining = null;
+        int cursor = 0;
+        long now = SystemClock.uptimeMillis();
+
+        // Alvos em ordem de pré-ordem: os trechos dos posts folha são disjuntos e crescentes
+        for (int i = 0; i < postTargets.size(); i++) {
+            PostTarget target = postTargets.get(i);
+            if (!target.leaf || !target.hasIdentity()) continue;
+
+            long key = PostVerdictMemo.key(packageName, target);
+            AIAnalysisResult verdict = postVerdictMemo.lookup(key);
+            if (verdict == null) {
+                newPosts.add(target);
+                continue;
+            }
+
+            if (remaining == null) remaining = memoBuffers.acquire();
+            remaining.append(allText, cursor, Math.max(cursor, target.textStart));
+            cursor = Math.max(cursor, target.textEnd);
+            postTargets.remove(i--);
+
+            if (verdict.shouldBlock) {
+                nodeFingerprintCache.markBlocked(target, verdict);
+            } else {
+                nodeFingerprintCache.clearBlocked(target);
+            }
+            if (verdict.shouldBlock && postVerdictMemo.markCovered(key, target.bounds, now)) {
+                overlayManager.showTrackedOverlay(
+                    overlayTrackKey(target),
+                    target.bounds,
+                    verdict.triggerReason,
+                    verdict.riskLevel,
+                    verdict.confidence,
+                    verdict.triggerType,
+                    packageName,
+                    null
+                );
+                postVerdictMemo.recordRecover();
+                bridgeDispatcher.addStatsDelta("recovered", 1);
+                if (FastLog.D) FastLog.d(TAG, "🔁 Post revisitado recoberto: %s em %s",
+                    verdict.triggerType, packageName);
+            }
+        }
+        if (remaining == null) return allText;
+
+        remaining.append(allText, cursor, allText.length());
+        postVerdictMemo.recordSkippedChars(allText.length() - remaining.length());
+        return remaining;
+    }
+
+    /**
+     * GUARDAR VEREDITOS DOS POSTS NOVOS E CONTAR A EXPOSIÇÃO DE CADA UM
+     * Tela sem nenhum trigger: cada post dela também é seguro e não expõe a nada. Nos
+     * demais casos cada post é pontuado à parte em baixa prioridade, mesmo quando é o
+     * único post novo da tela (o texto da tela inclui o que está fora dos posts), e o
+     * veredito dele entra no memo e na exposição da sessão. Vereditos parciais (prazo
+     * excedido) não entram.
+     */
+    private void rememberPostVerdicts(List<PostTarget> newPosts, StringBuilder allText,
+                                      AIAnalysisResult analysis, int windowId, String packageName) {
+        if (newPosts.isEmpty() || analysis.partial) return;
+
+        if (!analysis.shouldBlock && !hasExposure(analysis)) {
+            for (PostTarget target : newPosts) {
+                postVerdictMemo.remember(PostVerdictMemo.key(packageName, target), analysis);
+            }
+            return;
+        }
+
+        for (PostTarget target : newPosts) {
+            long key = PostVerdictMemo.key(packageName, target);
+            String postText = allText.substring(target.textStart, target.textEnd).trim();
+            Rect coveredBounds = analysis.shouldBlock ? new Rect(target.bounds) : null;
+            analysisPipeline.submitBackground(windowId, packageName, () -> {
+                AIAnalysisResult verdict = aiEngine.prescoreContent(postText, packageName);
+                if (verdict.partial) return;
+                postVerdictMemo.remember(key, verdict);
+                // O veredito do próprio post decide se o diff incremental o trata como bloqueado
+                if (verdict.shouldBlock) {
+                    nodeFingerprintCache.markBlocked(target, verdict);
+                } else {
+                    nodeFingerprintCache.clearBlocked(target);
+                }
+                // Já coberto pelo overlay da tela: a próxima passada não o recobre nos mesmos bounds
+                if (verdict.shouldBlock && coveredBounds != null) {
+                    postVerdictMemo.markCovered(key, coveredBounds, SystemClock.uptimeMillis());
+                }
+                aiEngine.recordExposure(packageName, verdict);
+            });
+        }
+    }
+
+    private static boolean hasExposure(AIAnalysisResult analysis) {
+        return analysis.comparisonLevel > 0 || analysis.anxietyLevel > 0 ||
+               analysis.depressionRisk > 0 || analysis.bodyImageRisk > 0 || analysis.materialismLevel > 0;
+    }
+
+    /**
+     * Texto da janela diferente do último contado como exposição (sem posts identificáveis,
+     * o mesmo conteúdo reextraído a cada evento não conta de novo)
+     */
+    private boolean isNewScreenContent(String windowKey, CharSequence text) {
+        long h = 0xcbf29ce484222325L; // FNV-1a 64
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        Long previous = screenExposureHashes.put(windowKey, h);
+        return previous == null || previous != h;
+    }
+
+    /**
+     * SINAIS DO APARELHO para o controlador adaptativo
+     */
+    private AdaptiveRateController.Signals createDeviceSignals() {
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        return new AdaptiveRateController.Signals() {
+            @Override
+            public double queueBacklog() {
+                return analysisPipeline.getBacklog();
+            }
+
+            @Override
+            public int thermalStatus() {
+                return powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ?
+                    powerManager.getCurrentThermalStatus() : 0;
+            }
+
+            @Override
+            public boolean powerSaveMode() {
+                return powerManager != null && powerManager.isPowerSaveMode();
+            }
+        };
+    }
+
+    /**
+     * TICK DO CONTROLADOR ADAPTATIVO (thread principal, a mesma da coalescência)
+     */
+    private void tickRateController() {
+        if (!realTimeAnalysis || !adaptiveRateEnabled) return;
+        rateController.tick();
+        applyRateSettings();
+        mainHandler.postDelayed(rateControllerTick, RATE_CONTROLLER_TICK_MS);
+    }
+
+    private void applyRateSettings() {
+        eventCoalescer.setRateScale(rateController.getRateScale());
+        contentAnalyzer.setLookaheadDepth(rateController.getLookaheadDepth());
+        analysisPipeline.setActiveLanes(rateController.getActiveLanes());
+    }
+
     /**
      * APLICAR PROTEÇÃO AVANÇADA EM MÚLTIPLAS CAMADAS
+     * Recebe apenas bounds já capturados na thread de análise - nenhum nó cruza threads
      */
-    private void applyAdvancedProtection(List<AccessibilityNodeInfo> postElements, 
-                                       AIAnalysisResult analysis, String packageName) {
+    private void applyAdvancedProtection(List<PostTarget> postTargets, 
+                                       AIAnalysisResult analysis, String packageName,
+                                       TraceRecorder.Trace trace) {
+        Runnable onAttached = trace != null ? () -> trace.mark(TraceRecorder.OVERLAY_ATTACHED) : null;
+        if (trace != null) trace.mark(TraceRecorder.OVERLAY_POSTED);
         mainHandler.post(() -> {
             try {
-                for (AccessibilityNodeInfo postElement : postElements) {
-                    Rect bounds = new Rect();
-                    postElement.getBoundsInScreen(bounds);
-                    
+                for (PostTarget postTarget : postTargets) {
                     // Aplicar overlay protetivo com design avançado
-                    overlayManager.showAdvancedProtectiveOverlay(
-                        bounds, 
+                    overlayManager.showTrackedOverlay(
+                        overlayTrackKey(postTarget),
+                        postTarget.bounds, 
                         analysis.triggerReason, 
                         analysis.riskLevel,
                         analysis.confidence,
                         analysis.triggerType,
-                        packageName
+                        packageName,
+                        onAttached
                     );
                     
-                    Log.d(TAG, String.format("🛡️ Overlay aplicado: %s (%d%% confiança)", 
-                        analysis.triggerType, analysis.confidence));
+                    if (FastLog.D) FastLog.d(TAG, "🛡️ Overlay aplicado: %s (%d%% confiança)", 
+                        analysis.triggerType, analysis.confidence);
                 }
                 
             } catch (Exception e) {
@@ -220,14 +758,14 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
     /**
      * AUTO-SCROLL INTELIGENTE BASEADO NO APP E RISCO
      */
-    private void scheduleAutoScroll(String packageName, String riskLevel) {
+    private void scheduleAutoScroll(int windowId, String packageName, String riskLevel) {
         // Delay baseado no nível de risco
         int delay = "Alto".equals(riskLevel) ? 2000 : 
                    "Médio".equals(riskLevel) ? 3000 : 4000;
         
         mainHandler.postDelayed(() -> {
             try {
-                boolean scrolled = autoScrollController.performIntelligentScroll(packageName);
+                boolean scrolled = autoScrollController.performIntelligentScroll(windowId, packageName);
                 if (scrolled) {
                     Log.d(TAG, String.format("📜 Auto-scroll executado para %s", packageName));
                 }
@@ -237,25 +775,14 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         }, delay);
     }
 
+    /**
+     * NOTIFICAR BLOQUEIO - entra no lote da bridge em vez de um emit por bloqueio
+     */
     private void notifyContentBlocked(AIAnalysisResult analysis, String appName) {
-        try {
-            WritableMap params = Arguments.createMap();
-            params.putString("appName", appName);
-            params.putString("triggerReason", analysis.triggerReason);
-            params.putString("triggerType", analysis.triggerType);
-            params.putString("riskLevel", analysis.riskLevel);
-            params.putDouble("confidence", analysis.confidence);
-            params.putDouble("toxicityScore", analysis.toxicityScore);
-            params.putString("timestamp", String.valueOf(System.currentTimeMillis()));
-            params.putDouble("processingTime", analysis.processingTime);
-            params.putString("aiVersion", "PsychAI v4.0");
-            
-            // Enviar para React Native
-            sendEventToReactNative("onContentBlocked", params);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Erro ao notificar React Native", e);
-        }
+        bridgeDispatcher.enqueueBlock(analysis, appName);
+        bridgeDispatcher.addStatsDelta("blocked", 1);
+        eventJournal.recordBlock(appName, analysis);
+        rollupStore.recordBlock(appName, analysis.triggerType, System.currentTimeMillis());
     }
 
     private void sendEventToReactNative(String eventName, WritableMap params) {
@@ -293,6 +820,8 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
             // Parar análise e limpar overlays
             stopRealTimeAnalysis();
             overlayManager.hideAllOverlays();
+            provisionalOverlays.clear();
+            screenExposureHashes.clear();
         }
     }
 
@@ -302,6 +831,16 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
                 aiEngine.updateConfigurationFromJson(settingsJson);
                 Log.d(TAG, "🧠 Configurações da IA atualizadas");
             }
+            if (eventCoalescer != null) {
+                eventCoalescer.updateConfigurationFromJson(settingsJson);
+            }
+            if (contentAnalyzer != null) {
+                contentAnalyzer.updateConfigurationFromJson(settingsJson);
+            }
+            FastLog.updateConfigurationFromJson(settingsJson);
+            if (bridgeDispatcher != null) {
+                bridgeDispatcher.updateConfigurationFromJson(settingsJson);
+            }
         } catch (Exception e) {
             Log.e(TAG, "❌ Erro ao atualizar configurações da IA", e);
         }
@@ -320,6 +859,11 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         Log.d(TAG, String.format("📜 Auto-scroll %s", enabled ? "ATIVADO" : "DESATIVADO"));
     }
 
+    public void setCriticalFastPathEnabled(boolean enabled) {
+        this.criticalFastPathEnabled = enabled;
+        Log.d(TAG, String.format("⚡ Fast path crítico %s", enabled ? "ATIVADO" : "DESATIVADO"));
+    }
+
     public boolean isServiceRunning() {
         return isProtectionActive && instance != null;
     }
@@ -328,13 +872,167 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
         return analysisCount;
     }
 
+    /**
+     * Contadores de coalescência: eventos recebidos, mesclados, descartados e despachados
+     */
+    public Map<String, Object> getEventCoalescerStats() {
+        return eventCoalescer != null ? eventCoalescer.getStats() : new HashMap<>();
+    }
+
+    /**
+     * Diff incremental: nós visitados por passada e subárvores puladas
+     */
+    public Map<String, Object> getTreeDiffStats() {
+        return nodeFingerprintCache.getStats();
+    }
+
+    /**
+     * Lookahead: posts pré-pontuados e latência tela -> overlay (lookahead vs. análise normal)
+     */
+    public Map<String, Object> getLookaheadStats() {
+        return lookaheadCache.getStats();
+    }
+
+    /**
+     * Memo de vereditos por post: acertos, posts recobertos e caracteres que deixaram de ser pontuados
+     */
+    public Map<String, Object> getPostVerdictMemoStats() {
+        return postVerdictMemo.getStats();
+    }
+
+    public void setPostVerdictMemoEnabled(boolean enabled) {
+        this.postVerdictMemoEnabled = enabled;
+        if (!enabled) postVerdictMemo.clear();
+        Log.d(TAG, String.format("🔁 Memo de vereditos por post %s", enabled ? "ATIVADO" : "DESATIVADO"));
+    }
+
+    /**
+     * Controlador adaptativo: capacidade atual, escala de ritmo, lanes ativas e cortes por calor/bateria
+     */
+    public Map<String, Object> getAdaptiveRateStats() {
+        return rateController != null ? rateController.getStats() : new HashMap<>();
+    }
+
+    public void setAdaptiveRateEnabled(boolean enabled) {
+        this.adaptiveRateEnabled = enabled;
+        mainHandler.removeCallbacks(rateControllerTick);
+        if (rateController != null) {
+            // Desligado: volta ao ritmo fixo inicial
+            rateController.reset();
+            applyRateSettings();
+            if (enabled && realTimeAnalysis) mainHandler.postDelayed(rateControllerTick, RATE_CONTROLLER_TICK_MS);
+        }
+        Log.d(TAG, String.format("📈 Controle adaptativo de ritmo %s", enabled ? "ATIVADO" : "DESATIVADO"));
+    }
+
+    /**
+     * Traces ponta a ponta: percentis por estágio (coalescência, fila, extração, pontuação,
+     * overlay) e os traces mais lentos
+     */
+    public Map<String, Object> getTraceStats() {
+        return traceRecorder.getStats();
+    }
+
+    public void setTracingEnabled(boolean enabled) {
+        traceRecorder.setEnabled(enabled);
+        if (!enabled) traceRecorder.clear();
+        Log.d(TAG, String.format("⏱️ Tracing %s", enabled ? "ATIVADO" : "DESATIVADO"));
+    }
+
+    /**
+     * Lotes da bridge: emits e registros por segundo, bloqueios mesclados e descartados
+     */
+    public Map<String, Object> getBridgeStats() {
+        return bridgeDispatcher != null ? bridgeDispatcher.getStats() : new HashMap<>();
+    }
+
+    /**
+     * Histórico local: totais de bloqueios, revelações, pulos, auto-remoções e análises
+     * no intervalo [fromMs, toMs] (epoch ms), com bloqueios por app
+     */
+    public Map<String, Object> getJournalSummary(long fromMs, long toMs) {
+        if (eventJournal == null) return new HashMap<>();
+        Map<String, Object> summary = eventJournal.summarize(fromMs, toMs);
+        summary.put("journal", eventJournal.getStats());
+        return summary;
+    }
+
+    /**
+     * Bloqueios agregados: os últimos `periods` minutos/horas/dias, por app e categoria
+     * @param resolution "minute", "hour" ou "day"
+     * @param appName pacote ou null para todos
+     * @param category triggerType ou null para todas
+     */
+    public Map<String, Object> getBlockRollups(String resolution, int periods, String appName, String category) {
+        int index = RollupStore.resolutionFor(resolution);
+        if (index < 0) throw new IllegalArgumentException("Resolução inválida: " + resolution);
+        if (rollupStore == null) return new HashMap<>();
+        return rollupStore.query(index, periods, appName, category, System.currentTimeMillis());
+    }
+
+    /**
+     * Registros do histórico local no intervalo, em ordem cronológica
+     */
+    public List<Map<String, Object>> getJournalRecords(long fromMs, long toMs) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        if (eventJournal == null) return records;
+        for (EventJournal.JournalRecord record : eventJournal.query(fromMs, toMs)) records.add(record.toMap());
+        return records;
+    }
+
+    /**
+     * Últimas entradas do log de baixo custo, decodificadas agora
+     */
+    public List<String> getRecentLogs(int maxEntries) {
+        return FastLog.dump(maxEntries);
+    }
+
+    public void setLookaheadEnabled(boolean enabled) {
+        this.lookaheadEnabled = enabled;
+        if (!enabled) lookaheadCache.clear();
+        Log.d(TAG, String.format("🔮 Lookahead %s", enabled ? "ATIVADO" : "DESATIVADO"));
+    }
+
+    /**
+     * Orçamentos da extração e contagem de nós obtidos/vazados
+     */
+    public Map<String, Object> getExtractionStats() {
+        return contentAnalyzer != null ? contentAnalyzer.getExtractionStats() : new HashMap<>();
+    }
+
+    /**
+     * Métricas do pipeline: profundidade das filas, espera por prioridade, descartes por
+     * fila cheia e eventos cancelados por um mais novo da mesma janela
+     */
+    public Map<String, Object> getAnalysisPipelineStats() {
+        return analysisPipeline != null ? analysisPipeline.getStats() : new HashMap<>();
+    }
+
     private void startRealTimeAnalysis() {
         realTimeAnalysis = true;
+        mainHandler.removeCallbacks(rateControllerTick);
+        if (adaptiveRateEnabled) mainHandler.postDelayed(rateControllerTick, RATE_CONTROLLER_TICK_MS);
         Log.d(TAG, "🚀 Análise em tempo real iniciada");
     }
 
     private void stopRealTimeAnalysis() {
         realTimeAnalysis = false;
+        mainHandler.removeCallbacks(rateControllerTick);
+        if (eventCoalescer != null) {
+            eventCoalescer.clear();
+        }
+        if (analysisPipeline != null) {
+            analysisPipeline.clear();
+        }
+        nodeFingerprintCache.clear();
+        lookaheadCache.clear();
+        postVerdictMemo.clear();
+        if (bridgeDispatcher != null) {
+            bridgeDispatcher.flushNow();
+        }
+        if (eventJournal != null) {
+            eventJournal.flush();
+        }
         Log.d(TAG, "⏹️ Análise em tempo real parada");
     }
 
@@ -349,8 +1047,27 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
     public void onDestroy() {
         super.onDestroy();
         
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
+        mainHandler.removeCallbacks(rateControllerTick);
+        mainHandler.removeCallbacks(visibleWindowsRefresh);
+        
+        if (eventCoalescer != null) {
+            eventCoalescer.clear();
+        }
+        
+        if (analysisPipeline != null) {
+            analysisPipeline.shutdown();
+        }
+        
+        if (bridgeDispatcher != null) {
+            bridgeDispatcher.clear();
+        }
+        
+        if (eventJournal != null) {
+            eventJournal.close();
+        }
+        
+        if (rollupStore != null) {
+            rollupStore.close();
         }
         
         if (overlayManager != null) {
@@ -369,77 +1086,527 @@ public class RedeSeguraAccessibilityService extends AccessibilityService {
 
 /**
  * Classe para análise avançada de conteúdo
+ *
+ * Travessia iterativa (pilha explícita) com orçamentos de nós, profundidade e tempo,
+ * para árvores profundas do TikTok/Facebook não estourarem a pilha nem a latência.
+ * Todo nó filho obtido é reciclado via NodeLifecycle; o nó raiz pertence ao chamador.
+ *
+ * Extração só do viewport: nós invisíveis ao usuário ou fora dos bounds da janela
+ * (filhos pré-renderizados do RecyclerView) têm a subárvore inteira podada.
+ *
+ * Lookahead: os primeiros itens pré-renderizados logo abaixo do último item visível
+ * de um container rolável são extraídos à parte para pré-pontuação em baixa prioridade.
+ *
+ * Cada post recebe o trecho do texto extraído que veio da sua subárvore e uma
+ * identidade (caminho de view IDs + hash desse trecho) para o memo de vereditos.
+ *
+ * Detecção de posts: o container da assinatura de layout do app (LayoutSignatures) ou,
+ * sem assinatura, cada filho de uma lista rolável. Um post nunca contém outro, então cada
+ * item do feed vira exatamente um alvo, com bounds justos (partes do post no viewport).
  */
 class ContentAnalyzer {
-    
-    public List<AccessibilityNodeInfo> extractAllContent(AccessibilityNodeInfo rootNode, StringBuilder textBuilder) {
-        List<AccessibilityNodeInfo> postElements = new ArrayList<>();
+
+    // Orçamentos da extração - VOCÊ PODE AJUSTAR
+    private static final int MAX_NODES = 800;
+    private static final int MAX_DEPTH = 40;
+    private static final long MAX_EXTRACTION_NANOS = 30_000_000L; // 30ms
+    private static final int TIME_CHECK_INTERVAL = 16;
+    private static final int LOOKAHEAD_NODE_BUDGET = 120;
+
+    // Desligado: extrai também o que está fora da tela (para comparar custo antes/depois)
+    private volatile boolean viewportOnly = true;
+
+    // Itens pré-pontuados por container, ajustado pelo controlador adaptativo
+    private volatile int lookaheadDepth = 2;
+
+    // Estatísticas
+    private final AtomicInteger extractions = new AtomicInteger();
+    private final AtomicLong nodesVisited = new AtomicLong();
+    private final AtomicInteger nodeBudgetExhausted = new AtomicInteger();
+    private final AtomicInteger depthLimitHits = new AtomicInteger();
+    private final AtomicInteger timeBudgetExhausted = new AtomicInteger();
+    private final AtomicLong subtreesPrunedOffscreen = new AtomicLong();
+    private final AtomicLong charsExtracted = new AtomicLong();
+    private final AtomicLong extractionNanos = new AtomicLong();
+    private final AtomicInteger lookaheadCoveredSkips = new AtomicInteger();
+    private final AtomicLong signaturePosts = new AtomicLong();
+    private final AtomicLong structuralPosts = new AtomicLong();
+
+    private final LookaheadCache lookaheadCache;
+
+    // Botões, contadores e horários dos apps ficam fora do texto pontuado
+    private final ChromeFilter chromeFilter = new ChromeFilter();
+
+    // Container, legenda, autor e mídia de um post por app
+    private final LayoutSignatures layoutSignatures = new LayoutSignatures();
+
+    ContentAnalyzer(LookaheadCache lookaheadCache) {
+        this.lookaheadCache = lookaheadCache;
+    }
+
+    /**
+     * @param pass passada do cache de fingerprints; subárvores inalteradas desde a
+     *             passada anterior são puladas. null extrai a árvore inteira
+     * @param lookaheadItems recebe os itens logo abaixo do viewport a pré-pontuar; null desliga
+     * @return alvos de overlay (bounds) dos elementos de post encontrados
+     */
+    public List<PostTarget> extractAllContent(AccessibilityNodeInfo rootNode, String packageName,
+                                              StringBuilder textBuilder,
+                                              NodeFingerprintCache.Pass pass,
+                                              List<LookaheadItem> lookaheadItems) {
+        List<PostTarget> postTargets = new ArrayList<>();
         
-        if (rootNode == null) return postElements;
+        if (rootNode == null) return postTargets;
 
+        NodeLifecycle lifecycle = new NodeLifecycle();
+        long startNanos = System.nanoTime();
+        int startLength = textBuilder.length();
         try {
-            // Extrair texto de forma recursiva e inteligente
-            extractTextRecursively(rootNode, textBuilder, postElements);
+            Rect viewport = viewportOnly ? windowBounds(rootNode) : null;
+            extractIteratively(rootNode, chromeFilter.rulesFor(packageName),
+                               layoutSignatures.signatureFor(packageName), textBuilder, postTargets,
+                               pass, lifecycle, viewport,
+                               viewport != null ? lookaheadItems : null);
             
         } catch (Exception e) {
             Log.e("ContentAnalyzer", "Erro na extração de conteúdo", e);
+        } finally {
+            lifecycle.releaseAll();
+            if (pass != null) pass.finish();
+            extractionNanos.addAndGet(System.nanoTime() - startNanos);
+            charsExtracted.addAndGet(textBuilder.length() - startLength);
         }
         
-        return postElements;
+        return postTargets;
+    }
+
+    private void extractIteratively(AccessibilityNodeInfo rootNode, ChromeFilter.Rules chrome,
+                                    LayoutSignatures.Signature signature, StringBuilder textBuilder,
+                                    List<PostTarget> postTargets, NodeFingerprintCache.Pass pass,
+                                    NodeLifecycle lifecycle, Rect viewport,
+                                    List<LookaheadItem> lookaheadItems) {
+        long deadline = System.nanoTime() + MAX_EXTRACTION_NANOS;
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(rootNode, 0, 0, null, null, false, false));
+
+        // Itens de lista do app com padrão de container: viram os posts se nenhum container casar
+        List<PostTarget> fallbackTargets = new ArrayList<>();
+        int containerMatches = 0;
+
+        int visited = 0;
+        Rect bounds = new Rect();
+        extractions.incrementAndGet();
+
+        try {
+            while (!stack.isEmpty()) {
+                if (visited >= MAX_NODES) {
+                    nodeBudgetExhausted.incrementAndGet();
+                    break;
+                }
+                if (visited % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                    timeBudgetExhausted.incrementAndGet();
+                    break;
+                }
+
+                Frame frame = stack.pop();
+                AccessibilityNodeInfo node = frame.node;
+                if (node == null) {
+                    // Marcador: a subárvore do post terminou dentro do orçamento
+                    frame.post.close(textBuilder, textBuilder.length());
+                    frame.post.tighten(viewport);
+                    continue;
+                }
+                int depth = frame.depth;
+                visited++;
+
+                try {
+                    node.getBoundsInScreen(bounds);
+
+                    // Viewport: invisível ou fora da janela poda a subárvore inteira
+                    if (viewport != null && (!node.isVisibleToUser() ||
+                            !Rect.intersects(viewport, bounds))) {
+                        subtreesPrunedOffscreen.incrementAndGet();
+                        continue;
+                    }
+
+                    String viewId = node.getViewIdResourceName();
+                    int pathHash = 31 * frame.pathHash +
+                        (viewId != null ? viewId.hashCode() : hash(node.getClassName()));
+                    int role = signature != null ? signature.roleOf(viewId) : LayoutSignatures.NONE;
+
+                    PostTarget post = frame.post;
+                    PostTarget fallback = frame.fallback;
+                    boolean postRoot = post == null && isPostRoot(signature, role, frame.feedItem);
+                    boolean fallbackRoot = isFallbackRoot(signature, post, fallback, frame.feedItem);
+                    if (postRoot && role == LayoutSignatures.CONTAINER) containerMatches++;
+
+                    // Diff incremental: subárvore já analisada numa passada anterior. Um post
+                    // pulado que estava bloqueado volta como alvo, nos bounds atuais
+                    long fingerprint = pass != null ? pass.subtreeFingerprint(node, bounds) : 0;
+                    if (pass != null && pass.isUnchanged(node, fingerprint)) {
+                        AIAnalysisResult blocked = postRoot || fallbackRoot ? pass.blockedVerdict(fingerprint) : null;
+                        Rect targetBounds = new Rect(bounds);
+                        if (blocked != null && (viewport == null || targetBounds.intersect(viewport))) {
+                            PostTarget target = new PostTarget(targetBounds, viewId, node.getWindowId(),
+                                                               pathHash, textBuilder.length());
+                            target.close(textBuilder, textBuilder.length());
+                            target.fingerprint = fingerprint;
+                            target.unchangedVerdict = blocked;
+                            (postRoot ? postTargets : fallbackTargets).add(target);
+                        }
+                        includeSkipped(post, role, frame.inPart, bounds);
+                        includeSkipped(fallback, role, frame.inPart, bounds);
+                        continue;
+                    }
+
+                    // Chrome do app (barra de ações, contadores): subárvore fora do texto
+                    if (chromeFilter.isChromeView(chrome, viewId)) continue;
+
+                    int textStart = textBuilder.length();
+
+                    // Extrair texto do nó atual, menos rótulos de chrome
+                    appendNodeText(node.getText(), chrome, textBuilder);
+                    appendNodeText(node.getContentDescription(), chrome, textBuilder);
+
+                    boolean hasText = textBuilder.length() > textStart;
+
+                    // Identificar o post pela assinatura de layout do app ou pela estrutura
+                    if (postRoot) {
+                        PostTarget target = openPost(bounds, viewport, viewId, node, pathHash, textStart,
+                                                     fingerprint, depth, stack);
+                        if (target != null) {
+                            postTargets.add(target);
+                            (role == LayoutSignatures.CONTAINER ? signaturePosts : structuralPosts)
+                                .incrementAndGet();
+                            post = target;
+                        }
+                    }
+                    if (fallbackRoot) {
+                        PostTarget target = openPost(bounds, viewport, viewId, node, pathHash, textStart,
+                                                     fingerprint, depth, stack);
+                        if (target != null) {
+                            fallbackTargets.add(target);
+                            fallback = target;
+                        }
+                    }
+
+                    // Bounds justos só se todo o texto do post estiver em partes reconhecidas
+                    if (role > LayoutSignatures.CONTAINER) {
+                        if (post != null) post.includePart(bounds);
+                        if (fallback != null) fallback.includePart(bounds);
+                    } else if (hasText && !frame.inPart) {
+                        if (post != null) post.markLoose();
+                        if (fallback != null) fallback.markLoose();
+                    }
+
+                    if (depth >= MAX_DEPTH) {
+                        depthLimitHits.incrementAndGet();
+                        continue;
+                    }
+
+                    AccessibilityNodeInfo[] children = new AccessibilityNodeInfo[node.getChildCount()];
+                    for (int i = 0; i < children.length; i++) {
+                        children[i] = lifecycle.obtainChild(node, i);
+                    }
+                    if (lookaheadItems != null && node.isScrollable()) {
+                        collectLookahead(children, lookaheadItems, chrome, lifecycle);
+                    }
+                    boolean feedItems = post == null && isFeedContainer(node);
+                    boolean inPart = frame.inPart || role > LayoutSignatures.CONTAINER;
+
+                    // Filhos empilhados em ordem reversa para manter a ordem de leitura
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        if (children[i] != null) {
+                            stack.push(new Frame(children[i], depth + 1, pathHash, post, fallback,
+                                                 feedItems, inPart));
+                        }
+                    }
+                } finally {
+                    // Processado: reciclar já (a raiz não é da lifecycle e é ignorada)
+                    lifecycle.release(node);
+                }
+            }
+
+            // Nenhum container casou (IDs do app mudaram numa atualização): regra estrutural
+            if (containerMatches == 0 && !fallbackTargets.isEmpty()) {
+                postTargets.addAll(fallbackTargets);
+                structuralPosts.addAndGet(fallbackTargets.size());
+            }
+        } finally {
+            nodesVisited.addAndGet(visited);
+        }
+    }
+
+    /**
+     * Abrir o alvo de um post (recortado ao viewport) e empilhar o marcador que o fecha;
+     * null se o post está fora do viewport
+     */
+    private static PostTarget openPost(Rect bounds, Rect viewport, String viewId, AccessibilityNodeInfo node,
+                                       int pathHash, int textStart, long fingerprint, int depth,
+                                       ArrayDeque<Frame> stack) {
+        Rect targetBounds = new Rect(bounds);
+        if (viewport != null && !targetBounds.intersect(viewport)) return null;
+
+        PostTarget target = new PostTarget(targetBounds, viewId, node.getWindowId(), pathHash, textStart);
+        target.fingerprint = fingerprint;
+        // Desempilhado depois de todos os filhos: fecha a identidade do post
+        stack.push(new Frame(null, depth, 0, target, null, false, false));
+        return target;
     }
 
-    private void extractTextRecursively(AccessibilityNodeInfo node, StringBuilder textBuilder, 
-                                      List<AccessibilityNodeInfo> postElements) {
-        if (node == null) return;
+    /**
+     * Subárvore pulada pelo diff dentro de um post: uma parte entra com os bounds atuais;
+     * fora das partes, o texto dela é desconhecido e o post fica com os bounds do container
+     */
+    private static void includeSkipped(PostTarget post, int role, boolean inPart, Rect bounds) {
+        if (post == null) return;
+        if (role > LayoutSignatures.CONTAINER) {
+            post.includePart(bounds);
+        } else if (!inPart) {
+            post.markLoose();
+        }
+    }
 
-        // Extrair texto do nó atual
-        CharSequence text = node.getText();
-        if (text != null && text.length() > 0) {
+    /**
+     * Texto de um nó no buffer, menos rótulos de chrome; o selo de patrocinado entra
+     * como ChromeFilter.SPONSORED_MARKER, no trecho do post a que pertence
+     */
+    private void appendNodeText(CharSequence text, ChromeFilter.Rules chrome, StringBuilder textBuilder) {
+        if (text == null || text.length() == 0) return;
+        if (!chromeFilter.isChromeLabel(chrome, text)) {
             textBuilder.append(text).append(" ");
+        } else if (chromeFilter.isSponsoredLabel(text)) {
+            textBuilder.append(ChromeFilter.SPONSORED_MARKER).append(" ");
         }
-        
-        CharSequence contentDescription = node.getContentDescription();
-        if (contentDescription != null && contentDescription.length() > 0) {
-            textBuilder.append(contentDescription).append(" ");
+    }
+
+    /**
+     * Mesmo valor de String.hashCode, sem converter o CharSequence do nó
+     */
+    private static int hash(CharSequence value) {
+        if (value == null) return 0;
+        int h = 0;
+        for (int i = 0; i < value.length(); i++) h = 31 * h + value.charAt(i);
+        return h;
+    }
+
+    /**
+     * Nó na pilha da travessia; node null marca o fim da subárvore de um post
+     */
+    private static final class Frame {
+        final AccessibilityNodeInfo node;
+        final int depth;
+        final int pathHash;      // caminho do pai
+        final PostTarget post;   // post que contém o nó (ou que termina, no marcador)
+        final PostTarget fallback; // item de lista que contém o nó, se nenhum container casar
+        final boolean feedItem;  // filho direto de uma lista rolável
+        final boolean inPart;    // dentro de uma legenda, autor ou mídia
+
+        Frame(AccessibilityNodeInfo node, int depth, int pathHash, PostTarget post, PostTarget fallback,
+              boolean feedItem, boolean inPart) {
+            this.node = node;
+            this.depth = depth;
+            this.pathHash = pathHash;
+            this.post = post;
+            this.fallback = fallback;
+            this.feedItem = feedItem;
+            this.inPart = inPart;
         }
+    }
 
-        // Identificar elementos de post baseado na estrutura do app
-        if (isPostElement(node)) {
-            postElements.add(node);
+    /**
+     * LOOKAHEAD nos itens de um container rolável
+     * Itens já cobertos pelo lookahead saem da extração; os primeiros itens invisíveis
+     * depois do último visível (logo abaixo da tela) viram LookaheadItem
+     */
+    private void collectLookahead(AccessibilityNodeInfo[] items, List<LookaheadItem> lookaheadItems,
+                                  ChromeFilter.Rules chrome, NodeLifecycle lifecycle) {
+        long now = System.currentTimeMillis();
+        int lastVisible = -1;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null) continue;
+            long key = LookaheadCache.key(items[i]);
+            if (!items[i].isVisibleToUser()) {
+                lookaheadCache.markOffscreen(key);
+                continue;
+            }
+            lastVisible = i;
+            if (lookaheadCache.isCovered(key, now) &&
+                    lookaheadCache.isCoveredContent(key, subtreeTextHash(items[i], chrome, lifecycle))) {
+                lookaheadCoveredSkips.incrementAndGet();
+                lifecycle.release(items[i]);
+                items[i] = null;
+            }
         }
+        if (lastVisible < 0) return;
 
-        // Recursivamente extrair texto dos filhos
-        int childCount = node.getChildCount();
-        for (int i = 0; i < childCount; i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                extractTextRecursively(child, textBuilder, postElements);
-                // Não reciclar aqui - será feito no final
+        int collected = 0;
+        int maxItems = lookaheadDepth;
+        for (int i = lastVisible + 1; i < items.length && collected < maxItems; i++) {
+            AccessibilityNodeInfo item = items[i];
+            if (item == null || item.isVisibleToUser()) continue;
+
+            // O texto vem antes da reserva: a view pode ter sido reaproveitada com outro conteúdo
+            StringBuilder text = new StringBuilder();
+            appendSubtreeText(item, text, chrome, lifecycle);
+            long key = LookaheadCache.key(item);
+            long contentHash = LookaheadCache.contentHash(text);
+            if (text.length() >= 10 &&
+                    lookaheadCache.shouldPrescore(key, LookaheadCache.shape(item), contentHash, now)) {
+                lookaheadItems.add(new LookaheadItem(key, contentHash, text.toString().trim()));
+                collected++;
             }
+            lifecycle.release(item);
+            items[i] = null;
         }
     }
 
-    private boolean isPostElement(AccessibilityNodeInfo node) {
-        // Lógica para identificar elementos de post baseado em:
-        // - IDs de recursos
-        // - Classes de view
-        // - Estrutura hierárquica
-        // - Dimensões do elemento
-        
-        String resourceId = node.getViewIdResourceName();
-        String className = node.getClassName() != null ? node.getClassName().toString() : "";
-        
-        // Padrões comuns de posts em redes sociais
-        return (resourceId != null && (
-            resourceId.contains("post") ||
-            resourceId.contains("feed") ||
-            resourceId.contains("item") ||
-            resourceId.contains("card")
-        )) || (
-            className.contains("RecyclerView") ||
-            className.contains("ListView") ||
-            className.contains("ScrollView")
-        );
+    /**
+     * Hash do texto de um item do feed, o mesmo que o lookahead guardou na pré-pontuação
+     * (chamado fora da extração, p.ex. na thread de eventos)
+     */
+    long lookaheadContentHash(AccessibilityNodeInfo item, String packageName) {
+        NodeLifecycle lifecycle = new NodeLifecycle();
+        try {
+            return subtreeTextHash(item, chromeFilter.rulesFor(packageName), lifecycle);
+        } finally {
+            lifecycle.releaseAll();
+        }
+    }
+
+    private long subtreeTextHash(AccessibilityNodeInfo item, ChromeFilter.Rules chrome,
+                                 NodeLifecycle lifecycle) {
+        StringBuilder text = new StringBuilder();
+        appendSubtreeText(item, text, chrome, lifecycle);
+        return LookaheadCache.contentHash(text);
+    }
+
+    /**
+     * Texto de uma subárvore fora da tela, com orçamento próprio de nós
+     */
+    private void appendSubtreeText(AccessibilityNodeInfo root, StringBuilder textBuilder,
+                                   ChromeFilter.Rules chrome, NodeLifecycle lifecycle) {
+        ArrayDeque<AccessibilityNodeInfo> stack = new ArrayDeque<>();
+        stack.push(root);
+        int visited = 0;
+
+        while (!stack.isEmpty() && visited < LOOKAHEAD_NODE_BUDGET) {
+            AccessibilityNodeInfo node = stack.pop();
+            visited++;
+
+            if (chromeFilter.isChromeView(chrome, node.getViewIdResourceName())) {
+                if (node != root) lifecycle.release(node);
+                continue;
+            }
+
+            appendNodeText(node.getText(), chrome, textBuilder);
+            appendNodeText(node.getContentDescription(), chrome, textBuilder);
+
+            for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                AccessibilityNodeInfo child = lifecycle.obtainChild(node, i);
+                if (child != null) stack.push(child);
+            }
+            if (node != root) lifecycle.release(node);
+        }
+        // O que sobrou na pilha é reciclado pelo releaseAll() da extração
+    }
+
+    /**
+     * Bounds da janela do nó raiz; sem a janela, os bounds do próprio nó raiz
+     */
+    private Rect windowBounds(AccessibilityNodeInfo rootNode) {
+        Rect viewport = new Rect();
+        AccessibilityWindowInfo window = rootNode.getWindow();
+        if (window != null) {
+            try {
+                window.getBoundsInScreen(viewport);
+            } finally {
+                window.recycle();
+            }
+        }
+        if (viewport.isEmpty()) rootNode.getBoundsInScreen(viewport);
+        return viewport;
+    }
+
+    void setLookaheadDepth(int depth) {
+        lookaheadDepth = Math.max(0, depth);
+    }
+
+    void updateConfigurationFromJson(String configJson) {
+        try {
+            JSONObject config = new JSONObject(configJson);
+            if (config.has("viewportOnlyExtraction")) {
+                viewportOnly = config.getBoolean("viewportOnlyExtraction");
+            }
+            chromeFilter.updateConfigurationFromJson(configJson);
+            layoutSignatures.updateConfigurationFromJson(configJson);
+        } catch (Exception e) {
+            Log.e("ContentAnalyzer", "Erro ao atualizar configuração de extração", e);
+        }
+    }
+
+    public Map<String, Object> getExtractionStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int count = extractions.get();
+        stats.put("extractions", count);
+        stats.put("averageNodesVisited", count > 0 ? nodesVisited.get() / (double) count : 0);
+        stats.put("nodeBudgetExhausted", nodeBudgetExhausted.get());
+        stats.put("depthLimitHits", depthLimitHits.get());
+        stats.put("timeBudgetExhausted", timeBudgetExhausted.get());
+        stats.put("nodesObtained", NodeLifecycle.getTotalObtained());
+        stats.put("nodesLeaked", NodeLifecycle.getLeakedNodes());
+        stats.put("viewportOnly", viewportOnly);
+        stats.put("subtreesPrunedOffscreen", subtreesPrunedOffscreen.get());
+        stats.put("averageCharsExtracted", count > 0 ? charsExtracted.get() / (double) count : 0);
+        stats.put("averageExtractionMicros", count > 0 ? extractionNanos.get() / 1000.0 / count : 0);
+        stats.put("lookaheadCoveredSkips", lookaheadCoveredSkips.get());
+        stats.put("lookaheadDepth", lookaheadDepth);
+        stats.put("signaturePosts", signaturePosts.get());
+        stats.put("structuralPosts", structuralPosts.get());
+        stats.putAll(chromeFilter.getStats());
+        stats.putAll(layoutSignatures.getStats());
+        return stats;
+    }
+
+    /**
+     * Raiz de um post: o container da assinatura do app; sem padrão de container,
+     * o item de uma lista rolável
+     */
+    private static boolean isPostRoot(LayoutSignatures.Signature signature, int role, boolean feedItem) {
+        if (signature != null && signature.hasContainer) return role == LayoutSignatures.CONTAINER;
+        return feedItem;
+    }
+
+    /**
+     * Item de lista rolável num app com padrão de container: só vira post se nenhum
+     * container casar na passada
+     */
+    private static boolean isFallbackRoot(LayoutSignatures.Signature signature, PostTarget post,
+                                          PostTarget fallback, boolean feedItem) {
+        return feedItem && post == null && fallback == null && signature != null && signature.hasContainer;
+    }
+
+    /**
+     * Alvo de um bloqueio sem nenhum post identificado (p.ex. app sem assinatura fora de
+     * listas roláveis): os bounds da origem do evento, ou os da janela
+     */
+    PostTarget sourceTarget(AccessibilityNodeInfo source) {
+        Rect bounds = new Rect();
+        source.getBoundsInScreen(bounds);
+        if (bounds.isEmpty()) bounds = windowBounds(source);
+        return new PostTarget(bounds, source.getViewIdResourceName(), source.getWindowId());
+    }
+
+    /**
+     * Lista rolável cujos filhos são itens do feed (ScrollView não: o filho é a página inteira)
+     */
+    private static boolean isFeedContainer(AccessibilityNodeInfo node) {
+        if (!node.isScrollable()) return false;
+        CharSequence className = node.getClassName();
+        if (className == null) return false;
+        String name = className.toString();
+        return name.endsWith("RecyclerView") || name.endsWith("ListView") ||
+               name.endsWith("GridView") || name.endsWith("ViewPager");
     }
 }
 
@@ -455,9 +1622,14 @@ class AutoScrollController {
         this.service = service;
     }
 
-    public boolean performIntelligentScroll(String packageName) {
+    /**
+     * Rola a janela onde o conteúdo foi bloqueado (em tela dividida, não necessariamente a ativa)
+     */
+    public boolean performIntelligentScroll(int windowId, String packageName) {
+        AccessibilityNodeInfo rootNode = null;
         try {
-            AccessibilityNodeInfo rootNode = service.getRootInActiveWindow();
+            // Sem a janela do bloqueio não há o que rolar: a ativa pode ser outro app
+            rootNode = rootOfWindow(windowId);
             if (rootNode == null) return false;
 
             // Scroll específico por app
@@ -477,7 +1649,23 @@ class AutoScrollController {
         } catch (Exception e) {
             Log.e("AutoScrollController", "Erro no auto-scroll", e);
             return false;
+        } finally {
+            if (rootNode != null) {
+                rootNode.recycle();
+            }
+        }
+    }
+
+    private AccessibilityNodeInfo rootOfWindow(int windowId) {
+        List<AccessibilityWindowInfo> windows = service.getWindows();
+        if (windows == null) return null;
+
+        AccessibilityNodeInfo root = null;
+        for (AccessibilityWindowInfo window : windows) {
+            if (root == null && window.getId() == windowId) root = window.getRoot();
+            window.recycle();
         }
+        return root;
     }
 
     private boolean performInstagramScroll(AccessibilityNodeInfo rootNode) {
@@ -521,6 +1709,7 @@ class AIAnalysisResult {
     public final int anxietyLevel;
     public final int depressionRisk;
     public final int bodyImageRisk;
+    public final int materialismLevel;
     public final List<String> foundTriggers;
     public final boolean shouldBlock;
     public final int confidence;
@@ -529,17 +1718,39 @@ class AIAnalysisResult {
     public final String riskLevel;
     public final long processingTime;
     public final List<String> contextualFactors;
+    public final boolean partial; // Prazo da análise excedido - veredito com os estágios concluídos
 
     public AIAnalysisResult(int toxicityScore, int comparisonLevel, int anxietyLevel,
                            int depressionRisk, int bodyImageRisk, List<String> foundTriggers,
                            boolean shouldBlock, int confidence, String triggerType,
                            String triggerReason, String riskLevel, long processingTime,
                            List<String> contextualFactors) {
+        this(toxicityScore, comparisonLevel, anxietyLevel, depressionRisk, bodyImageRisk,
+             foundTriggers, shouldBlock, confidence, triggerType, triggerReason, riskLevel,
+             processingTime, contextualFactors, false);
+    }
+
+    public AIAnalysisResult(int toxicityScore, int comparisonLevel, int anxietyLevel,
+                           int depressionRisk, int bodyImageRisk, List<String> foundTriggers,
+                           boolean shouldBlock, int confidence, String triggerType,
+                           String triggerReason, String riskLevel, long processingTime,
+                           List<String> contextualFactors, boolean partial) {
+        this(toxicityScore, comparisonLevel, anxietyLevel, depressionRisk, bodyImageRisk, 0,
+             foundTriggers, shouldBlock, confidence, triggerType, triggerReason, riskLevel,
+             processingTime, contextualFactors, partial);
+    }
+
+    public AIAnalysisResult(int toxicityScore, int comparisonLevel, int anxietyLevel,
+                           int depressionRisk, int bodyImageRisk, int materialismLevel,
+                           List<String> foundTriggers, boolean shouldBlock, int confidence,
+                           String triggerType, String triggerReason, String riskLevel,
+                           long processingTime, List<String> contextualFactors, boolean partial) {
         this.toxicityScore = toxicityScore;
         this.comparisonLevel = comparisonLevel;
         this.anxietyLevel = anxietyLevel;
         this.depressionRisk = depressionRisk;
         this.bodyImageRisk = bodyImageRisk;
+        this.materialismLevel = materialismLevel;
         this.foundTriggers = foundTriggers;
         this.shouldBlock = shouldBlock;
         this.confidence = confidence;
@@ -548,6 +1759,7 @@ class AIAnalysisResult {
         this.riskLevel = riskLevel;
         this.processingTime = processingTime;
         this.contextualFactors = contextualFactors;
+        this.partial = partial;
     }
 }
 
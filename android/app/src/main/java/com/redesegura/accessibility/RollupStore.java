@@ -0,0 +1,315 @@
+package com.redesegura.accessibility;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Agregados de bloqueios por minuto, hora e dia, por app e categoria
+ *
+ * Cada resolução é um ring de contadores int[célula][bucket], onde a célula é o par
+ * (app, categoria) e o bucket é o período (hora local) módulo o tamanho do ring. Cada
+ * bloqueio incrementa um contador por resolução; o bucket que volta a ser usado por um
+ * período novo é zerado na hora. A consulta lê no máximo BUCKETS[resolução] períodos,
+ * independente de quanto histórico existe.
+ *
+ * Apps e categorias fora das listas conhecidas caem na célula "other".
+ *
+ * Os contadores são persistidos num arquivo mapeado em memória próprio (o ring do
+ * EventJournal não guarda 90 dias de bloqueios): cada incremento e cada bucket zerado
+ * são gravados também no arquivo, e na abertura os rings são lidos de volta. Só um
+ * arquivo novo ou de outro formato é reconstruído a partir do EventJournal.
+ *
+ * Layout: cabeçalho (magic, versão, células, buckets por resolução), depois, por
+ * resolução, o período de cada bucket (long) e os contadores [célula][bucket] (int)
+ */
+class RollupStore {
+
+    private static final String TAG = "RollupStore";
+    private static final String FILE_NAME = "redesegura_rollups.bin";
+    private static final int MAGIC = 0x52535231; // "RSR1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Categorias = triggerType do PsychAIEngine
+    static final List<String> CATEGORIES = Arrays.asList(
+        "Comparação Social",
+        "Ansiedade/FOMO",
+        "Risco de Depressão",
+        "Imagem Corporal",
+        "Materialismo Excessivo",
+        "Análise Geral"
+    );
+
+    static final int MINUTE = 0;
+    static final int HOUR = 1;
+    static final int DAY = 2;
+    private static final String[] RESOLUTION_NAMES = {"minute", "hour", "day"};
+    private static final long[] PERIOD_MS = {60_000L, 3_600_000L, 86_400_000L};
+    static final int[] BUCKETS = {120, 168, 90}; // 2 horas, 7 dias, 90 dias
+
+    private final List<String> knownApps;
+    private final int appCount;
+    private final int categoryCount = CATEGORIES.size() + 1;
+
+    private final int[][][] counts = new int[RESOLUTION_NAMES.length][][];
+    private final long[][] bucketPeriods = new long[RESOLUTION_NAMES.length][];
+    private final int[] sectionOffsets = new int[RESOLUTION_NAMES.length];
+    private long totalBlocks = 0;
+    private MappedByteBuffer buffer;
+    private FileChannel channel;
+    private boolean restored = false;
+
+    /**
+     * @param directory onde fica o arquivo dos agregados; null mantém só em memória
+     */
+    RollupStore(File directory, List<String> knownApps) {
+        this.knownApps = knownApps;
+        this.appCount = knownApps.size() + 1;
+        int offset = HEADER_SIZE;
+        for (int resolution = 0; resolution < RESOLUTION_NAMES.length; resolution++) {
+            counts[resolution] = new int[appCount * categoryCount][BUCKETS[resolution]];
+            bucketPeriods[resolution] = new long[BUCKETS[resolution]];
+            Arrays.fill(bucketPeriods[resolution], -1);
+            sectionOffsets[resolution] = offset;
+            offset += BUCKETS[resolution] * (8 + 4 * appCount * categoryCount);
+        }
+        if (directory == null) return;
+
+        try {
+            open(new File(directory, FILE_NAME), offset);
+            Log.d(TAG, restored ? "📊 Agregados restaurados do arquivo" : "📊 Arquivo de agregados criado");
+        } catch (IOException e) {
+            buffer = null;
+            Log.e(TAG, "❌ Erro ao abrir agregados - serão reconstruídos do diário a cada conexão", e);
+        }
+    }
+
+    /**
+     * Os rings vieram do arquivo? false = arquivo novo: reconstruir do diário
+     */
+    synchronized boolean isRestored() {
+        return restored;
+    }
+
+    static int resolutionFor(String name) {
+        return Arrays.asList(RESOLUTION_NAMES).indexOf(name);
+    }
+
+    /**
+     * BLOQUEIO - incrementa um contador em cada resolução
+     */
+    synchronized void recordBlock(String appName, String category, long timestampMs) {
+        int cell = appIndex(appName) * categoryCount + categoryIndex(category);
+        for (int resolution = 0; resolution < RESOLUTION_NAMES.length; resolution++) {
+            long period = period(resolution, timestampMs);
+            int bucket = (int) (period % BUCKETS[resolution]);
+            long current = bucketPeriods[resolution][bucket];
+
+            if (current > period) continue; // mais antigo que o ring cobre
+            if (current < period) {
+                for (int c = 0; c < counts[resolution].length; c++) {
+                    counts[resolution][c][bucket] = 0;
+                    if (buffer != null) buffer.putInt(countOffset(resolution, c, bucket), 0);
+                }
+                bucketPeriods[resolution][bucket] = period;
+                if (buffer != null) buffer.putLong(periodOffset(resolution, bucket), period);
+            }
+            int count = ++counts[resolution][cell][bucket];
+            if (buffer != null) buffer.putInt(countOffset(resolution, cell, bucket), count);
+        }
+        totalBlocks++;
+    }
+
+    /**
+     * RECONSTRUIR a partir dos bloqueios do diário
+     */
+    synchronized void rebuild(List<EventJournal.JournalRecord> records) {
+        clear();
+        for (EventJournal.JournalRecord record : records) {
+            if (record.type == EventJournal.BLOCK) recordBlock(record.appName, record.category, record.timestamp);
+        }
+    }
+
+    /**
+     * CONSULTA - os últimos `periods` períodos da resolução (o atual incluso), filtrando
+     * opcionalmente por app e categoria (null = todos)
+     */
+    synchronized Map<String, Object> query(int resolution, int periods, String appName, String category,
+                                           long nowMs) {
+        periods = Math.max(1, Math.min(periods, BUCKETS[resolution]));
+        int appFilter = appName != null ? appIndex(appName) : -1;
+        int categoryFilter = category != null ? categoryIndex(category) : -1;
+
+        long lastPeriod = period(resolution, nowMs);
+        long offset = TimeZone.getDefault().getOffset(nowMs);
+        int[] series = new int[periods];
+        int[] byApp = new int[appCount];
+        int[] byCategory = new int[categoryCount];
+        int total = 0;
+
+        for (int i = 0; i < periods; i++) {
+            long period = lastPeriod - periods + 1 + i;
+            if (period < 0) continue;
+            int bucket = (int) (period % BUCKETS[resolution]);
+            if (bucketPeriods[resolution][bucket] != period) continue;
+
+            for (int app = 0; app < appCount; app++) {
+                if (appFilter >= 0 && app != appFilter) continue;
+                for (int cat = 0; cat < categoryCount; cat++) {
+                    if (categoryFilter >= 0 && cat != categoryFilter) continue;
+                    int count = counts[resolution][app * categoryCount + cat][bucket];
+                    series[i] += count;
+                    byApp[app] += count;
+                    byCategory[cat] += count;
+                }
+            }
+            total += series[i];
+        }
+
+        List<Map<String, Object>> buckets = new ArrayList<>(periods);
+        for (int i = 0; i < periods; i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("start", (lastPeriod - periods + 1 + i) * PERIOD_MS[resolution] - offset);
+            entry.put("count", series[i]);
+            buckets.add(entry);
+        }
+
+        Map<String, Object> appTotals = new HashMap<>();
+        for (int app = 0; app < appCount; app++) {
+            if (byApp[app] > 0) appTotals.put(app < knownApps.size() ? knownApps.get(app) : "other", byApp[app]);
+        }
+        Map<String, Object> categoryTotals = new HashMap<>();
+        for (int cat = 0; cat < categoryCount; cat++) {
+            if (byCategory[cat] > 0) categoryTotals.put(cat < CATEGORIES.size() ? CATEGORIES.get(cat) : "other", byCategory[cat]);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("resolution", RESOLUTION_NAMES[resolution]);
+        result.put("periods", periods);
+        result.put("total", total);
+        result.put("buckets", buckets);
+        result.put("byApp", appTotals);
+        result.put("byCategory", categoryTotals);
+        return result;
+    }
+
+    synchronized void clear() {
+        for (int resolution = 0; resolution < RESOLUTION_NAMES.length; resolution++) {
+            for (int[] row : counts[resolution]) Arrays.fill(row, 0);
+            Arrays.fill(bucketPeriods[resolution], -1);
+        }
+        totalBlocks = 0;
+        if (buffer != null) writeAll();
+    }
+
+    /**
+     * Forçar as páginas para o disco e fechar o arquivo (ao parar a proteção)
+     */
+    synchronized void close() {
+        if (buffer == null) return;
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Erro ao fechar agregados", e);
+        }
+        buffer = null;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("persisted", buffer != null);
+        stats.put("restored", restored);
+        stats.put("totalBlocks", totalBlocks);
+        stats.put("cells", appCount * categoryCount);
+        stats.put("counters", appCount * categoryCount * (BUCKETS[MINUTE] + BUCKETS[HOUR] + BUCKETS[DAY]));
+        return stats;
+    }
+
+    private void open(File file, long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        boolean fresh = raf.length() != size;
+        if (fresh) raf.setLength(size);
+
+        channel = raf.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ||
+                buffer.getInt(8) != appCount || buffer.getInt(12) != categoryCount ||
+                buffer.getInt(16) != BUCKETS[MINUTE] || buffer.getInt(20) != BUCKETS[HOUR] ||
+                buffer.getInt(24) != BUCKETS[DAY]) {
+            // Arquivo novo ou de outro formato (listas de apps/categorias mudaram): zerar
+            writeAll();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, appCount);
+            buffer.putInt(12, categoryCount);
+            buffer.putInt(16, BUCKETS[MINUTE]);
+            buffer.putInt(20, BUCKETS[HOUR]);
+            buffer.putInt(24, BUCKETS[DAY]);
+            return;
+        }
+
+        for (int resolution = 0; resolution < RESOLUTION_NAMES.length; resolution++) {
+            for (int bucket = 0; bucket < BUCKETS[resolution]; bucket++) {
+                bucketPeriods[resolution][bucket] = buffer.getLong(periodOffset(resolution, bucket));
+                for (int cell = 0; cell < counts[resolution].length; cell++) {
+                    int count = buffer.getInt(countOffset(resolution, cell, bucket));
+                    counts[resolution][cell][bucket] = count;
+                    if (resolution == DAY) totalBlocks += count;
+                }
+            }
+        }
+        restored = true;
+    }
+
+    /**
+     * Gravar os rings inteiros no arquivo (arquivo novo ou clear)
+     */
+    private void writeAll() {
+        for (int resolution = 0; resolution < RESOLUTION_NAMES.length; resolution++) {
+            for (int bucket = 0; bucket < BUCKETS[resolution]; bucket++) {
+                buffer.putLong(periodOffset(resolution, bucket), bucketPeriods[resolution][bucket]);
+                for (int cell = 0; cell < counts[resolution].length; cell++) {
+                    buffer.putInt(countOffset(resolution, cell, bucket), counts[resolution][cell][bucket]);
+                }
+            }
+        }
+    }
+
+    private int periodOffset(int resolution, int bucket) {
+        return sectionOffsets[resolution] + bucket * 8;
+    }
+
+    private int countOffset(int resolution, int cell, int bucket) {
+        return sectionOffsets[resolution] + BUCKETS[resolution] * 8 + (cell * BUCKETS[resolution] + bucket) * 4;
+    }
+
+    /**
+     * Período em hora local, para que "dia" e "hora" batam com o relógio do usuário
+     */
+    private static long period(int resolution, long timestampMs) {
+        return (timestampMs + TimeZone.getDefault().getOffset(timestampMs)) / PERIOD_MS[resolution];
+    }
+
+    private int appIndex(String appName) {
+        int index = knownApps.indexOf(appName);
+        return index >= 0 ? index : knownApps.size();
+    }
+
+    private static int categoryIndex(String category) {
+        int index = CATEGORIES.indexOf(category);
+        return index >= 0 ? index : CATEGORIES.size();
+    }
+}
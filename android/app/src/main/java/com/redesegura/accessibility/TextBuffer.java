@@ -0,0 +1,59 @@
+package com.redesegura.accessibility;
+
+import java.nio.CharBuffer;
+
+/**
+ * Buffer de texto reutilizável por thread
+ *
+ * Cada lane do pipeline é uma thread com um único consumidor, então o buffer da thread
+ * passa de uma análise para a próxima sem sincronização. O texto dos nós entra por
+ * append(CharSequence), sem String intermediária, e quem consome recebe uma view sem
+ * cópia (CharBuffer.wrap) do trecho útil. A view só vale até o próximo acquire() da
+ * mesma thread: quem precisar guardar o texto (trabalho assíncrono) copia.
+ *
+ * Um buffer que cresceu além de MAX_RETAINED_CHARS é trocado no acquire(), para que
+ * uma tela enorme não prenda memória na lane.
+ */
+final class TextBuffer {
+
+    private static final int INITIAL_CHARS = 2048;
+    private static final int MAX_RETAINED_CHARS = 32 * 1024;
+
+    private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_CHARS);
+        }
+    };
+
+    /**
+     * Buffer vazio da thread atual
+     */
+    StringBuilder acquire() {
+        StringBuilder buffer = buffers.get();
+        if (buffer.capacity() > MAX_RETAINED_CHARS) {
+            buffer = new StringBuilder(INITIAL_CHARS);
+            buffers.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * View sem cópia do texto sem espaços nas pontas (mesmo critério de String.trim)
+     */
+    static CharSequence trimmed(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        return CharBuffer.wrap(text, start, end);
+    }
+
+    /**
+     * Cópia dos primeiros maxChars, para logs formatados depois que o buffer já foi reutilizado
+     */
+    static String preview(CharSequence text, int maxChars) {
+        return text.subSequence(0, Math.min(maxChars, text.length())).toString();
+    }
+}
@@ -0,0 +1,177 @@
+package com.redesegura.accessibility;
+
+/**
+ * Canonicalização resistente a ofuscação
+ *
+ * Transdutor de uma passada aplicado tanto ao texto quanto aos triggers, para que o
+ * dicionário existente continue casando sem precisar de variações:
+ * - Caracteres invisíveis (zero-width, soft hyphen) são removidos
+ * - Confusables (cirílico/grego, fullwidth, letras matemáticas) viram ASCII
+ * - Acentos são removidos ("não" == "nao")
+ * - Leetspeak entre letras: "p3rfect b0dy" -> "perfect body" ("iphone15" e "R$50" ficam)
+ * - Letras espaçadas: "b o d y g o a l s" -> "bodygoals"
+ * - Letras repetidas colapsam: "blessssed" -> "blesed" (o trigger vira "blesed" também)
+ *
+ * Custo: cada caractere é lido no máximo duas vezes (a detecção de letras espaçadas
+ * olha à frente uma vez) e gera no máximo um caractere de saída.
+ */
+final class TextCanonicalizer {
+
+    private static final int MIN_SPACED_RUN = 3;
+
+    // Confusables cirílicos/gregos mais usados para burlar filtros
+    private static final String CONFUSABLE_FROM = "аеорсухіјѕԁɡһӏкмтвпαεικνορτυχ";
+    private static final String CONFUSABLE_TO   = "aeopcyxijsdghlkmtbnaeikvoptux";
+
+    private static final String ACCENTED   = "áàâãäåéèêëíìîïóòôõöúùûüçñý";
+    private static final String UNACCENTED = "aaaaaaeeeeiiiiooooouuuucny";
+
+    private TextCanonicalizer() {
+    }
+
+    static String canonicalize(CharSequence input) {
+        StringBuilder out = new StringBuilder(input.length());
+        canonicalize(input, out);
+        return out.toString();
+    }
+
+    /**
+     * TRANSDUTOR - escreve a forma canônica de input em out
+     */
+    static void canonicalize(CharSequence input, StringBuilder out) {
+        int length = input.length();
+        char lastOut = ' ';
+
+        for (int i = 0; i < length; i++) {
+            char raw = input.charAt(i);
+
+            // Letras matemáticas (𝐛𝐨𝐝𝐲) vêm como pares substitutos
+            if (Character.isHighSurrogate(raw) && i + 1 < length) {
+                char mapped = mathAlphanumeric(Character.toCodePoint(raw, input.charAt(i + 1)));
+                if (mapped != 0) {
+                    i++;
+                    if (mapped != lastOut) {
+                        out.append(mapped);
+                        lastOut = mapped;
+                    }
+                    continue;
+                }
+            }
+
+            if (isInvisible(raw)) continue;
+
+            char c = fold(raw);
+
+            // Leetspeak só entre letras, para não tocar preços, datas, modelos ("iphone15") e @handles
+            if (!Character.isLetter(c)) {
+                char leet = leet(c);
+                if (leet != 0 && Character.isLetter(lastOut) && letterFollowsLeetRun(input, i + 1)) {
+                    c = leet;
+                }
+            }
+
+            // Letras espaçadas: "b o d y" / "b.o.d.y"
+            if (Character.isLetter(c) && !Character.isLetter(lastOut)) {
+                int runEnd = spacedRunEnd(input, i);
+                if (runEnd > 0) {
+                    for (int j = i; j < runEnd; j += 2) {
+                        char letter = fold(input.charAt(j));
+                        if (letter != lastOut) {
+                            out.append(letter);
+                            lastOut = letter;
+                        }
+                    }
+                    i = runEnd - 1;
+                    continue;
+                }
+            }
+
+            if (Character.isWhitespace(c)) c = ' ';
+            if (c == lastOut && (Character.isLetter(c) || c == ' ')) continue; // Colapsar repetições
+
+            out.append(c);
+            lastOut = c;
+        }
+    }
+
+    /**
+     * Depois de uma sequência de caracteres leet a partir de start vem uma letra ("b00dy")
+     */
+    private static boolean letterFollowsLeetRun(CharSequence input, int start) {
+        int i = start;
+        while (i < input.length() && leet(fold(input.charAt(i))) != 0) i++;
+        return i < input.length() && Character.isLetter(fold(input.charAt(i)));
+    }
+
+    /**
+     * Fim (exclusivo) de uma sequência de letras isoladas separadas por um espaçador,
+     * ou -1 se a sequência tiver menos de MIN_SPACED_RUN letras
+     */
+    private static int spacedRunEnd(CharSequence input, int start) {
+        int length = input.length();
+        int letters = 0;
+        int end = -1;
+        int i = start;
+
+        while (i < length && Character.isLetter(fold(input.charAt(i)))) {
+            boolean tokenEnds = i + 1 >= length || !Character.isLetter(fold(input.charAt(i + 1)));
+            if (!tokenEnds) break; // Palavra com mais de uma letra encerra a sequência
+
+            letters++;
+            end = i + 1;
+            if (i + 2 < length && isSpacer(input.charAt(i + 1))) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+
+        return letters >= MIN_SPACED_RUN ? end : -1;
+    }
+
+    private static char fold(char c) {
+        if (c >= '\uFF01' && c <= '\uFF5E') c = (char) (c - 0xFEE0); // Fullwidth ASCII
+        c = Character.toLowerCase(c);
+        if (c < 0x80) return c;
+
+        int accented = ACCENTED.indexOf(c);
+        if (accented >= 0) return UNACCENTED.charAt(accented);
+
+        int confusable = CONFUSABLE_FROM.indexOf(c);
+        if (confusable >= 0) return CONFUSABLE_TO.charAt(confusable);
+
+        return c;
+    }
+
+    private static char leet(char c) {
+        switch (c) {
+            case '0': return 'o';
+            case '1': return 'i';
+            case '3': return 'e';
+            case '4': return 'a';
+            case '5': return 's';
+            case '7': return 't';
+            case '@': return 'a';
+            case '$': return 's';
+            default: return 0;
+        }
+    }
+
+    private static boolean isInvisible(char c) {
+        return c == '\u200B' || c == '\u200C' || c == '\u200D' || c == '\u2060' ||
+               c == '\uFEFF' || c == '\u00AD' || c == '\u180E';
+    }
+
+    private static boolean isSpacer(char c) {
+        return c == ' ' || c == '.' || c == '-' || c == '_' || c == '*' || c == '\u00A0';
+    }
+
+    /**
+     * Bloco Mathematical Alphanumeric Symbols (U+1D400-U+1D6A3): 13 estilos de A-Z a-z
+     */
+    private static char mathAlphanumeric(int codePoint) {
+        if (codePoint < 0x1D400 || codePoint > 0x1D6A3) return 0;
+        int offset = (codePoint - 0x1D400) % 52;
+        return (char) (offset < 26 ? 'a' + offset : 'a' + offset - 26);
+    }
+}
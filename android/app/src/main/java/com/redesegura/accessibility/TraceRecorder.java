@@ -0,0 +1,190 @@
+package com.redesegura.accessibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Traces ponta a ponta: do evento de acessibilidade ao overlay na tela
+ *
+ * Cada evento que sai da coalescência recebe um ID e timestamps (System.nanoTime)
+ * por estágio. Ao fim da análise o trace entra num ring buffer sem locks; o estágio
+ * OVERLAY_ATTACHED ainda pode ser marcado depois, quando o OverlayManager adiciona a
+ * view, porque o ring guarda o próprio objeto.
+ *
+ * Percentis por estágio e os traces mais lentos são calculados só na consulta,
+ * sobre uma cópia do ring.
+ */
+class TraceRecorder {
+
+    static final int RECEIVED = 0;         // primeiro evento da rajada chegou
+    static final int QUEUED = 1;           // saiu da coalescência para o pipeline
+    static final int STARTED = 2;          // retirado da fila pela lane
+    static final int EXTRACTED = 3;        // texto extraído da árvore
+    static final int SCORED = 4;           // veredito da IA
+    static final int OVERLAY_POSTED = 5;   // overlays postados para a thread principal
+    static final int OVERLAY_ATTACHED = 6; // primeira view de overlay adicionada
+    private static final String[] STAGE_NAMES = {
+        "received", "queued", "started", "extracted", "scored", "overlayPosted", "overlayAttached"
+    };
+
+    private static final int CAPACITY = 256;
+    private static final int SLOWEST_DUMP = 5;
+
+    private final AtomicReferenceArray<Trace> ring = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile boolean enabled = true;
+
+    /**
+     * Trace de um evento; estágios marcados por threads diferentes
+     */
+    static class Trace {
+        final long id;
+        final String packageName;
+        private final AtomicLongArray stages = new AtomicLongArray(STAGE_NAMES.length);
+
+        private Trace(long id, String packageName) {
+            this.id = id;
+            this.packageName = packageName;
+        }
+
+        /**
+         * Marcar o estágio agora; só a primeira marcação vale
+         */
+        void mark(int stage) {
+            stages.compareAndSet(stage, 0, System.nanoTime());
+        }
+
+        private long at(int stage) {
+            return stages.get(stage);
+        }
+
+        private long totalNanos() {
+            for (int stage = STAGE_NAMES.length - 1; stage > RECEIVED; stage--) {
+                if (at(stage) != 0) return at(stage) - at(RECEIVED);
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * INICIAR TRACE na saída da coalescência; null com o tracing desligado
+     */
+    Trace begin(String packageName, long receivedAtNanos) {
+        if (!enabled) return null;
+        Trace trace = new Trace(nextId.incrementAndGet(), packageName);
+        trace.stages.set(RECEIVED, receivedAtNanos);
+        trace.mark(QUEUED);
+        return trace;
+    }
+
+    /**
+     * Guardar o trace no ring (sobrescreve o mais antigo)
+     */
+    void record(Trace trace) {
+        if (trace == null) return;
+        long slot = recorded.getAndIncrement();
+        ring.set((int) (slot % CAPACITY), trace);
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void clear() {
+        for (int i = 0; i < CAPACITY; i++) ring.set(i, null);
+    }
+
+    /**
+     * Percentis da duração de cada estágio (desde o estágio anterior marcado) e do total,
+     * mais os traces mais lentos
+     */
+    Map<String, Object> getStats() {
+        List<Trace> traces = snapshot();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("recorded", recorded.get());
+        stats.put("sampled", traces.size());
+
+        Map<String, Object> stageStats = new HashMap<>();
+        for (int stage = QUEUED; stage < STAGE_NAMES.length; stage++) {
+            long[] durations = new long[traces.size()];
+            int count = 0;
+            for (Trace trace : traces) {
+                long duration = stageNanos(trace, stage);
+                if (duration >= 0) durations[count++] = duration;
+            }
+            stageStats.put(STAGE_NAMES[stage], percentiles(durations, count));
+        }
+        stats.put("stages", stageStats);
+
+        // Traces ainda em andamento mudam durante a ordenação: ordena-se uma cópia dos totais
+        long[] totals = new long[traces.size()];
+        for (int i = 0; i < traces.size(); i++) totals[i] = traces.get(i).totalNanos();
+        stats.put("total", percentiles(totals.clone(), totals.length));
+
+        Integer[] order = new Integer[totals.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(totals[b], totals[a]));
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        for (int i = 0; i < Math.min(SLOWEST_DUMP, order.length); i++) slowest.add(dump(traces.get(order[i])));
+        stats.put("slowest", slowest);
+        return stats;
+    }
+
+    private List<Trace> snapshot() {
+        List<Trace> traces = new ArrayList<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            Trace trace = ring.get(i);
+            if (trace != null) traces.add(trace);
+        }
+        return traces;
+    }
+
+    /**
+     * Duração do estágio desde o estágio anterior marcado; -1 se não foi marcado
+     */
+    private static long stageNanos(Trace trace, int stage) {
+        long end = trace.at(stage);
+        if (end == 0) return -1;
+        for (int previous = stage - 1; previous >= RECEIVED; previous--) {
+            if (trace.at(previous) != 0) return end - trace.at(previous);
+        }
+        return -1;
+    }
+
+    private static Map<String, Object> percentiles(long[] values, int count) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("count", count);
+        if (count == 0) return result;
+
+        Arrays.sort(values, 0, count);
+        result.put("p50Ms", values[(count - 1) / 2] / 1_000_000.0);
+        result.put("p90Ms", values[(int) ((count - 1) * 0.9)] / 1_000_000.0);
+        result.put("p99Ms", values[(int) ((count - 1) * 0.99)] / 1_000_000.0);
+        result.put("maxMs", values[count - 1] / 1_000_000.0);
+        return result;
+    }
+
+    /**
+     * Trace como offsets (ms) de cada estágio em relação ao recebimento
+     */
+    private static Map<String, Object> dump(Trace trace) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", trace.id);
+        entry.put("packageName", trace.packageName);
+        entry.put("totalMs", trace.totalNanos() / 1_000_000.0);
+        long received = trace.at(RECEIVED);
+        for (int stage = QUEUED; stage < STAGE_NAMES.length; stage++) {
+            if (trace.at(stage) != 0) entry.put(STAGE_NAMES[stage] + "Ms", (trace.at(stage) - received) / 1_000_000.0);
+        }
+        return entry;
+    }
+}
@@ -6,6 +6,7 @@ import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -93,6 +94,24 @@ public class AccessibilityModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Bloqueios agregados para o dashboard (ex.: "day", 7 = últimos sete dias)
+     * appName/category nulos = todos
+     */
+    @ReactMethod
+    public void getBlockRollups(String resolution, int periods, String appName, String category, Promise promise) {
+        try {
+            RedeSeguraAccessibilityService service = getAccessibilityServiceInstance();
+            if (service == null) {
+                promise.reject("SERVICE_NOT_RUNNING", "Serviço de acessibilidade não está em execução");
+                return;
+            }
+            promise.resolve(Arguments.makeNativeMap(service.getBlockRollups(resolution, periods, appName, category)));
+        } catch (Exception e) {
+            promise.reject("ROLLUP_QUERY_ERROR", e.getMessage());
+        }
+    }
+
     private boolean isAccessibilityServiceEnabled() {
         String enabledServices = Settings.Secure.getString(
             reactContext.getContentResolver(),
@@ -21,11 +21,16 @@ import android.view.animation.BounceInterpolator;
 import android.graphics.drawable.GradientDrawable;
 
 import com.redesegura.R;
+import com.redesegura.accessibility.FastLog;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * OverlayManager v3.0 - Sistema Avançado de Overlays Protetivos
@@ -46,25 +51,75 @@ public class OverlayManager {
     private Handler handler = new Handler(Looper.getMainLooper());
     private Map<String, Integer> overlayCache = new HashMap<>();
 
+    // Overlays provisórios do fast path crítico, aguardando a análise completa; a chave entra
+    // em provisionalKeys já na chamada, antes de a view existir na thread principal
+    private Map<String, View> provisionalOverlays = new ConcurrentHashMap<>();
+    private Set<String> provisionalKeys = ConcurrentHashMap.newKeySet();
+    private AtomicInteger provisionalSequence = new AtomicInteger();
+
+    // Overlays que acompanham um post (chave do chamador -> view); só na thread principal
+    private Map<String, View> trackedOverlays = new HashMap<>();
+
     // Configurações de design avançado
     private static final int OVERLAY_ANIMATION_DURATION = 400;
     private static final int AUTO_REMOVE_DELAY_HIGH_RISK = 3000;
     private static final int AUTO_REMOVE_DELAY_MEDIUM_RISK = 4000;
     private static final int AUTO_REMOVE_DELAY_LOW_RISK = 5000;
 
+    /**
+     * Interações com o overlay (revelar, pular, auto-remoção), para o histórico local
+     */
+    public interface InteractionListener {
+        void onUserInteraction(String action, String context, String appName);
+    }
+
+    private InteractionListener interactionListener;
+
     public OverlayManager(Context context) {
         this.context = context;
         this.windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         Log.d(TAG, "🎨 OverlayManager v3.0 inicializado");
     }
 
+    public void setInteractionListener(InteractionListener listener) {
+        this.interactionListener = listener;
+    }
+
     /**
      * MOSTRAR OVERLAY PROTETIVO AVANÇADO - DESIGN PREMIUM
      */
     public void showAdvancedProtectiveOverlay(Rect bounds, String triggerReason, String riskLevel, 
                                             int confidence, String triggerType, String appName) {
+        showAdvancedProtectiveOverlay(bounds, triggerReason, riskLevel, confidence, triggerType, appName, null);
+    }
+
+    /**
+     * @param onAttached executado na thread principal logo após a view ser adicionada (tracing)
+     */
+    public void showAdvancedProtectiveOverlay(Rect bounds, String triggerReason, String riskLevel, 
+                                            int confidence, String triggerType, String appName,
+                                            Runnable onAttached) {
+        showTrackedOverlay(null, bounds, triggerReason, riskLevel, confidence, triggerType, appName, onAttached);
+    }
+
+    /**
+     * OVERLAY QUE ACOMPANHA UM POST
+     * Se o overlay da mesma trackKey ainda está na tela (não foi dispensado nem auto-removido),
+     * ele é movido para os bounds novos em vez de empilhar outro durante a rolagem.
+     * trackKey null = overlay avulso
+     */
+    public void showTrackedOverlay(String trackKey, Rect bounds, String triggerReason, String riskLevel,
+                                   int confidence, String triggerType, String appName, Runnable onAttached) {
         handler.post(() -> {
             try {
+                View trackedView = trackKey != null ? trackedOverlays.get(trackKey) : null;
+                if (trackedView != null && activeOverlays.contains(trackedView)) {
+                    windowManager.updateViewLayout(trackedView, createOptimizedWindowParams(bounds));
+                    if (onAttached != null) onAttached.run();
+                    if (FastLog.D) FastLog.d(TAG, "↕️ Overlay movido: %s", trackKey);
+                    return;
+                }
+
                 // Criar view do overlay com design premium
                 View overlayView = createPremiumOverlayView(triggerReason, riskLevel, confidence, triggerType, appName);
 
@@ -74,6 +129,8 @@ public class OverlayManager {
                 // Adicionar overlay à tela
                 windowManager.addView(overlayView, params);
                 activeOverlays.add(overlayView);
+                if (trackKey != null) trackedOverlays.put(trackKey, overlayView);
+                if (onAttached != null) onAttached.run();
 
                 // Animação de entrada premium
                 animatePremiumOverlayEntrance(overlayView, riskLevel);
@@ -84,8 +141,8 @@ public class OverlayManager {
                 // Auto-remoção inteligente baseada no risco
                 scheduleIntelligentAutoRemoval(overlayView, riskLevel, appName);
 
-                Log.d(TAG, String.format("🛡️ Overlay premium aplicado: %s (%s) - %d%% confiança", 
-                    triggerType, riskLevel, confidence));
+                if (FastLog.D) FastLog.d(TAG, "🛡️ Overlay premium aplicado: %s (%s) - %d%% confiança", 
+                    triggerType, riskLevel, confidence);
 
             } catch (Exception e) {
                 Log.e(TAG, "❌ Erro ao mostrar overlay premium", e);
@@ -93,6 +150,67 @@ public class OverlayManager {
         });
     }
 
+    /**
+     * OVERLAY PROVISÓRIO DO FAST PATH CRÍTICO
+     * Cobre o conteúdo imediatamente; a análise completa depois o substitui pelos
+     * overlays refinados ou o retira. Os bounds são os da origem do evento e não acompanham
+     * a rolagem: sem veredito, sai sozinho após AUTO_REMOVE_DELAY_HIGH_RISK. Retorna a
+     * chave para resolver o overlay.
+     */
+    public String showProvisionalOverlay(Rect bounds, String triggerReason, int confidence,
+                                         String triggerType, String appName) {
+        String overlayKey = appName + "#" + provisionalSequence.incrementAndGet();
+        provisionalKeys.add(overlayKey);
+
+        handler.post(() -> {
+            if (!provisionalKeys.contains(overlayKey)) return; // resolvido antes de aparecer
+            try {
+                View overlayView = createPremiumOverlayView(triggerReason, "Crítico", confidence, triggerType, appName);
+                WindowManager.LayoutParams params = createOptimizedWindowParams(bounds);
+
+                windowManager.addView(overlayView, params);
+                activeOverlays.add(overlayView);
+                provisionalOverlays.put(overlayKey, overlayView);
+
+                animatePremiumOverlayEntrance(overlayView, "Crítico");
+                setupOverlayInteractions(overlayView, triggerReason, appName);
+
+                // Veredito que não chegou: não deixa o provisório sobre outro conteúdo
+                handler.postDelayed(() -> {
+                    if (provisionalOverlays.get(overlayKey) == overlayView) {
+                        retractProvisionalOverlay(overlayKey, "timeout");
+                    }
+                }, AUTO_REMOVE_DELAY_HIGH_RISK);
+
+                if (FastLog.D) FastLog.d(TAG, "⚡ Overlay provisório aplicado: %s", overlayKey);
+
+            } catch (Exception e) {
+                provisionalKeys.remove(overlayKey);
+                Log.e(TAG, "❌ Erro ao mostrar overlay provisório", e);
+            }
+        });
+
+        return overlayKey;
+    }
+
+    /**
+     * RESOLVER OVERLAY PROVISÓRIO ("refined" quando substituído, "retracted" quando seguro,
+     * "timeout" sem veredito)
+     */
+    public void retractProvisionalOverlay(String overlayKey, String removalType) {
+        provisionalKeys.remove(overlayKey);
+        handler.post(() -> {
+            View overlayView = provisionalOverlays.remove(overlayKey);
+            if (overlayView != null) {
+                removeOverlayWithAnimation(overlayView, removalType);
+            }
+        });
+    }
+
+    public boolean isProvisionalOverlayActive(String overlayKey) {
+        return overlayKey != null && provisionalKeys.contains(overlayKey);
+    }
+
     /**
      * CRIAR VIEW DO OVERLAY COM DESIGN PREMIUM
      */
@@ -269,6 +387,17 @@ public class OverlayManager {
     private void removeOverlayWithAnimation(View overlayView, String removalType) {
         try {
             if (!activeOverlays.contains(overlayView)) return;
+            // Provisório dispensado pelo usuário: deixa de aguardar veredito
+            for (Map.Entry<String, View> provisional : provisionalOverlays.entrySet()) {
+                if (provisional.getValue() == overlayView) {
+                    provisionalKeys.remove(provisional.getKey());
+                    provisionalOverlays.remove(provisional.getKey());
+                }
+            }
+            // Post acompanhado: a próxima cobertura cria outro overlay
+            for (Iterator<View> tracked = trackedOverlays.values().iterator(); tracked.hasNext(); ) {
+                if (tracked.next() == overlayView) tracked.remove();
+            }
 
             // Animação de saída baseada no tipo de remoção
             AnimatorSet exitAnimator = new AnimatorSet();
@@ -295,7 +424,7 @@ public class OverlayManager {
                     try {
                         windowManager.removeView(overlayView);
                         activeOverlays.remove(overlayView);
-                        Log.d(TAG, String.format("✅ Overlay removido (%s)", removalType));
+                        if (FastLog.D) FastLog.d(TAG, "✅ Overlay removido (%s)", removalType);
                     } catch (Exception e) {
                         Log.e(TAG, "❌ Erro ao remover overlay", e);
                     }
@@ -369,8 +498,10 @@ public class OverlayManager {
         
         Log.d(TAG, String.format("👤 Interação: %s - %s (%s)", action, context, appName));
         
-        // Aqui você pode implementar analytics locais se necessário
-        // NUNCA enviar dados para servidores externos
+        // Analytics locais (diário do serviço) - NUNCA enviar dados para servidores externos
+        if (interactionListener != null) {
+            interactionListener.onUserInteraction(action, context, appName);
+        }
     }
 
     /**
@@ -443,6 +574,9 @@ public class OverlayManager {
             
             activeOverlays.clear();
             overlayCache.clear();
+            provisionalOverlays.clear();
+            provisionalKeys.clear();
+            trackedOverlays.clear();
             
             // Remover callbacks pendentes
             if (handler != null) {
@@ -463,6 +597,8 @@ public class OverlayManager {
         Map<String, Object> stats = new HashMap<>();
         stats.put("activeOverlays", activeOverlays.size());
         stats.put("cacheSize", overlayCache.size());
+        stats.put("provisionalOverlays", provisionalOverlays.size());
+        stats.put("trackedOverlays", trackedOverlays.size());
         stats.put("version", "3.0");
         return stats;
     }
@@ -1,7 +1,7 @@
 import { useState, useEffect, useCallback } from 'react';
 import { Platform, AppState, Alert, DeviceEventEmitter } from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
-import NativeModuleService from '../services/NativeModuleService';
+import NativeModuleService, { ContentBlockedBatch, ContentBlockedEvent } from '../services/NativeModuleService';
 import { PermissionsManager } from '../utils/PermissionsManager';
 import { PsychAIEngine } from '../ai/PsychAIEngine';
 
@@ -12,6 +12,7 @@ interface ProtectionStats {
   sessionsProtected: number;
   triggersAvoided: number;
   timeProtected: number;
+  contentAnalyzed: number;
 }
 
 interface PermissionStatus {
@@ -47,6 +48,7 @@ export const useRedeSeguraProtection = () => {
     sessionsProtected: 34,
     triggersAvoided: 287,
     timeProtected: 156,
+    contentAnalyzed: 0,
   });
   
   const [isLoading, setIsLoading] = useState(false);
@@ -280,10 +282,10 @@ export const useRedeSeguraProtection = () => {
 
   const setupRealtimeListeners = () => {
     try {
-      // Listener para conteúdo bloqueado em tempo real
+      // Listener para conteúdo bloqueado em tempo real (lotes do serviço nativo)
       const contentBlockedListener = DeviceEventEmitter.addListener(
-        'onContentBlocked', 
-        handleContentBlocked
+        'onContentBlockedBatch', 
+        handleContentBlockedBatch
       );
       
       // Listener para análise de IA completa
@@ -313,7 +315,7 @@ export const useRedeSeguraProtection = () => {
 
   const removeRealtimeListeners = () => {
     try {
-      DeviceEventEmitter.removeAllListeners('onContentBlocked');
+      DeviceEventEmitter.removeAllListeners('onContentBlockedBatch');
       DeviceEventEmitter.removeAllListeners('onAIAnalysisComplete');
       DeviceEventEmitter.removeAllListeners('onPermissionChanged');
       console.log('🔇 Listeners removidos');
@@ -322,20 +324,33 @@ export const useRedeSeguraProtection = () => {
     }
   };
 
-  const handleContentBlocked = (data: any) => {
-    console.log('🛡️ Conteúdo bloqueado em tempo real:', data);
-    
-    // Atualizar estatísticas instantaneamente
+  const handleContentBlockedBatch = (batch: ContentBlockedBatch) => {
+    const events = batch?.events ?? [];
+    const statsDelta = batch?.statsDelta ?? {};
+
+    // Lotes só de estatísticas (análises, posts recobertos) chegam sem eventos.
+    // O delta "blocked" é exato mesmo quando o lote descartou registros por estar cheio
+    const blocked = statsDelta.blocked ??
+      events.reduce((total, event) => total + (event.count || 1), 0);
+    const analyses = statsDelta.analyses ?? 0;
+    const recovered = statsDelta.recovered ?? 0;
+    if (blocked === 0 && analyses === 0 && recovered === 0) return;
+
+    // Uma única atualização de estado por lote
     setStats(prev => ({
       ...prev,
-      postsBlocked: prev.postsBlocked + 1,
-      triggersAvoided: prev.triggersAvoided + 1,
-      mentalHealthScore: Math.min(100, prev.mentalHealthScore + 0.2),
+      postsBlocked: prev.postsBlocked + blocked,
+      triggersAvoided: prev.triggersAvoided + blocked + recovered,
+      contentAnalyzed: (prev.contentAnalyzed ?? 0) + analyses,
+      mentalHealthScore: Math.min(100, prev.mentalHealthScore + 0.2 * blocked),
       lastUpdated: Date.now(),
     }));
 
-    // Salvar evento para análise futura
-    saveBlockedContentEvent(data);
+    if (events.length === 0) return;
+    console.log(`🛡️ ${blocked} conteúdo(s) bloqueado(s) em tempo real (lote de ${events.length})`);
+
+    // Salvar eventos para análise futura
+    saveBlockedContentEvents(events);
     
     // Feedback háptico sutil
     if (Platform.OS === 'ios') {
@@ -384,21 +399,22 @@ export const useRedeSeguraProtection = () => {
     }
   };
 
-  const saveBlockedContentEvent = async (data: any) => {
+  const saveBlockedContentEvents = async (data: ContentBlockedEvent[]) => {
     try {
       const events = await AsyncStorage.getItem('@RedeSegura:blockedEvents');
       const parsedEvents = events ? JSON.parse(events) : [];
       
-      const newEvent = {
-        ...data,
-        timestamp: Date.now(),
-        id: Date.now().toString(),
+      const now = Date.now();
+      const newEvents = data.map((event, index) => ({
+        ...event,
+        timestamp: now,
+        id: `${now}-${index}`,
         aiVersion: 'PsychAI v4.0',
         platform: Platform.OS
-      };
+      }));
       
-      // Manter apenas os últimos 500 eventos para análise
-      const updatedEvents = [newEvent, ...parsedEvents.slice(0, 499)];
+      // Manter apenas os últimos 500 eventos para análise (uma leitura/escrita por lote)
+      const updatedEvents = [...newEvents, ...parsedEvents].slice(0, 500);
       
       await AsyncStorage.setItem('@RedeSegura:blockedEvents', JSON.stringify(updatedEvents));
     } catch (error) {
@@ -590,6 +606,7 @@ export const useRedeSeguraProtection = () => {
         sessionsProtected: 0,
         triggersAvoided: 0,
         timeProtected: 0,
+        contentAnalyzed: 0,
       });
       
       setIsProtectionActive(false);
@@ -10,6 +10,12 @@ interface AccessibilityModuleInterface {
   getServiceStatus(): Promise<boolean>;
   forceAnalyzeCurrentScreen(): Promise<boolean>;
   setProtectionLevel(level: number): Promise<boolean>;
+  getBlockRollups(
+    resolution: RollupResolution,
+    periods: number,
+    appName: string | null,
+    category: string | null
+  ): Promise<BlockRollups>;
 }
 
 interface OverlayModuleInterface {
@@ -116,6 +122,38 @@ interface AIAnalysisResult {
   processingTime: number;
 }
 
+// Lote entregue pela bridge: bloqueios iguais no mesmo lote chegam somados em "count"
+export interface ContentBlockedEvent {
+  appName: string;
+  triggerReason: string;
+  triggerType?: string;
+  riskLevel: string;
+  confidence: number;
+  toxicityScore?: number;
+  processingTime?: number;
+  timestamp: string | number;
+  count: number;
+  [key: string]: any;
+}
+
+export type RollupResolution = 'minute' | 'hour' | 'day';
+
+// Bloqueios agregados pelo serviço nativo (últimos `periods` períodos, o atual incluso)
+export interface BlockRollups {
+  resolution: RollupResolution;
+  periods: number;
+  total: number;
+  buckets: { start: number; count: number }[];
+  byApp: { [appName: string]: number };
+  byCategory: { [category: string]: number };
+}
+
+export interface ContentBlockedBatch {
+  events: ContentBlockedEvent[];
+  statsDelta: { [key: string]: number };
+  timestamp: string | number;
+}
+
 interface TrainingData {
   content: string;
   label: boolean;
@@ -219,6 +257,17 @@ export class NativeModuleService {
       setProtectionLevel: (level: number) => {
         console.log(`🛡️ Mock: Definindo nível de proteção: ${level}%`);
         return Promise.resolve(true);
+      },
+      getBlockRollups: (resolution: RollupResolution, periods: number) => {
+        console.log(`📈 Mock: Agregados de bloqueios (${periods} x ${resolution})`);
+        return Promise.resolve({
+          resolution,
+          periods,
+          total: 0,
+          buckets: [],
+          byApp: {},
+          byCategory: {}
+        });
       }
     };
   }
@@ -246,14 +295,15 @@ export class NativeModuleService {
         
         // Simular evento de conteúdo bloqueado
         setTimeout(() => {
-          this.eventEmitter?.emit('onContentBlocked', {
+          this.emitContentBlockedBatch({
             appName: config.appName,
             triggerReason: config.triggerReason,
             riskLevel: config.riskLevel,
             confidence: config.confidence,
             timestamp: Date.now(),
             overlayType: config.overlayType || 'blur',
-            customMessage: config.customMessage
+            customMessage: config.customMessage,
+            count: 1
           });
         }, 100);
         
@@ -374,19 +424,30 @@ export class NativeModuleService {
       const analysis = this.simulateAdvancedAIAnalysis(mockContent.text, mockContent.app);
       
       if (analysis.shouldBlock) {
-        this.eventEmitter?.emit('onContentBlocked', {
+        this.emitContentBlockedBatch({
           appName: mockContent.app,
           triggerReason: analysis.triggerType,
           riskLevel: analysis.riskLevel,
           confidence: analysis.confidence,
           timestamp: Date.now(),
           processingTime: analysis.processingTime,
-          toxicityScore: analysis.toxicityScore
+          toxicityScore: analysis.toxicityScore,
+          count: 1
         });
       }
     }, Math.floor(Math.random() * 5000) + 3000); // Entre 3-8 segundos
   }
 
+  // Mocks emitem no mesmo formato de lote do serviço nativo
+  private emitContentBlockedBatch(event: ContentBlockedEvent) {
+    const batch: ContentBlockedBatch = {
+      events: [event],
+      statsDelta: { blocked: 1 },
+      timestamp: Date.now()
+    };
+    this.eventEmitter?.emit('onContentBlockedBatch', batch);
+  }
+
   private stopMockAnalysis() {
     if (this.mockAnalysisInterval) {
       clearInterval(this.mockAnalysisInterval);